@@ -0,0 +1,18 @@
+package com.penghaohuan.excel.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 导入实体的创建方式.
+ * 标注在构造器或静态工厂方法上，导入时每行调用一次，参数依次为标注了@ImportExcelDesc的属性值（按属性声明顺序）.
+ * 用于没有无参构造器、属性不可变的实体.
+ * @author penghaohuan
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.CONSTRUCTOR, ElementType.METHOD})
+public @interface ExcelCreator {
+}
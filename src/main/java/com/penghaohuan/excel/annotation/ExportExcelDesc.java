@@ -24,4 +24,19 @@ public @interface ExportExcelDesc {
     short fontHeightInPoints() default 14;
 
     int columnWidth() default 0;
+
+    /**
+     * 字典名.
+     * 导出时将编码转换为名称，不在字典中的编码原样导出.
+     * 字典由{@link com.penghaohuan.excel.dictionary.DictionaryProvider}提供.
+     * @return 字典名
+     */
+    String dictionary() default "";
+
+    /**
+     * 是否纵向合并连续相同值的单元格.
+     * 多个合并列按列顺序分级，左侧列的值变化时右侧列重新开始合并，适用于按分组排序的报表.
+     * @return 是否合并
+     */
+    boolean mergeSame() default false;
 }
@@ -19,6 +19,21 @@ public @interface ImportExcelDesc {
      */
     String name();
 
+    /**
+     * 列名别名.
+     * 表头中找不到name时依次按别名查找列；多行表头可使用路径形式，如：联系方式 &gt; 电话
+     * @return 列名别名
+     */
+    String[] aliases() default {};
+
+    /**
+     * 字典名.
+     * 导入时将单元格中的名称转换为编码（单元格已是编码时原样保留），不在字典中的值作为校验错误.
+     * 字典由{@link com.penghaohuan.excel.dictionary.DictionaryProvider}提供.
+     * @return 字典名
+     */
+    String dictionary() default "";
+
     /**
      * 是否是关键字段，如果是，则该字段必须有值
      */
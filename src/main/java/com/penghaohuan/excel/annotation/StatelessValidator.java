@@ -0,0 +1,18 @@
+package com.penghaohuan.excel.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 无状态校验类标记.
+ * 标注在校验类上，表示该校验类不持有导入过程中的状态、可在多线程间安全共享，
+ * 导入时会复用同一个校验实例，而不是每次导入都重新创建.
+ * @author penghaohuan
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface StatelessValidator {
+}
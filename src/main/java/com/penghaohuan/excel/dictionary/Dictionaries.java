@@ -0,0 +1,167 @@
+package com.penghaohuan.excel.dictionary;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * 字典缓存.
+ * 所有导入器、导出器共享的有界LRU缓存，条目超过存活时间后在下次访问时重新加载.
+ * 导入、导出每次开始时按属性解析一次字典，逐行转换时直接使用{@link Dictionary}，不再访问缓存.
+ * @author penghaohuan
+ */
+public final class Dictionaries {
+
+    /**
+     * 缓存锁.
+     */
+    private static final Object LOCK = new Object();
+
+    /**
+     * 缓存的字典，按访问顺序排列.
+     */
+    private static final LinkedHashMap<String, CachedDictionary> CACHE = new LinkedHashMap<String, CachedDictionary>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedDictionary> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 缓存的字典数上限.
+     */
+    private static int maxSize = 256;
+
+    /**
+     * 存活时间，毫秒.
+     */
+    private static long ttlMillis = 10 * 60 * 1000L;
+
+    /**
+     * 字典数据来源.
+     */
+    private static volatile DictionaryProvider provider;
+
+    private Dictionaries() {
+    }
+
+    /**
+     * 注册字典数据来源，并清空缓存.
+     * @param dictionaryProvider 字典数据来源
+     */
+    public static void setProvider(final DictionaryProvider dictionaryProvider) {
+        provider = dictionaryProvider;
+        invalidateAll();
+    }
+
+    /**
+     * 设置缓存的字典数上限.
+     * @param size 上限
+     */
+    public static void setMaxSize(final int size) {
+        synchronized (LOCK) {
+            maxSize = Math.max(size, 1);
+        }
+    }
+
+    /**
+     * 设置存活时间.
+     * @param millis 毫秒
+     */
+    public static void setTtlMillis(final long millis) {
+        synchronized (LOCK) {
+            ttlMillis = millis;
+        }
+    }
+
+    /**
+     * 获取字典.
+     * @param name 字典名
+     * @return 字典
+     * @throws IllegalStateException 没有字典数据来源
+     * @throws IllegalArgumentException 字典不存在或加载失败
+     */
+    public static Dictionary get(final String name) {
+        final long now = System.currentTimeMillis();
+        synchronized (LOCK) {
+            final CachedDictionary cached = CACHE.get(name);
+            if (cached != null && cached.expiresAt > now) {
+                return cached.dictionary;
+            }
+        }
+        final Map<String, String> entries;
+        try {
+            entries = getProvider().load(name);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalArgumentException("Load dictionary failed: " + name, e);
+        }
+        if (entries == null) {
+            throw new IllegalArgumentException("Dictionary not found: " + name);
+        }
+        final Dictionary dictionary = new Dictionary(name, entries);
+        synchronized (LOCK) {
+            CACHE.put(name, new CachedDictionary(dictionary, now + ttlMillis));
+        }
+        return dictionary;
+    }
+
+    /**
+     * 使字典失效，下次访问时重新加载.
+     * @param name 字典名
+     */
+    public static void invalidate(final String name) {
+        synchronized (LOCK) {
+            CACHE.remove(name);
+        }
+    }
+
+    /**
+     * 使所有字典失效.
+     */
+    public static void invalidateAll() {
+        synchronized (LOCK) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * 获取字典数据来源.
+     * @return 字典数据来源
+     */
+    private static DictionaryProvider getProvider() {
+        DictionaryProvider current = provider;
+        if (current == null) {
+            final Iterator<DictionaryProvider> providers = ServiceLoader.load(DictionaryProvider.class).iterator();
+            if (!providers.hasNext()) {
+                throw new IllegalStateException("No DictionaryProvider registered.");
+            }
+            current = providers.next();
+            provider = current;
+        }
+        return current;
+    }
+
+    /**
+     * 缓存条目.
+     */
+    private static final class CachedDictionary {
+
+        /**
+         * 字典.
+         */
+        private final Dictionary dictionary;
+
+        /**
+         * 过期时间.
+         */
+        private final long expiresAt;
+
+        CachedDictionary(final Dictionary dictionary, final long expiresAt) {
+            this.dictionary = dictionary;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.penghaohuan.excel.dictionary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 已加载的字典.
+ * 同时保存编码到名称、名称到编码的对应关系，不可变，可在多线程间共享.
+ * 以字符串查找时只做一次哈希查找，不创建对象.
+ * @author penghaohuan
+ */
+public final class Dictionary {
+
+    /**
+     * 非字符串编码的缓存上限与字典大小的倍数.
+     */
+    private static final int VALUE_CACHE_FACTOR = 2;
+
+    /**
+     * 字典名.
+     */
+    private final String name;
+
+    /**
+     * 编码到名称.
+     */
+    private final Map<String, String> labels;
+
+    /**
+     * 名称到编码.
+     */
+    private final Map<String, String> codes;
+
+    /**
+     * 非字符串编码（如Integer）到名称的缓存，避免每次转换为字符串.
+     */
+    private final ConcurrentMap<Object, String> valueLabels = new ConcurrentHashMap<>();
+
+    /**
+     * 构造.
+     * @param name 字典名
+     * @param entries 编码与名称的对应关系
+     */
+    public Dictionary(final String name, final Map<String, String> entries) {
+        this.name = name;
+        this.labels = Collections.unmodifiableMap(new HashMap<>(entries));
+        final Map<String, String> reverse = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            reverse.putIfAbsent(entry.getValue(), entry.getKey());
+        }
+        this.codes = Collections.unmodifiableMap(reverse);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 编码转换为名称.
+     * @param code 编码
+     * @return 名称，编码不存在时返回null
+     */
+    public String getLabel(final String code) {
+        return labels.get(code);
+    }
+
+    /**
+     * 属性值转换为名称.
+     * 非字符串的属性值按文本查找，结果缓存，之后同一值的查找不再创建字符串.
+     * @param value 属性值
+     * @return 名称，编码不存在时返回null
+     */
+    public String getLabel(final Object value) {
+        if (value instanceof String) {
+            return labels.get(value);
+        }
+        String label = valueLabels.get(value);
+        if (label == null) {
+            label = labels.get(String.valueOf(value));
+            if (label != null && valueLabels.size() < labels.size() * VALUE_CACHE_FACTOR) {
+                valueLabels.putIfAbsent(value, label);
+            }
+        }
+        return label;
+    }
+
+    /**
+     * 名称转换为编码.
+     * @param label 名称
+     * @return 编码，名称不存在时返回null
+     */
+    public String getCode(final String label) {
+        return codes.get(label);
+    }
+
+    /**
+     * 是否包含编码.
+     * @param code 编码
+     * @return 是否包含
+     */
+    public boolean containsCode(final String code) {
+        return labels.containsKey(code);
+    }
+}
@@ -0,0 +1,21 @@
+package com.penghaohuan.excel.dictionary;
+
+import java.util.Map;
+
+/**
+ * 字典数据来源.
+ * 通过{@link Dictionaries#setProvider(DictionaryProvider)}注册，未注册时使用
+ * {@link java.util.ServiceLoader}在META-INF/services中查找第一个实现.
+ * 加载结果由{@link Dictionaries}缓存，实现类无需自行缓存.
+ * @author penghaohuan
+ */
+public interface DictionaryProvider {
+
+    /**
+     * 加载字典.
+     * @param name 字典名，即注解中的dictionary
+     * @return 编码与名称的对应关系，字典不存在时返回null
+     * @throws Exception 加载异常
+     */
+    Map<String, String> load(String name) throws Exception;
+}
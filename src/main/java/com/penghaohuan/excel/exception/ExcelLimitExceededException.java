@@ -0,0 +1,52 @@
+package com.penghaohuan.excel.exception;
+
+/**
+ * 文件超出导入限制异常.
+ * 在完整解析前或读取时抛出，包含超出的限制项、实际值与上限.
+ * @author penghaohuan
+ */
+public class ExcelLimitExceededException extends ExcelTemplateException {
+
+    /**
+     * 限制项.
+     */
+    private final String limit;
+
+    /**
+     * 实际值.
+     */
+    private final double actual;
+
+    /**
+     * 上限.
+     */
+    private final double max;
+
+    public ExcelLimitExceededException(final String limit, final double actual, final double max) {
+        super("文件超出导入限制：" + limit + "为" + format(actual) + "，上限为" + format(max));
+        this.limit = limit;
+        this.actual = actual;
+        this.max = max;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+
+    public double getActual() {
+        return actual;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * 格式化数值，整数不带小数.
+     * @param value 数值
+     * @return 文本
+     */
+    private static String format(final double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.2f", value);
+    }
+}
@@ -0,0 +1,13 @@
+package com.penghaohuan.excel.exception;
+
+/**
+ * 导入回调异常.
+ * 逐行回调或断点回调抛出异常时导入停止，原异常作为cause抛出，与文件模板错误区分.
+ * @author penghaohuan
+ */
+public class ExcelListenerException extends RuntimeException {
+
+    public ExcelListenerException(final String msg, final Throwable cause) {
+        super(msg, cause);
+    }
+}
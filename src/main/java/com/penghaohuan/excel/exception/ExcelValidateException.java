@@ -1,5 +1,10 @@
 package com.penghaohuan.excel.exception;
 
+import com.penghaohuan.excel.model.ValidationError;
+
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Excel校验异常.
  * @author penghaohuan
@@ -7,14 +12,31 @@ package com.penghaohuan.excel.exception;
  */
 public class ExcelValidateException extends Exception {
 
+    /**
+     * 结构化的校验错误，只包含能定位到行、列与值的错误.
+     */
+    private final List<ValidationError> errors;
+
     public ExcelValidateException() {
+        this.errors = Collections.emptyList();
     }
 
     public ExcelValidateException(final String msg) {
         super(msg);
+        this.errors = Collections.emptyList();
+    }
+
+    public ExcelValidateException(final String msg, final List<ValidationError> errors) {
+        super(msg);
+        this.errors = Collections.unmodifiableList(errors);
     }
 
     public ExcelValidateException(final Throwable cause) {
         super(cause);
+        this.errors = Collections.emptyList();
+    }
+
+    public List<ValidationError> getErrors() {
+        return errors;
     }
 }
@@ -0,0 +1,24 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.model.ImportRow;
+
+import java.util.List;
+
+/**
+ * 批量校验.
+ * 导入时按{@link com.penghaohuan.excel.model.ImportOptions#setValidateChunkSize(int)}把创建好的实体分批交给校验器，
+ * 一批只调用一次，适用于需要查询数据库或远程字典的存在性校验，避免逐行查询.
+ * 校验器可能在多次导入间共享，实现类应是线程安全的.
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public interface BatchValidator<T> {
+
+    /**
+     * 校验一批数据.
+     * @param rows 实体与行号，按行号递增，仅在本次调用内有效
+     * @return 校验结果，与rows一一对应；null或空字符串表示校验通过，否则为异常信息，导入器会加上行号前缀
+     * @throws Exception 校验异常，该批所有行按校验错误处理
+     */
+    List<String> validate(List<ImportRow<T>> rows) throws Exception;
+}
@@ -0,0 +1,34 @@
+package com.penghaohuan.excel.handler;
+
+import java.text.DecimalFormat;
+
+/**
+ * 单元格样式格式缓存.
+ * 同一样式下标的单元格共享数值格式化器，避免逐单元格解析格式字符串；日期格式的判断由读取器缓存.
+ * 仅在单次导入内使用，非线程安全.
+ * @author penghaohuan
+ */
+final class CellStyleFormat {
+
+    /**
+     * 常规格式的数值格式.
+     */
+    private static final String GENERAL_NUMBER_PATTERN = "#.#########";
+
+    /**
+     * 数值格式化器.
+     */
+    private final DecimalFormat numberFormat;
+
+    CellStyleFormat(final String dataFormatString) {
+        this.numberFormat = new DecimalFormat();
+        // 单元格设置成常规
+        if ("General".equals(dataFormatString)) {
+            numberFormat.applyPattern(GENERAL_NUMBER_PATTERN);
+        }
+    }
+
+    DecimalFormat getNumberFormat() {
+        return numberFormat;
+    }
+}
@@ -0,0 +1,168 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.model.ColumnProfile;
+
+import java.util.Date;
+
+/**
+ * 导入列统计器.
+ * 使用基本类型累加空值数、非空数、最大长度与数值范围，用HyperLogLog（4096个寄存器，4KB）估算不同值的个数，
+ * 每个单元格只做一次哈希与常数次比较，不保存单元格的值.
+ * @author penghaohuan
+ */
+final class ColumnProfiler {
+
+    /**
+     * HyperLogLog寄存器下标的位数.
+     */
+    private static final int PRECISION = 12;
+
+    /**
+     * HyperLogLog寄存器数.
+     */
+    private static final int REGISTERS = 1 << PRECISION;
+
+    /**
+     * 导入属性.
+     */
+    private final ImportField field;
+
+    /**
+     * 值是否按数值统计范围（数值与日期）.
+     */
+    private final boolean numeric;
+
+    /**
+     * HyperLogLog寄存器.
+     */
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * 非空单元格数.
+     */
+    private long valueCount;
+
+    /**
+     * 空单元格数.
+     */
+    private long nullCount;
+
+    /**
+     * 单元格文本的最大长度.
+     */
+    private int maxLength;
+
+    /**
+     * 数值最小值.
+     */
+    private double minNumber = Double.POSITIVE_INFINITY;
+
+    /**
+     * 数值最大值.
+     */
+    private double maxNumber = Double.NEGATIVE_INFINITY;
+
+    /**
+     * 文本最小值.
+     */
+    private String minText;
+
+    /**
+     * 文本最大值.
+     */
+    private String maxText;
+
+    ColumnProfiler(final ImportField field) {
+        this.field = field;
+        this.numeric = Number.class.isAssignableFrom(field.getType()) || Date.class.isAssignableFrom(field.getType())
+                || field.getType().isPrimitive() && field.getType() != boolean.class && field.getType() != char.class;
+    }
+
+    /**
+     * 统计单元格文本.
+     * @param text 单元格文本，为空时计为空值
+     */
+    void addText(final String text) {
+        if (text == null || text.isEmpty()) {
+            nullCount++;
+            return;
+        }
+        valueCount++;
+        if (text.length() > maxLength) {
+            maxLength = text.length();
+        }
+        final long hash = ImportSnapshot.fingerprint(text);
+        final int index = (int) (hash >>> (64 - PRECISION));
+        final int rank = Long.numberOfLeadingZeros(hash << PRECISION | (1L << (PRECISION - 1))) + 1; // 哨兵位限制rank上限
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * 统计转换后的值的范围.
+     * @param value 转换后的值，为null时忽略
+     */
+    void addValue(final Object value) {
+        if (value == null) {
+            return;
+        }
+        if (numeric) {
+            final double number = value instanceof Date ? ((Date) value).getTime() : ((Number) value).doubleValue();
+            minNumber = Math.min(minNumber, number);
+            maxNumber = Math.max(maxNumber, number);
+            return;
+        }
+        final String text = value.toString();
+        if (minText == null || text.compareTo(minText) < 0) {
+            minText = text;
+        }
+        if (maxText == null || text.compareTo(maxText) > 0) {
+            maxText = text;
+        }
+    }
+
+    /**
+     * 生成统计信息.
+     * @return 统计信息
+     */
+    ColumnProfile toProfile() {
+        final ColumnProfile profile = new ColumnProfile();
+        profile.setField(field.getField().getName());
+        profile.setColumn(field.getDesc().name());
+        profile.setValueCount(valueCount);
+        profile.setNullCount(nullCount);
+        profile.setMaxLength(maxLength);
+        profile.setDistinctEstimate(estimateDistinct());
+        if (numeric && minNumber <= maxNumber) {
+            final boolean date = Date.class.isAssignableFrom(field.getType());
+            profile.setMin(date ? new Date((long) minNumber) : Double.valueOf(minNumber));
+            profile.setMax(date ? new Date((long) maxNumber) : Double.valueOf(maxNumber));
+        } else if (!numeric) {
+            profile.setMin(minText);
+            profile.setMax(maxText);
+        }
+        return profile;
+    }
+
+    /**
+     * HyperLogLog基数估算，基数较小时使用线性计数修正.
+     * @return 不同值个数的估算值
+     */
+    private long estimateDistinct() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        final double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(estimate);
+    }
+}
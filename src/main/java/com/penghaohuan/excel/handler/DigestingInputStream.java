@@ -0,0 +1,104 @@
+package com.penghaohuan.excel.handler;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 计算文件摘要的输入流.
+ * 读取的同时计算SHA-256；关闭时读完剩余内容但不关闭原始流（原始流由调用方关闭），
+ * 因此解析器提前关闭流时摘要仍覆盖整个文件.
+ * @author penghaohuan
+ */
+final class DigestingInputStream extends FilterInputStream {
+
+    /**
+     * 摘要.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * 是否已读到末尾.
+     */
+    private boolean finished;
+
+    DigestingInputStream(final InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (finished) {
+            return -1;
+        }
+        final int b = in.read();
+        if (b == -1) {
+            finished = true;
+        } else {
+            digest.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (finished) {
+            return -1;
+        }
+        final int n = in.read(b, off, len);
+        if (n == -1) {
+            finished = true;
+        } else {
+            digest.update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            final int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count == -1) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        final byte[] buffer = new byte[8192];
+        while (read(buffer, 0, buffer.length) != -1) {
+            continue;
+        }
+    }
+
+    /**
+     * 读完剩余内容并返回摘要.
+     * @return SHA-256摘要，十六进制小写
+     * @throws IOException 读取异常
+     */
+    String finish() throws IOException {
+        close();
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -2,11 +2,26 @@ package com.penghaohuan.excel.handler;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.penghaohuan.excel.annotation.ExportExcelDesc;
+import com.penghaohuan.excel.dictionary.Dictionaries;
+import com.penghaohuan.excel.dictionary.Dictionary;
+import com.penghaohuan.excel.mapper.GeneratedMappers;
+import com.penghaohuan.excel.mapper.RowWriter;
+import com.penghaohuan.excel.model.ExportSort;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.xssf.streaming.SXSSFCell;
 import org.apache.poi.xssf.streaming.SXSSFRow;
@@ -15,6 +30,18 @@ import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Excel 导出工具.
+ * 使用注解@ExportExcelDesc，将实体列表导出为xlsx文件.
+ *
+ * <p>导出器构造时即解析好导出属性，导出过程不修改导出器状态，同一实例可在多线程间共享.</p>
+ * <p>属性配置了dictionary时，按{@link Dictionaries}提供的字典将编码转换为名称后导出.</p>
+ * <p>数据需要分页查询时可使用{@link PageSupplier}流水线导出，查询与写入在两个线程中并行进行.</p>
+ * <p>需要排序且数据量超过内存时可使用{@link ExportSort}按导出属性外部归并排序后导出.</p>
+ * <p>属性配置了mergeSame时，纵向合并连续相同值的单元格，合并随写入逐行进行，不回读已写出的行.</p>
+ * @see ExportExcelDesc
+ * @param <T> 对应Excel行数据的数据类型
+ */
 public final class ExcelExporter<T> {
 
     /**
@@ -25,7 +52,22 @@ public final class ExcelExporter<T> {
     /**
      * 实体类型.
      */
-    private Class<T> clazz;
+    private final Class<T> clazz;
+
+    /**
+     * 导出属性列表.
+     */
+    private final List<ExportField> fields;
+
+    /**
+     * 表头名称，下标与导出属性一致，每个sheet共用.
+     */
+    private final String[] headers;
+
+    /**
+     * 导出属性所在的列，每个sheet共用.
+     */
+    private final Set<Integer> columns;
 
     /**
      * 构造.
@@ -33,6 +75,79 @@ public final class ExcelExporter<T> {
      */
     public ExcelExporter(final Class<T> clazz) {
         this.clazz = clazz;
+        this.fields = initFields(clazz);
+        this.headers = new String[fields.size()];
+        final Set<Integer> exportColumns = new HashSet<>();
+        for (ExportField field : fields) {
+            headers[field.getIndex()] = field.getDesc().name();
+            exportColumns.add(field.getIndex());
+        }
+        this.columns = Collections.unmodifiableSet(exportColumns);
+    }
+
+    /**
+     * 获取每个sheet中数据行数的上限.
+     * sheet的行数上限由文件格式决定（xls为65536行，xlsx为1048576行），需扣除一行表头.
+     * @param version 文件格式
+     * @param sheetSize 每个sheet中数据的行数
+     * @return 小于1或超过上限时返回上限，否则返回原值
+     */
+    static int limitSheetSize(final SpreadsheetVersion version, final int sheetSize) {
+        final int maxSize = version.getMaxRows() - 1;
+        return sheetSize < 1 || sheetSize > maxSize ? maxSize : sheetSize;
+    }
+
+    /**
+     * 解析实体中标注了导出注解的属性.
+     * 实体使用{@link com.penghaohuan.excel.processor.ExcelMapperProcessor}编译时，通过生成的{@link RowWriter}取值.
+     * @param clazz 实体类型
+     * @return 导出属性列表
+     */
+    @SuppressWarnings("unchecked")
+    static List<ExportField> initFields(final Class<?> clazz) {
+        final Field[] allFields = clazz.getDeclaredFields();
+        final RowWriter<Object> writer = (RowWriter<Object>) GeneratedMappers.findRowWriter(clazz);
+        final List<String> writerFields = writer == null ? Collections.<String>emptyList() : Arrays.asList(writer.fieldNames());
+        final List<ExportField> exportFields = new ArrayList<>(allFields.length);
+        for (Field field : allFields) {
+            if (field.isAnnotationPresent(ExportExcelDesc.class)) {
+                field.setAccessible(true);
+                final int writerIndex = writerFields.indexOf(field.getName());
+                exportFields.add(new ExportField(exportFields.size(), field, field.getAnnotation(ExportExcelDesc.class),
+                        writerIndex < 0 ? null : writer, writerIndex));
+            }
+        }
+        return Collections.unmodifiableList(exportFields);
+    }
+
+    /**
+     * 解析导出属性的字典.
+     * 每次导出开始时从{@link Dictionaries}的共享缓存中取一次，逐行转换时直接使用.
+     * @param fields 导出属性列表
+     * @return 字典，下标与导出属性一致，没有字典时为null
+     */
+    static Dictionary[] resolveDictionaries(final List<ExportField> fields) {
+        final Dictionary[] dictionaries = new Dictionary[fields.size()];
+        for (ExportField field : fields) {
+            if (StringUtils.isNotBlank(field.getDesc().dictionary())) {
+                dictionaries[field.getIndex()] = Dictionaries.get(field.getDesc().dictionary());
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * 按字典将属性值转换为名称.
+     * @param dictionary 字典，为null时不转换
+     * @param value 属性值
+     * @return 名称，编码不在字典中时返回原值
+     */
+    static Object translate(final Dictionary dictionary, final Object value) {
+        if (dictionary == null || value == null) {
+            return value;
+        }
+        final String label = dictionary.getLabel(value);
+        return label == null ? value : label;
     }
 
 
@@ -40,71 +155,247 @@ public final class ExcelExporter<T> {
      * 对list数据源将其里面的数据导入到excel表单.
      * @param list 实体列表
      * @param sheetName 工作表的名称
-     * @param sheetSize 每个sheet中数据的行数,此数值必须小于65536
+     * @param sheetSize 每个sheet中数据的行数,小于1或超过xlsx单个sheet的上限（1048575，不含表头）时按上限
      * @param output java输出流
      * @throws IOException 响应流输出异常
      */
     public void exportExcel(final List<T> list, final String sheetName, int sheetSize, final OutputStream output) throws IOException {
+        write(list.iterator(), sheetName, sheetSize, output);
+    }
 
-        final Field[] allFields = clazz.getDeclaredFields();
-        final List<Field> fields = new ArrayList<>(allFields.length);
-        for (Field field : allFields) {
-            if (field.isAnnotationPresent(ExportExcelDesc.class)) {
-                fields.add(field);
-            }
-        }
-
-        final SXSSFWorkbook workbook = new SXSSFWorkbook();
+    /**
+     * 流水线导出.
+     * 生产线程在一个专用的守护线程中运行，见{@link #exportExcel(PageSupplier, String, int, OutputStream, int, Executor)}.
+     * @param supplier 分页数据来源
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个sheet中数据的行数,小于1或超过xlsx单个sheet的上限（1048575，不含表头）时按上限
+     * @param output java输出流
+     * @param queuePages 队列中最多缓存的页数
+     * @throws IOException 响应流输出异常、查询异常或导出被中断
+     */
+    public void exportExcel(final PageSupplier<T> supplier, final String sheetName, final int sheetSize, final OutputStream output,
+                            final int queuePages) throws IOException {
+        exportExcel(supplier, sheetName, sheetSize, output, queuePages, command -> {
+            final Thread thread = new Thread(command, "excel-export-producer");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
 
-        // excel2003中每个sheet中最多有65536行,为避免产生错误所以加这个逻辑.
-        if (sheetSize > 65536 || sheetSize < 1) {
-            sheetSize = 65536;
+    /**
+     * 流水线导出.
+     *
+     * <p>
+     *     生产线程从supplier逐页取数放入有界队列，当前线程同时转换并写入工作簿，查询与序列化并行进行.
+     *     队列满时生产线程阻塞；查询抛出的异常在当前线程以IOException抛出；
+     *     写入异常或当前线程被中断时取消查询，中断生产线程.
+     * </p>
+     * <p>
+     *     执行器必须在其他线程中运行生产线程，不支持在当前线程直接运行的执行器（如CallerRunsPolicy），
+     *     执行器拒绝、在当前线程运行或60秒内未启动生产线程时以IOException结束.
+     * </p>
+     * @param supplier 分页数据来源
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个sheet中数据的行数,小于1或超过xlsx单个sheet的上限（1048575，不含表头）时按上限
+     * @param output java输出流
+     * @param queuePages 队列中最多缓存的页数
+     * @param producerExecutor 运行生产线程的执行器
+     * @throws IOException 响应流输出异常、查询异常、生产线程无法启动或导出被中断
+     */
+    public void exportExcel(final PageSupplier<T> supplier, final String sheetName, final int sheetSize, final OutputStream output,
+                            final int queuePages, final Executor producerExecutor) throws IOException {
+        final ExportPipeline<T> pipeline = new ExportPipeline<>(supplier, queuePages);
+        try {
+            producerExecutor.execute(pipeline);
+        } catch (final RejectedExecutionException e) {
+            throw new IOException("Export producer was rejected by the executor", e);
         }
-        final double sheetNo = Math.ceil((double) Math.max(list.size(), 1) / sheetSize); // 取出一共有多少个sheet.
-        for (int index = 0; index < sheetNo; index++) {
-            final SXSSFSheet sheet = workbook.createSheet();
-            workbook.setSheetName(index, sheetName + index);
-
-            final SXSSFRow headRow = sheet.createRow(0);
-            // 写入各个字段的列头名称
-            for (int col = 0; col < fields.size(); col++) {
-                final Field field = fields.get(col);
-                final ExportExcelDesc attr = field.getAnnotation(ExportExcelDesc.class);
-                final SXSSFCell cell = headRow.createCell(col);
-                cell.setCellType(CellType.STRING);
-                cell.setCellValue(attr.name());
-            }
+        try {
+            write(pipeline, sheetName, sheetSize, output);
+        } catch (final ExportPipeline.PipelineException e) {
+            throw e.toIOException();
+        } finally {
+            pipeline.cancel();
+        }
+    }
 
-            final int startNo = index * sheetSize;
-            final int endNo = Math.min(startNo + sheetSize, list.size());
-            // 写入各条记录,每条记录对应excel表中的一行
-            for (int i = startNo; i < endNo; i++) {
-                final SXSSFRow row = sheet.createRow(i + 1 - startNo);
-                final T vo = list.get(i);
-                for (int j = 0; j < fields.size(); j++) {
-                    final Field field = fields.get(j);
-                    field.setAccessible(true);
+    /**
+     * 排序导出.
+     *
+     * <p>
+     *     按{@link ExportSort}指定的导出属性排序后导出，数据来源无需有序，可以是多个分片依次拼接的迭代器.
+     *     每行转换为单元格文本后与排序键一起缓存，超过内存上限时排序写入临时文件，
+     *     全部读完后多路归并并直接写入工作簿，不在内存中保留全部实体.
+     * </p>
+     * @param rows 实体
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个sheet中数据的行数,小于1或超过xlsx单个sheet的上限（1048575，不含表头）时按上限
+     * @param output java输出流
+     * @param sort 排序选项
+     * @throws IOException 响应流输出异常或读写临时文件异常
+     * @throws IllegalArgumentException 排序的属性不是导出属性
+     */
+    public void exportExcel(final Iterator<T> rows, final String sheetName, final int sheetSize, final OutputStream output,
+                            final ExportSort sort) throws IOException {
+        final int[] keyIndexes = new int[sort.getFields().size()];
+        final boolean[] ascending = new boolean[keyIndexes.length];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            final String name = sort.getFields().get(i);
+            keyIndexes[i] = fields.stream().filter(field -> field.getField().getName().equals(name))
+                    .mapToInt(ExportField::getIndex).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Not an export field: " + name));
+            ascending[i] = sort.getAscending().get(i);
+        }
+        final Dictionary[] dictionaries = resolveDictionaries(fields);
+        try (ExternalSorter sorter = new ExternalSorter(ascending, sort.getMaxBytesInMemory())) {
+            while (rows.hasNext()) {
+                final T vo = rows.next();
+                final Object[] keys = new Object[keyIndexes.length];
+                for (int i = 0; i < keyIndexes.length; i++) {
                     try {
-                        final SXSSFCell cell = row.createCell(j);
-                        cell.setCellType(CellType.STRING);
-                        final Object fieldVal = field.get(vo);
-                        cell.setCellValue(fieldVal == null ? "" : String.valueOf(fieldVal));
+                        keys[i] = fields.get(keyIndexes[i]).getValue(vo);
                     } catch (final IllegalAccessException | IllegalArgumentException e) {
                         LOGGER.error(e.getMessage(), e);
                     }
                 }
+                sorter.add(keys, toCells(vo, dictionaries, new String[fields.size()]));
+            }
+            writeCells(sorter.sorted(), sheetName, sheetSize, output);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 逐行写入excel表单.
+     * @param rows 实体
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个sheet中数据的行数,小于1或超过xlsx单个sheet的上限（1048575，不含表头）时按上限
+     * @param output java输出流
+     * @throws IOException 响应流输出异常
+     */
+    private void write(final Iterator<T> rows, final String sheetName, final int sheetSize, final OutputStream output) throws IOException {
+        final Dictionary[] dictionaries = resolveDictionaries(fields);
+        final String[] cells = new String[fields.size()];
+        writeCells(new Iterator<String[]>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
             }
 
-            // 必须在单元格设值以后进行
-            // 设置为根据内容自动调整列宽
-            for (int k = 0; k < fields .size(); k++) {
-                sheet.autoSizeColumn(k);
+            @Override
+            public String[] next() {
+                return toCells(rows.next(), dictionaries, cells);
+            }
+        }, sheetName, sheetSize, output);
+    }
+
+    /**
+     * 将实体转换为单元格文本.
+     * @param vo 实体
+     * @param dictionaries 字典，下标与导出属性一致
+     * @param cells 单元格文本，取值失败的属性为null
+     * @return 单元格文本
+     */
+    private String[] toCells(final T vo, final Dictionary[] dictionaries, final String[] cells) {
+        for (int j = 0; j < fields.size(); j++) {
+            try {
+                final Object fieldVal = translate(dictionaries[j], fields.get(j).getValue(vo));
+                cells[j] = fieldVal == null ? "" : String.valueOf(fieldVal);
+            } catch (final IllegalAccessException | IllegalArgumentException e) {
+                cells[j] = null;
+                LOGGER.error(e.getMessage(), e);
             }
         }
-        output.flush();
-        workbook.write(output);
-        output.close();
+        return cells;
+    }
 
+    /**
+     * 逐行写入单元格文本.
+     * 写满sheetSize行后创建下一个sheet，没有数据时也输出一个只有表头的sheet.
+     * @param rows 单元格文本，取值失败的属性为null
+     * @param sheetName 工作表的名称
+     * @param sheetSize 每个sheet中数据的行数,小于1或超过xlsx单个sheet的上限（1048575，不含表头）时按上限
+     * @param output java输出流
+     * @throws IOException 响应流输出异常
+     */
+    private void writeCells(final Iterator<String[]> rows, final String sheetName, final int sheetSize, final OutputStream output)
+            throws IOException {
+        final SXSSFWorkbook workbook = new SXSSFWorkbook();
+        // 输出为xlsx，按xlsx的行数上限分sheet
+        final int maxRows = limitSheetSize(SpreadsheetVersion.EXCEL2007, sheetSize);
+        try {
+            final VerticalMerger merger = VerticalMerger.of(fields, Collections.<String>emptyList(), 0);
+            int sheetIndex = 0;
+            SXSSFSheet sheet = createSheet(workbook, sheetName, sheetIndex++);
+            int rowNum = 1;
+            // 写入各条记录,每条记录对应excel表中的一行
+            while (rows.hasNext()) {
+                if (rowNum > maxRows) {
+                    finishSheet(sheet, merger);
+                    sheet = createSheet(workbook, sheetName, sheetIndex++);
+                    rowNum = 1;
+                }
+                final String[] cells = rows.next();
+                final SXSSFRow row = sheet.createRow(rowNum++);
+                for (int j = 0; j < cells.length; j++) {
+                    final SXSSFCell cell = row.createCell(j, CellType.STRING);
+                    if (cells[j] != null) {
+                        cell.setCellValue(cells[j]);
+                    }
+                }
+                if (merger != null) {
+                    merger.addRow(row.getRowNum(), cells);
+                }
+            }
+            finishSheet(sheet, merger);
+            output.flush();
+            workbook.write(output);
+            output.close();
+        } finally {
+            workbook.dispose(); // 删除SXSSF写出行时使用的临时文件
+        }
+    }
+
+    /**
+     * 创建sheet并写入表头.
+     * @param workbook 工作簿
+     * @param sheetName 工作表的名称
+     * @param index sheet序号
+     * @return sheet
+     */
+    private SXSSFSheet createSheet(final SXSSFWorkbook workbook, final String sheetName, final int index) {
+        final SXSSFSheet sheet = workbook.createSheet();
+        workbook.setSheetName(index, sheetName + index);
+        // SXSSF只能对跟踪的列自动调整列宽，跟踪需要在写入数据前开启；只跟踪导出属性所在的列
+        sheet.trackColumnsForAutoSizing(columns);
+
+        final SXSSFRow headRow = sheet.createRow(0);
+        // 写入各个字段的列头名称
+        for (int col = 0; col < headers.length; col++) {
+            headRow.createCell(col, CellType.STRING).setCellValue(headers[col]);
+        }
+        return sheet;
+    }
+
+    /**
+     * sheet写完时设置为根据内容自动调整列宽，并结束合并.
+     * 必须在单元格设值以后进行.
+     * 有合并列时先写出内存中剩余的行再追加合并区域，避免列宽跟踪对每行解析所有合并区域.
+     * @param sheet sheet
+     * @param merger 合并器，没有合并列时为null
+     * @throws IOException 写出临时文件异常
+     */
+    private void finishSheet(final SXSSFSheet sheet, final VerticalMerger merger) throws IOException {
+        if (merger != null) {
+            sheet.flushRows();
+        }
+        for (int k = 0; k < fields.size(); k++) {
+            sheet.autoSizeColumn(k);
+        }
+        if (merger != null) {
+            merger.finish(sheet);
+        }
     }
 
 }
@@ -1,36 +1,63 @@
 package com.penghaohuan.excel.handler;
 
 import com.penghaohuan.excel.annotation.ImportExcelDesc;
+import com.penghaohuan.excel.annotation.StatelessValidator;
+import com.penghaohuan.excel.dictionary.Dictionaries;
+import com.penghaohuan.excel.dictionary.Dictionary;
+import com.penghaohuan.excel.exception.ExcelListenerException;
 import com.penghaohuan.excel.exception.ExcelTemplateException;
 import com.penghaohuan.excel.exception.ExcelValidateException;
-import com.penghaohuan.excel.model.CellPosition;
+import com.penghaohuan.excel.mapper.GeneratedMappers;
+import com.penghaohuan.excel.mapper.InstantiationStrategies;
+import com.penghaohuan.excel.mapper.InstantiationStrategy;
+import com.penghaohuan.excel.mapper.RowMapper;
+import com.penghaohuan.excel.model.DuplicateKey;
+import com.penghaohuan.excel.model.DuplicatePolicy;
+import com.penghaohuan.excel.model.ImportCheckpoint;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import com.penghaohuan.excel.model.ImportRow;
+import com.penghaohuan.excel.model.ValidationError;
+import com.penghaohuan.excel.reader.RowValues;
+import com.penghaohuan.excel.reader.SheetReader;
+import com.penghaohuan.excel.reader.SheetReaders;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Excel 导入工具.
@@ -40,6 +67,12 @@ import java.util.regex.Pattern;
  * <p>支持合并的单元格识别</p>
  *
  * <p>
+ *     单元格通过{@link SheetReader}逐行读取：默认完整加载工作簿；
+ *     {@link ImportOptions#setStreaming(boolean)}开启后xlsx使用SAX事件解析、xls使用记录事件解析，
+ *     两种方式共用同一套表头解析、类型转换与校验流程，流式读取不解析数据区的合并单元格.
+ * </p>
+ *
+ * <p>
  *     支持数据校验：
  *     1. 支持是否为空校验
  *     2. 支持正则表达式校验
@@ -51,8 +84,40 @@ import java.util.regex.Pattern;
  *     2. 对于Date类型，只支持Excel中的单元格格式为日期格式，会进行日期格式校验
  * </p>
  *
+ * 所有映射列都为空的行（含只带格式的行）在创建实体前跳过，
+ * 可通过{@link ImportOptions#setMaxConsecutiveBlankRows(int)}在连续空行达到上限时停止读取.
+ *
+ * 可通过{@link ImportOptions#setDuplicatePolicy(DuplicatePolicy)}检查关键字段（keyAttr）在文件内是否重复，
+ * 重复时按策略报错、保留第一行或保留最后一行，两次出现的行号记录在{@link ImportResult#getDuplicates()}中.
+ *
+ * 大文件可通过{@link ImportListener}逐行回调导入，定期记录断点，失败后从断点的下一行续传.
+ *
+ * 每天重复导入的主数据可通过{@link ImportOptions#setPreviousSnapshot(ImportSnapshot)}增量导入：
+ * 按关键字段比较每行映射列原始值的64位哈希，只转换、校验、返回新增或变化的行，并报告被删除的关键字段.
+ *
+ * 需要查询数据库等外部数据的校验可通过{@link ImportOptions#setBatchValidator(BatchValidator)}按批进行，
+ * 每批行数由{@link ImportOptions#setValidateChunkSize(int)}指定.
+ *
+ * 开启{@link ImportOptions#setProfileColumns(boolean)}时，在类型转换的同时统计各列的空值数、取值范围、
+ * 不同值个数（HyperLogLog估算）与最大长度，结果见{@link ImportResult#getColumnProfiles()}；增量导入时只统计新增或变化的行.
+ *
+ * 属性配置了dictionary时，单元格中的名称按{@link Dictionaries}提供的字典转换为编码，
+ * 不在字典中的值记录为{@link ValidationError}，随校验异常一起返回.
+ *
  * Excel校验会全内容校验完毕后再返回异常信息，
  * 每一条异常信息以换行符(\r\n)连接，作为Exception中的message返回
+ *
+ * <p>
+ *     导入器构造时即解析好实体的注解与校验方法，导入过程中的状态保存在{@link ImportContext}中，
+ *     因此同一个导入器实例可在多线程间共享（如作为Spring单例）。
+ *     标注了{@link StatelessValidator}的校验类在所有导入间共享同一实例，
+ *     其余校验类每次导入创建一个实例.
+ * </p>
+ * <p>
+ *     实体使用{@link com.penghaohuan.excel.processor.ExcelMapperProcessor}编译时，
+ *     直接调用生成的{@link RowMapper}创建实体、写入属性与调用校验方法；
+ *     否则按{@link InstantiationStrategies}选择构造器、静态工厂、setter或构建器，每行只创建一次实体.
+ * </p>
  * @see ImportExcelDesc
  * @param <T> 对应Excel行数据的数据类型
  */
@@ -68,32 +133,112 @@ public final class ExcelImporter<T> {
      */
     public static final String CORRECT_SYMBOL = "%c";
 
+    /**
+     * 无状态校验类的共享实例.
+     */
+    private static final ConcurrentMap<Class<?>, Object> SHARED_VALIDATORS = new ConcurrentHashMap<>();
+
+    /**
+     * 日期格式化器缓存，key为日期格式.
+     */
+    private static final ConcurrentMap<String, DateTimeFormatter> DATE_FORMATTERS = new ConcurrentHashMap<>();
+
+    /**
+     * 表头中日期单元格的格式.
+     */
+    private static final String HEADER_DATE_FORMAT = "yyyy-MM-dd";
+
     /**
      * 实体类型.
      */
-    private Class<T> clazz;
+    private final Class<T> clazz;
+
+    /**
+     * 实体类注解.
+     */
+    private final ImportExcelDesc classDesc;
+
+    /**
+     * 导入属性列表.
+     */
+    private final List<ImportField> fields;
+
+    /**
+     * 行校验类.
+     */
+    private final Class<?> rowValidatorClass;
 
     /**
-     * 单元格值位置映射.
+     * 行校验方法，未配置或找不到时为null.
      */
-    private Map<Integer, Map<Integer, CellPosition>> cellValuePositionMap;
+    private final Method rowValidateMethod;
 
     /**
-     * 属性名-校验类映射.
+     * 编译期生成的行映射器，未生成时为null，使用反射.
      */
-    private Map<String, Object> validatorMap;
+    private final RowMapper<T> rowMapper;
 
     /**
-     * 类校验Map-key.
+     * 导入属性下标对应的行映射器属性下标.
      */
-    private static final String CLASS_VALIDATOR_KEY = "clazz";
+    private final int[] mapperIndexes;
+
+    /**
+     * 实体创建策略.
+     */
+    private final InstantiationStrategy<T> instantiation;
+
+    /**
+     * 关键字段的属性下标.
+     */
+    private final int[] keyIndexes;
+
+    /**
+     * 关键字段的列名，多个时以逗号连接.
+     */
+    private final String keyColumns;
 
     /**
      * 构造.
+     * 实体创建策略见{@link InstantiationStrategies}，有编译期生成的行映射器时使用生成的映射器.
      * @param clazz 实体类型
      */
     public ExcelImporter(final Class<T> clazz) {
+        this(clazz, null);
+    }
+
+    /**
+     * 构造.
+     * @param clazz 实体类型
+     * @param instantiation 实体创建策略，为null时自动选择
+     */
+    public ExcelImporter(final Class<T> clazz, final InstantiationStrategy<T> instantiation) {
         this.clazz = clazz;
+        this.classDesc = clazz.getAnnotation(ImportExcelDesc.class);
+        this.fields = initFields();
+        if (classDesc != null && StringUtils.isNotBlank(classDesc.function())) {
+            this.rowValidatorClass = getFieldValidateClass(clazz, null, classDesc);
+            this.rowValidateMethod = getValidateMethod(rowValidatorClass, classDesc.function(), clazz);
+        } else {
+            this.rowValidatorClass = null;
+            this.rowValidateMethod = null;
+        }
+        final RowMapper<T> mapper = GeneratedMappers.findRowMapper(clazz);
+        this.mapperIndexes = mapper == null ? null : resolveMapperIndexes(mapper);
+        this.rowMapper = mapperIndexes == null ? null : mapper;
+        if (instantiation != null) {
+            this.instantiation = instantiation;
+        } else if (rowMapper != null) {
+            this.instantiation = InstantiationStrategies.ofRowMapper(rowMapper, mapperIndexes);
+        } else {
+            final List<Field> importFields = new ArrayList<>(fields.size());
+            for (ImportField importField : fields) {
+                importFields.add(importField.getField());
+            }
+            this.instantiation = InstantiationStrategies.forClass(clazz, importFields);
+        }
+        this.keyIndexes = fields.stream().filter(f -> f.getDesc().keyAttr()).mapToInt(ImportField::getIndex).toArray();
+        this.keyColumns = fields.stream().filter(f -> f.getDesc().keyAttr()).map(f -> f.getDesc().name()).collect(Collectors.joining(","));
     }
 
     /**
@@ -107,234 +252,791 @@ public final class ExcelImporter<T> {
      * @throws ExcelTemplateException Excel模板异常
      */
     public List<T> importExcel(InputStream fis, Integer headRowNumbers) throws ExcelValidateException, ExcelTemplateException {
-        final List<T> list = new ArrayList<>();
-        try {
-            final Sheet sheet = getSheet(fis);
-            if (sheet == null) {
-                return list;
-            }
-            initCellPosition(sheet);
-            final int rows = sheet.getLastRowNum(); // 得到数据的行数
-
-            if (rows > 0) {
-                final Map<Integer, Field> fieldsMap = buildFieldOrder(sheet, headRowNumbers); // 从最后一行表头解析列名
-                initValidator();
-                final List<String> validateMassages = new LinkedList<>();
-                final ImportExcelDesc classDesc = clazz.getAnnotation(ImportExcelDesc.class);
-                for (int rowNum = headRowNumbers; rowNum <= rows; rowNum++) {
-                    T entity = null;
-                    boolean keyAttrEmpty = false;
-
-                    for (Map.Entry<Integer, Field> entry : fieldsMap.entrySet()) {
-                        final Integer column = entry.getKey();
-                        final Field field = entry.getValue();
-
-                        final Cell c = getCell(sheet, rowNum, column);
-                        entity = entity == null ? clazz.newInstance() : entity;
-                        final ImportExcelDesc fieldDesc = field.getAnnotation(ImportExcelDesc.class);
-                        final Class<?> fieldType = field.getType();
-                        final String exceptionMsg = "第" + (rowNum + 1) + "行【" + fieldDesc.name() + "】列";
-
-                        // 日期格式校验
-                        if (Date.class == fieldType && !validateDateCell(c)) {
-                            validateMassages.add(exceptionMsg + "日期格式错误");
-                            continue;
-                        }
-                        final String cellValue = getCellValue(c, fieldDesc.dateFormat());
-                        final String validateData = validateData(cellValue, exceptionMsg, field, fieldDesc, classDesc);
-
-                        if (validateData.contains(CORRECT_SYMBOL)) {
-                            final Object valueFormat = typeFormat(fieldType, validateData.replace(CORRECT_SYMBOL, ""), fieldDesc.dateFormat());
-                            field.setAccessible(true);
-                            field.set(entity, valueFormat);
-                        } else {
-                            validateMassages.add(validateData);
-                        }
-
-                        if (fieldDesc.keyAttr()) {
-                            final Object value = field.get(entity);
-                            if (value == null || StringUtils.isEmpty(String.valueOf(value))) {
-                                LOGGER.error("Key field " + field.getName() + " is empty, row num: " + rowNum);
-                                keyAttrEmpty = true;
-                                break;
-                            }
-                        }
-                    }
+        return importExcel(fis, headRowNumbers, new ImportOptions());
+    }
+
+    /**
+     * 导入excel.
+     *
+     * 读取第一个sheet.
+     * @param fis   文件流 如：new FileInputStream(new File("D:\\test.xlsx"))
+     * @param headRowNumbers 表格头行数
+     * @param options 导入选项
+     * @return T类型的实体列表
+     * @throws ExcelValidateException Excel校验异常
+     * @throws ExcelTemplateException Excel模板异常
+     */
+    public List<T> importExcel(InputStream fis, Integer headRowNumbers, ImportOptions options) throws ExcelValidateException, ExcelTemplateException {
+        return importExcel(fis, headRowNumbers, options, Integer.MAX_VALUE, null).getData();
+    }
+
+    /**
+     * 导入excel，同时返回数据的实际范围.
+     *
+     * 读取第一个sheet.
+     * @param fis   文件流
+     * @param headRowNumbers 表格头行数
+     * @param options 导入选项
+     * @return 导入结果
+     * @throws ExcelValidateException Excel校验异常
+     * @throws ExcelTemplateException Excel模板异常
+     */
+    public ImportResult<T> importExcelWithResult(InputStream fis, Integer headRowNumbers, ImportOptions options) throws ExcelValidateException, ExcelTemplateException {
+        return importExcel(fis, headRowNumbers, options, Integer.MAX_VALUE, null);
+    }
 
-                    if (!keyAttrEmpty && entity != null) {
-                        if (classDesc != null && StringUtils.isNotBlank(classDesc.function())) { // 行数据校验
-                            final String validateResult = validateRow(entity, "第" + (rowNum + 1) + "行", classDesc);
-                            if (!validateResult.contains(CORRECT_SYMBOL)) {
-                                validateMassages.add(validateResult);
-                            }
-                        }
+    /**
+     * 逐行回调导入excel.
+     *
+     * 读取第一个sheet，校验通过的实体逐行交给回调，不在内存中保留，返回结果中的数据为空列表.
+     * 每提交{@link ImportOptions#setCheckpointInterval(int)}行以及导入结束时回调断点（最后提交的行号与文件摘要），
+     * 失败后可通过{@link ImportOptions#setResumeFrom(int)}从断点的下一行继续，
+     * 断点及之前的行在读取器中直接跳过，不解析、不转换、不校验，也不参与关键字段重复检查.
+     * 回调导入不支持{@link DuplicatePolicy#KEEP_LAST}.
+     * @param fis   文件流
+     * @param headRowNumbers 表格头行数
+     * @param options 导入选项
+     * @param listener 逐行回调
+     * @return 导入结果
+     * @throws ExcelValidateException Excel校验异常，校验失败的行不交给回调
+     * @throws ExcelTemplateException Excel模板异常，或文件与续传的断点摘要不一致
+     * @throws ExcelListenerException 回调抛出异常
+     */
+    public ImportResult<T> importExcel(InputStream fis, Integer headRowNumbers, ImportOptions options, ImportListener<T> listener)
+            throws ExcelValidateException, ExcelTemplateException {
+        if (options.getDuplicatePolicy() == DuplicatePolicy.KEEP_LAST) {
+            throw new IllegalArgumentException("KEEP_LAST is not supported when rows are delivered to a listener.");
+        }
+        return importExcel(fis, headRowNumbers, options, Integer.MAX_VALUE, listener);
+    }
 
-                        list.add(entity);
-                    }
+    /**
+     * 预览excel.
+     *
+     * 流式读取第一个sheet，读满maxRows行数据后立即停止解析并关闭文件，不读取其余行.
+     * 适用于上传预览，耗时与文件大小基本无关.
+     * @param fis   文件流
+     * @param headRowNumbers 表格头行数
+     * @param maxRows 最多读取的数据行数
+     * @return T类型的实体列表
+     * @throws ExcelValidateException 已读取行的Excel校验异常
+     * @throws ExcelTemplateException Excel模板异常
+     */
+    public List<T> preview(InputStream fis, Integer headRowNumbers, int maxRows) throws ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(true);
+        return importExcel(fis, headRowNumbers, options, maxRows, null).getData();
+    }
+
+    /**
+     * 探测表头.
+     *
+     * 流式读取第一个sheet的表头行，校验文件中是否包含实体标注的列，读完表头即停止解析.
+     * 适用于模板校验.
+     * @param fis   文件流
+     * @param headRowNumbers 表格头行数
+     * @return 属性名与列索引（从0开始）的对应关系，按属性声明顺序排列；文件无法读取时返回空map
+     * @throws ExcelTemplateException Excel模板异常，如缺少列
+     */
+    public Map<String, Integer> probeHeader(InputStream fis, Integer headRowNumbers) throws ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(true);
+        final Map<String, Integer> columns = new LinkedHashMap<>();
+        try (SheetReader reader = openReader(fis, options)) {
+            if (reader == null) {
+                return columns;
+            }
+            final ImportContext context = new ImportContext(headRowNumbers, fields.size());
+            reader.read(row -> {
+                if (row.getRowNum() >= headRowNumbers) {
+                    return false;
                 }
+                context.setHeaderRow(row.getRowNum(), readHeaderRow(context, row));
+                return row.getRowNum() < headRowNumbers - 1;
+            });
+            final Map<Integer, ImportField> fieldsMap = buildFieldOrder(context.getHeaderRows(), reader.getMergedRegions());
+            final Map<ImportField, Integer> fieldColumns = new HashMap<>();
+            for (Map.Entry<Integer, ImportField> entry : fieldsMap.entrySet()) {
+                fieldColumns.put(entry.getValue(), entry.getKey());
+            }
+            for (ImportField importField : fields) {
+                if (fieldColumns.containsKey(importField)) {
+                    columns.put(importField.getField().getName(), fieldColumns.get(importField));
+                }
+            }
+        } catch (final ExcelTemplateException e) {
+            throw e;
+        } catch (final Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new ExcelTemplateException("文件模板错误");
+        }
+        return columns;
+    }
 
-                if (validateMassages.size() > 0) {
-                    final StringBuilder throwExceptionMsg = new StringBuilder();
-                    for (final String msg : validateMassages) {
-                        throwExceptionMsg.append(msg).append("\r\n");
-                    }
-                    throw new ExcelValidateException("\r\n" + throwExceptionMsg.toString());
+    /**
+     * 导入excel.
+     * @param fis   文件流
+     * @param headRowNumbers 表格头行数
+     * @param options 导入选项
+     * @param maxRows 最多读取的数据行数
+     * @param listener 逐行回调，为null时实体保存在结果列表中
+     * @return 导入结果
+     * @throws ExcelValidateException Excel校验异常
+     * @throws ExcelTemplateException Excel模板异常
+     */
+    private ImportResult<T> importExcel(final InputStream fis, final Integer headRowNumbers, final ImportOptions options, final int maxRows,
+                                        final ImportListener<T> listener) throws ExcelValidateException, ExcelTemplateException {
+        final ImportResult<T> result = new ImportResult<>();
+        final List<T> list = new ArrayList<>();
+        result.setData(list);
+        result.setStreaming(options.isStreaming());
+        if (maxRows <= 0) {
+            return result;
+        }
+        if (options.getPreviousSnapshot() != null && (keyIndexes.length == 0 || options.getResumeFrom() > 0)) {
+            throw new IllegalArgumentException("Delta import requires keyAttr fields and does not support resuming.");
+        }
+        final DigestingInputStream digestInput = listener != null || options.getResumeDigest() != null ? new DigestingInputStream(fis) : null;
+        try (SheetReader reader = openReader(digestInput == null ? fis : digestInput, options);
+             ImportContext context = new ImportContext(headRowNumbers, fields.size())) {
+            if (reader == null) {
+                return result;
+            }
+            if (digestInput != null) {
+                final String fileDigest = digestInput.finish();
+                if (options.getResumeDigest() != null && !options.getResumeDigest().equalsIgnoreCase(fileDigest)) {
+                    throw new ExcelTemplateException("文件与导入断点不一致");
+                }
+                context.setCheckpoint(fileDigest, options.getCheckpointInterval());
+            }
+            if (options.getBatchValidator() != null) {
+                context.setBatchValidator(options.getBatchValidator(), options.getValidateChunkSize());
+            }
+            if (options.getResumeFrom() > headRowNumbers) {
+                reader.skipRows(headRowNumbers, options.getResumeFrom()); // 断点为从1开始的行号，即下一行从0开始的行号
+                context.setFirstDataRowNum(options.getResumeFrom());
+            }
+            context.setEndRowNum((int) Math.min((long) headRowNumbers + maxRows, Integer.MAX_VALUE));
+            context.setMaxConsecutiveBlankRows(options.getMaxConsecutiveBlankRows());
+            if (options.getDuplicatePolicy() != DuplicatePolicy.ALLOW && keyIndexes.length > 0) {
+                context.checkDuplicates(options.getDuplicatePolicy(), options.getMaxKeysInMemory());
+            }
+            if (options.getPreviousSnapshot() != null) {
+                context.setDelta(options.getPreviousSnapshot());
+            }
+            if (options.isProfileColumns()) {
+                context.profileColumns(fields);
+            }
+            initValidator(context);
+            initDictionaries(context);
+            reader.read(row -> handleRow(context, reader, row, list, listener));
+            if (context.getFieldsMap() == null) {
+                initFieldsMap(context, reader); // 没有数据行时同样校验表头
+            }
+            flushBatch(context, listener);
+            if (listener != null && context.hasRowsSinceCheckpoint()) {
+                checkpoint(context, listener);
+            }
+            if (context.getDuplicatePolicy() == DuplicatePolicy.KEEP_LAST && !context.getDuplicates().isEmpty()) {
+                list.removeIf(Objects::isNull); // 被后续重复行替代的实体
+            }
+            result.setLastDataRow(context.getLastDataRowNum() + 1);
+            result.setDataRowCount(context.getDataRowCount());
+            result.setBlankRowCount(context.getBlankRowCount());
+            result.setStoppedOnBlankRows(context.isStoppedOnBlankRows());
+            result.setDuplicates(context.getDuplicates());
+            if (context.isDelta()) {
+                result.setSnapshot(context.getSnapshot());
+                result.setInsertedRowCount(context.getInsertedRowCount());
+                result.setUpdatedRowCount(context.getUpdatedRowCount());
+                result.setUnchangedRowCount(context.getUnchangedRowCount());
+                result.setDeletedKeys(context.getDeletedKeys());
+            }
+            result.setColumnProfiles(context.getColumnProfiles());
+
+            final List<String> validateMassages = context.getValidateMessages();
+            if (validateMassages.size() > 0) {
+                final StringBuilder throwExceptionMsg = new StringBuilder();
+                for (final String msg : validateMassages) {
+                    throwExceptionMsg.append(msg).append("\r\n");
                 }
+                throw new ExcelValidateException("\r\n" + throwExceptionMsg.toString(), context.getValidationErrors());
             }
-        } catch (final ExcelValidateException | ExcelTemplateException e) {
+        } catch (final ExcelValidateException | ExcelTemplateException | ExcelListenerException e) {
             throw e;
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
             throw new ExcelTemplateException("文件模板错误");
         }
-        return list;
+        return result;
     }
 
+    /**
+     * 回调断点.
+     * @param context 导入上下文
+     * @param listener 逐行回调
+     */
+    private void checkpoint(final ImportContext context, final ImportListener<T> listener) {
+        final ImportCheckpoint checkpoint = context.checkpoint();
+        try {
+            listener.onCheckpoint(checkpoint);
+        } catch (final Exception e) {
+            throw new ExcelListenerException("记录断点失败，行号：" + checkpoint.getLastRow(), e);
+        }
+    }
 
     /**
-     * 生成sheet.
-     *
-     * 读取第一个sheet
-     * @param fis 输入流
-     * @return sheet
+     * 处理读取到的一行.
+     * 表头行暂存，读到第一行数据时构建属性与列的对应关系（没有数据行时在读取结束后构建），并将映射到的列作为投影下推到读取器；
+     * 数据行之间缺失的行与所有映射列都为空的行按空行跳过，不创建实体.
+     * @param context 导入上下文
+     * @param reader Sheet读取器
+     * @param row 行数据
+     * @param list 实体列表
+     * @param listener 逐行回调，为null时实体保存在实体列表中
+     * @return 是否继续读取，达到读取行数上限或连续空行上限时返回false
+     * @throws Exception 处理异常
+     */
+    private boolean handleRow(final ImportContext context, final SheetReader reader, final RowValues row, final List<T> list,
+                              final ImportListener<T> listener) throws Exception {
+        final int headRowNumbers = context.getHeadRowNumbers();
+        if (row.getRowNum() < headRowNumbers) {
+            context.setHeaderRow(row.getRowNum(), readHeaderRow(context, row));
+            return true;
+        }
+        if (context.getFieldsMap() == null) {
+            initFieldsMap(context, reader);
+        }
+        final int endRowNum = context.getEndRowNum();
+        final int missingRows = Math.min(row.getRowNum(), endRowNum) - context.getNextRowNum();
+        if (missingRows > 0 && !context.addBlankRows(missingRows)) {
+            return false;
+        }
+        if (row.getRowNum() >= endRowNum) {
+            return false;
+        }
+        context.setNextRowNum(row.getRowNum() + 1);
+        if (isBlankRow(context, row)) {
+            if (!context.addBlankRows(1)) {
+                return false;
+            }
+        } else {
+            context.addDataRow(row.getRowNum());
+            if (!context.isDelta() || isChangedRow(context, row)) {
+                importRow(context, row, list, listener);
+            }
+        }
+        return row.getRowNum() + 1 < endRowNum;
+    }
+
+    /**
+     * 从表头解析列名，构建属性与列的对应关系，并将映射到的列作为投影下推到读取器.
+     * @param context 导入上下文
+     * @param reader Sheet读取器
+     * @throws ExcelTemplateException Excel模板异常，如缺少列
      */
-    private Sheet getSheet(final InputStream fis) {
+    private void initFieldsMap(final ImportContext context, final SheetReader reader) throws ExcelTemplateException {
+        final Map<Integer, ImportField> fieldsMap = buildFieldOrder(context.getHeaderRows(), reader.getMergedRegions());
+        context.setFieldsMap(fieldsMap);
+        context.setNextRowNum(context.getFirstDataRowNum());
+        final BitSet columns = new BitSet();
+        for (Integer column : fieldsMap.keySet()) {
+            columns.set(column);
+        }
+        reader.setProjection(columns); // 之后的行只解析映射到属性的列
+        if (context.isDelta()) {
+            context.initDeltaColumns(fieldsMap);
+        }
+    }
+
+    /**
+     * 增量导入时判断一行是否新增或变化.
+     * 只读取关键字段的文本并计算映射列原始值的内容哈希，不做类型转换与校验；关键字段为空的行交给导入处理.
+     * @param context 导入上下文
+     * @param row 行数据
+     * @return 是否新增或变化
+     */
+    private boolean isChangedRow(final ImportContext context, final RowValues row) {
+        final StringBuilder keyText = new StringBuilder();
+        for (int column : context.getDeltaKeyColumns()) {
+            final String value = getCellValue(context, row, column, context.getFieldsMap().get(column).getDesc().dateFormat());
+            if (StringUtils.isEmpty(value)) {
+                return true;
+            }
+            keyText.append(keyText.length() == 0 ? "" : ",").append(value);
+        }
+        return context.putDeltaRow(keyText.toString(), ImportSnapshot.rowHash(row, context.getDeltaColumns()));
+    }
+
+    /**
+     * 判断是否所有映射列都为空.
+     * @param context 导入上下文
+     * @param row 行数据
+     * @return 是否空行
+     */
+    private boolean isBlankRow(final ImportContext context, final RowValues row) {
+        for (Integer column : context.getFieldsMap().keySet()) {
+            final CellType type = row.getType(column);
+            if (type == null || CellType.BLANK == type) {
+                continue;
+            }
+            if (CellType.STRING != type || StringUtils.isNotBlank(row.getText(column))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 导入一行数据.
+     * @param context 导入上下文
+     * @param row 行数据
+     * @param list 实体列表
+     * @param listener 逐行回调，为null时实体保存在实体列表中
+     * @throws Exception 处理异常
+     */
+    private void importRow(final ImportContext context, final RowValues row, final List<T> list, final ImportListener<T> listener)
+            throws Exception {
+        final List<String> validateMassages = context.getValidateMessages();
+        final int messageCount = validateMassages.size();
+        final int rowNum = row.getRowNum();
+        final Object[] values = context.resetValues();
+        boolean keyAttrEmpty = false;
+
+        for (Map.Entry<Integer, ImportField> entry : context.getFieldsMap().entrySet()) {
+            final int column = entry.getKey();
+            final ImportField importField = entry.getValue();
+
+            final ImportExcelDesc fieldDesc = importField.getDesc();
+            final Class<?> fieldType = importField.getType();
+            final String exceptionMsg = "第" + (rowNum + 1) + "行【" + fieldDesc.name() + "】列";
+
+            // 日期格式校验
+            if (Date.class == fieldType && !validateDateCell(row, column)) {
+                validateMassages.add(exceptionMsg + "日期格式错误");
+                continue;
+            }
+            final String cellValue = getCellValue(context, row, column, fieldDesc.dateFormat());
+            final ColumnProfiler profiler = context.getProfiler(importField.getIndex());
+            if (profiler != null) {
+                profiler.addText(cellValue);
+            }
+            final String validateData = validateData(context, cellValue, exceptionMsg, importField);
+
+            if (validateData.contains(CORRECT_SYMBOL)) {
+                String text = validateData.replace(CORRECT_SYMBOL, "");
+                final Dictionary dictionary = context.getDictionary(importField.getIndex());
+                if (dictionary != null && StringUtils.isNotBlank(text)) {
+                    final String code = dictionary.containsCode(text) ? text : dictionary.getCode(text);
+                    if (code == null) {
+                        final String message = "值【" + text + "】不在字典" + dictionary.getName() + "中";
+                        validateMassages.add(exceptionMsg + message);
+                        context.getValidationErrors().add(new ValidationError(rowNum + 1, fieldDesc.name(), text, message));
+                        continue;
+                    }
+                    text = code;
+                }
+                try {
+                    values[importField.getIndex()] = typeFormat(fieldType, text, fieldDesc.dateFormat());
+                } catch (final DateTimeParseException e) {
+                    validateMassages.add(exceptionMsg + "日期格式错误");
+                    continue;
+                }
+                if (profiler != null) {
+                    profiler.addValue(values[importField.getIndex()]);
+                }
+            } else {
+                validateMassages.add(validateData);
+            }
+
+            if (fieldDesc.keyAttr()) {
+                final Object value = values[importField.getIndex()];
+                if (value == null || StringUtils.isEmpty(String.valueOf(value))) {
+                    LOGGER.error("Key field " + importField.getField().getName() + " is empty, row num: " + rowNum);
+                    keyAttrEmpty = true;
+                    break;
+                }
+            }
+        }
+
+        if (!keyAttrEmpty && checkDuplicateKey(context, values, rowNum, list)) {
+            final T entity = instantiation.newInstance(values);
+            if (classDesc != null && StringUtils.isNotBlank(classDesc.function())) { // 行数据校验
+                final String validateResult = validateRow(context, entity, "第" + (rowNum + 1) + "行");
+                if (!validateResult.contains(CORRECT_SYMBOL)) {
+                    validateMassages.add(validateResult);
+                }
+            }
+
+            if (listener == null) {
+                list.add(entity); // 批量校验失败时导入结束后抛出校验异常，列表中的位置不受影响
+            }
+            final boolean valid = validateMassages.size() == messageCount;
+            if (context.getBatchValidator() != null) {
+                if (context.addPendingRow(entity, rowNum + 1, valid)) {
+                    flushBatch(context, listener);
+                }
+            } else if (listener != null && valid) {
+                deliver(context, listener, entity, rowNum + 1);
+            }
+        }
+    }
+
+    /**
+     * 批量校验等待中的行.
+     * 逐行回调导入时，校验通过的行在本批校验后交给回调.
+     * @param context 导入上下文
+     * @param listener 逐行回调，为null时实体已保存在实体列表中
+     */
+    @SuppressWarnings("unchecked")
+    private void flushBatch(final ImportContext context, final ImportListener<T> listener) {
+        final List<ImportRow<Object>> rows = context.getPendingRows();
+        if (rows.isEmpty()) {
+            return;
+        }
+        final BatchValidator<Object> validator = context.getBatchValidator();
+        List<String> results;
         try {
-            final Workbook book = WorkbookFactory.create(fis);
-            return book.getSheetAt(0);
+            results = validator.validate(Collections.unmodifiableList(rows));
         } catch (final Exception e) {
-            LOGGER.error(e.getMessage(), e);
+            LOGGER.warn("Invoke batch validator failed！clazzName：{}", validator.getClass().getName(), e);
+            results = null;
         }
-        return null;
+        if (results != null && results.size() != rows.size()) {
+            LOGGER.warn("Batch validator returned {} results for {} rows！clazzName：{}", results.size(), rows.size(),
+                    validator.getClass().getName());
+            results = null;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            final ImportRow<Object> row = rows.get(i);
+            final String res = results == null ? "方法校验错误！" : results.get(i);
+            if (StringUtils.isNotEmpty(res)) {
+                context.getValidateMessages().add("第" + row.getRowNumber() + "行" + res);
+            } else if (listener != null && context.isPendingValid(i)) {
+                deliver(context, listener, (T) row.getEntity(), row.getRowNumber());
+            }
+        }
+        context.clearPendingRows();
     }
 
     /**
-     * 对合并的单元格进行单元格值读取位置的初始化，根据该位置，可以读取到单元格的值.
-     * @param sheet Excel Sheet
+     * 将校验通过的行交给回调并提交.
+     * @param context 导入上下文
+     * @param listener 逐行回调
+     * @param entity 实体
+     * @param rowNumber 行号，从1开始
      */
-    private void initCellPosition(final Sheet sheet) {
-        this.cellValuePositionMap = new HashMap<>();
-        final int sheetMergeCount = sheet.getNumMergedRegions();
-        for(int i = 0; i < sheetMergeCount; i++) {
-            final CellRangeAddress ca = sheet.getMergedRegion(i);
-            final int firstRow = ca.getFirstRow();
-            final int firstColumn = ca.getFirstColumn();
-            final int lastRow = ca.getLastRow();
-            initCellPosition(firstRow, firstColumn, lastRow);
+    private void deliver(final ImportContext context, final ImportListener<T> listener, final T entity, final int rowNumber) {
+        try {
+            listener.onRow(entity, rowNumber);
+        } catch (final Exception e) {
+            throw new ExcelListenerException("第" + rowNumber + "行处理失败", e);
+        }
+        if (context.commitRow(rowNumber - 1)) {
+            checkpoint(context, listener);
         }
     }
 
     /**
-     * 初始化读取位置.
-     * @param firstRow 第一行
-     * @param firstCol 第一列
-     * @param lastRow 最后一行
+     * 检查关键字段是否与之前的行重复.
+     * 重复时记录两次出现的行号，并按处理策略决定是否导入该行.
+     * @param context 导入上下文
+     * @param values 一行的属性值
+     * @param rowNum 行号
+     * @param list 实体列表
+     * @return 是否导入该行
+     * @throws IOException 读写指纹临时文件异常
      */
-    private void initCellPosition(final int firstRow, final int firstCol, final int lastRow) {
-        for (int rowPos = firstRow; rowPos <= lastRow; ++rowPos) {
-            cellValuePositionMap.computeIfAbsent(rowPos, key -> new HashMap<>()).put(firstCol, new CellPosition(firstRow, firstCol));
+    private boolean checkDuplicateKey(final ImportContext context, final Object[] values, final int rowNum, final List<T> list)
+            throws IOException {
+        final KeyFingerprintSet keySet = context.getKeySet();
+        if (keySet == null) {
+            return true;
+        }
+        final DuplicatePolicy policy = context.getDuplicatePolicy();
+        final long previous = keySet.put(KeyFingerprintSet.fingerprint(values, keyIndexes),
+                ((long) rowNum << 32) | list.size(), policy == DuplicatePolicy.KEEP_LAST); // 行号与实体在列表中的下标
+        if (previous == KeyFingerprintSet.MISSING) {
+            return true;
+        }
+        final int previousRow = (int) (previous >>> 32) + 1;
+        final StringBuilder key = new StringBuilder();
+        for (int index : keyIndexes) {
+            key.append(key.length() == 0 ? "" : ",").append(values[index]);
+        }
+        context.getDuplicates().add(new DuplicateKey(key.toString(), previousRow, rowNum + 1));
+        switch (policy) {
+            case REJECT:
+                final String message = "关键字段【" + key + "】与第" + previousRow + "行重复";
+                context.getValidateMessages().add("第" + (rowNum + 1) + "行" + message);
+                context.getValidationErrors().add(new ValidationError(rowNum + 1, keyColumns, key.toString(), message));
+                return true;
+            case KEEP_FIRST:
+                return false;
+            default:
+                list.set((int) previous, null); // 导入结束后移除
+                return true;
         }
     }
 
     /**
-     * 获取列名对应的列索引.
-     * @param columnName 列名
-     * @param columnList 表头列表
+     * 按属性名对应导入属性与行映射器的属性.
+     * @param mapper 行映射器
+     * @return 导入属性下标对应的行映射器属性下标，属性不一致（如映射器未随实体重新生成）时返回null
+     */
+    private int[] resolveMapperIndexes(final RowMapper<T> mapper) {
+        final List<String> names = Arrays.asList(mapper.fieldNames());
+        if (names.size() != fields.size()) {
+            LOGGER.warn("Generated row mapper of {} is out of date, fall back to reflection.", clazz.getName());
+            return null;
+        }
+        final int[] indexes = new int[fields.size()];
+        for (ImportField importField : fields) {
+            final int index = names.indexOf(importField.getField().getName());
+            if (index < 0) {
+                LOGGER.warn("Generated row mapper of {} is out of date, fall back to reflection.", clazz.getName());
+                return null;
+            }
+            indexes[importField.getIndex()] = index;
+        }
+        return indexes;
+    }
+
+    /**
+     * 解析实体中标注了导入注解的属性.
+     * @return 导入属性列表
+     */
+    private List<ImportField> initFields() {
+        final Field[] allFields = clazz.getDeclaredFields(); // 得到类的所有field.
+        final List<ImportField> importFields = new ArrayList<>(allFields.length);
+        for (Field field : allFields) {
+            if (field.isAnnotationPresent(ImportExcelDesc.class)) {
+                final ImportExcelDesc fieldDesc = field.getAnnotation(ImportExcelDesc.class);
+                field.setAccessible(true); // 设置类的私有字段属性可访问.
+                Class<?> validatorClass = null;
+                Method validateMethod = null;
+                if (StringUtils.isNotBlank(fieldDesc.function())) {
+                    validatorClass = getFieldValidateClass(clazz, fieldDesc, classDesc);
+                    validateMethod = getValidateMethod(validatorClass, fieldDesc.function(), String.class);
+                }
+                importFields.add(new ImportField(importFields.size(), field, fieldDesc, validatorClass, validateMethod));
+            }
+        }
+        return Collections.unmodifiableList(importFields);
+    }
+
+    /**
+     * 查找校验方法.
+     * @param checkClazz 校验类
+     * @param function 方法名
+     * @param valueType 待校验值类型
+     * @return 校验方法，找不到时返回null
+     */
+    private static Method getValidateMethod(final Class<?> checkClazz, final String function, final Class<?> valueType) {
+        try {
+            return checkClazz.getMethod(function, valueType, String.class);
+        } catch (final NoSuchMethodException e) {
+            LOGGER.warn("Can't find the method of validator！methodName：{}，clazzName：{}", function, checkClazz.getName());
+        }
+        return null;
+    }
+
+    /**
+     * 打开Sheet读取器.
+     *
+     * 读取第一个sheet
+     * @param fis 输入流
+     * @param options 导入选项
+     * @return Sheet读取器，文件无法读取时返回null
+     * @throws ExcelTemplateException 文件格式错误，或超出导入限制（包括解压时检测到zip炸弹）
+     */
+    private SheetReader openReader(final InputStream fis, final ImportOptions options) throws ExcelTemplateException {
+        try {
+            if (options.getLimits() != null) {
+                return SheetReaders.open(fis, options.isStreaming(), options.getLimits());
+            }
+            return options.isStreaming() ? SheetReaders.openStreaming(fis) : SheetReaders.open(fis);
+        } catch (final ExcelTemplateException e) {
+            throw e;
+        } catch (final Exception e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * 获取属性对应的列索引.
+     * 依次按列名和别名查找.
+     * @param fieldDesc 属性注解
+     * @param headerIndex 表头索引
      * @return 列索引
      * @throws ExcelTemplateException Excel模板异常
      */
-    private int getExcelCol(final String columnName, final List<String> columnList) throws ExcelTemplateException {
-        int pos = 0;
-        for (; pos < columnList.size(); ++pos) {
-            if (columnList.get(pos).equals(columnName)) {
-                break;
-            }
+    private int getExcelCol(final ImportExcelDesc fieldDesc, final HeaderIndex headerIndex) throws ExcelTemplateException {
+        int pos = headerIndex.getColumn(fieldDesc.name());
+        for (int i = 0; pos == -1 && i < fieldDesc.aliases().length; i++) {
+            pos = headerIndex.getColumn(fieldDesc.aliases()[i]);
         }
-        if (pos == columnList.size()) {
-            LOGGER.error("Can't find column name in excel file, column:" + columnName);
-            throw new ExcelTemplateException("文件模板错误，缺少列：" + columnName);
+        if (pos == -1) {
+            LOGGER.error("Can't find column name in excel file, column:" + fieldDesc.name());
+            throw new ExcelTemplateException("文件模板错误，缺少列：" + fieldDesc.name());
         }
         return pos;
     }
 
     /**
      * 构建属性与列的对应关系.
-     * @param columnList 表头列表
+     * @param headerIndex 表头索引
      * @return map
      * @throws ExcelTemplateException Excel模板异常
      */
-    private Map<Integer, Field> buildFieldOrder(final List<String> columnList) throws ExcelTemplateException {
-        if (columnList == null || columnList.isEmpty()) {
+    private Map<Integer, ImportField> buildFieldOrder(final HeaderIndex headerIndex) throws ExcelTemplateException {
+        if (headerIndex.isEmpty()) {
             return new HashMap<>();
         }
-        final Field[] allFields = clazz.getDeclaredFields(); // 得到类的所有field.
-        final Map<Integer, Field> fieldsMap = new HashMap<>(); // 定义一个map用于存放列的序号和field.
-        for (Field field : allFields) {
-            // 将有注解的field存放到map中.
-            if (field.isAnnotationPresent(ImportExcelDesc.class)) {
-                final ImportExcelDesc attr = field.getAnnotation(ImportExcelDesc.class);
-                final int pos = getExcelCol(attr.name().trim(), columnList);
-                if (pos != -1) {
-                    field.setAccessible(true); // 设置类的私有字段属性可访问.
-                    fieldsMap.put(pos, field);
-                }
-            }
+        final Map<Integer, ImportField> fieldsMap = new HashMap<>(); // 定义一个map用于存放列的序号和field.
+        for (ImportField importField : fields) {
+            fieldsMap.put(getExcelCol(importField.getDesc(), headerIndex), importField);
         }
         return fieldsMap;
     }
 
     /**
      * 构建属性与列的对应关系.
-     * @param sheet Excel表
-     * @param headerNum 表头行数
+     * @param headerRows 表头单元格文本，[行][列]
+     * @param mergedRegions 合并区域，未知时为null
      * @return map
      * @throws ExcelTemplateException Excel模板异常
      */
-    private Map<Integer, Field> buildFieldOrder(final Sheet sheet, final Integer headerNum) throws ExcelTemplateException {
-        final Row row = sheet.getRow(headerNum - 1); //获取列头
-        final List<String> columnList = new ArrayList<>();
-        final int columnCount = row.getLastCellNum();
-        for (int pos = 0; pos < columnCount; ++pos) {
-            final Cell cell = row.getCell(pos);
-            if(cell != null) {
-                final String cellValue = cell.getStringCellValue().trim();
-                if (StringUtils.isEmpty(cellValue)) {
-                    columnList.add(""); // 保留空表头、避免构建属性到表头的映射时下标错位
-                    continue;
+    private Map<Integer, ImportField> buildFieldOrder(final String[][] headerRows, final List<CellRangeAddress> mergedRegions) throws ExcelTemplateException {
+        return buildFieldOrder(HeaderIndex.build(fillMergedHeader(headerRows, mergedRegions)));
+    }
+
+    /**
+     * 读取表头行的单元格文本.
+     * @param context 导入上下文
+     * @param row 行数据
+     * @return 单元格文本
+     */
+    private String[] readHeaderRow(final ImportContext context, final RowValues row) {
+        final String[] header = new String[row.getLastColumn()];
+        for (int col = 0; col < header.length; col++) {
+            final String value = getCellValue(context, row, col, HEADER_DATE_FORMAT);
+            header[col] = value == null ? "" : value;
+        }
+        return header;
+    }
+
+    /**
+     * 填充合并的表头单元格.
+     * 已知合并区域时按合并区域的值填充；流式读取无法预先得知合并区域，
+     * 此时非末行表头的空单元格沿用左侧单元格的值（横向合并的上级表头）.
+     * @param headerRows 表头单元格文本，[行][列]
+     * @param mergedRegions 合并区域，未知时为null
+     * @return 填充后的表头单元格文本，各行列数一致
+     */
+    private String[][] fillMergedHeader(final String[][] headerRows, final List<CellRangeAddress> mergedRegions) {
+        final int headerNum = headerRows.length;
+        int columnCount = 0;
+        for (String[] header : headerRows) {
+            columnCount = Math.max(columnCount, header == null ? 0 : header.length);
+        }
+        final String[][] filled = new String[headerNum][columnCount];
+        for (int rowNum = 0; rowNum < headerNum; rowNum++) {
+            Arrays.fill(filled[rowNum], "");
+            if (headerRows[rowNum] != null) {
+                System.arraycopy(headerRows[rowNum], 0, filled[rowNum], 0, headerRows[rowNum].length);
+            }
+        }
+        if (mergedRegions == null) {
+            for (int rowNum = 0; rowNum < headerNum - 1; rowNum++) {
+                for (int col = 1; col < columnCount; col++) {
+                    if (filled[rowNum][col].trim().isEmpty()) {
+                        filled[rowNum][col] = filled[rowNum][col - 1];
+                    }
                 }
-                columnList.add(cellValue);
+            }
+            return filled;
+        }
+        for (CellRangeAddress ca : mergedRegions) {
+            if (ca.getFirstRow() >= headerNum || ca.getFirstColumn() >= columnCount) {
+                continue;
+            }
+            final String value = filled[ca.getFirstRow()][ca.getFirstColumn()];
+            for (int rowNum = ca.getFirstRow(); rowNum <= Math.min(ca.getLastRow(), headerNum - 1); rowNum++) {
+                for (int col = ca.getFirstColumn(); col <= ca.getLastColumn() && col < columnCount; col++) {
+                    filled[rowNum][col] = value;
+                }
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * 解析属性的字典.
+     * 每次导入开始时从{@link Dictionaries}的共享缓存中取一次，逐行转换时直接使用.
+     * @param context 导入上下文
+     */
+    private void initDictionaries(final ImportContext context) {
+        for (ImportField importField : fields) {
+            if (StringUtils.isNotBlank(importField.getDesc().dictionary())) {
+                context.setDictionary(importField.getIndex(), Dictionaries.get(importField.getDesc().dictionary()));
             }
         }
-        return buildFieldOrder(columnList);
     }
 
     /**
      * 初始化校验类.
+     * @param context 导入上下文
      */
-    private void initValidator() {
-        final Field[] declaredFields = clazz.getDeclaredFields();
-        validatorMap = new HashMap<>(declaredFields.length);
-        final ImportExcelDesc classDesc = clazz.getAnnotation(ImportExcelDesc.class);
-        if (classDesc != null && StringUtils.isNotBlank(classDesc.function())) {
-            try {
-                validatorMap.put(CLASS_VALIDATOR_KEY, getFieldValidateClass(clazz, null, classDesc).newInstance());
-            } catch (final IllegalAccessException | InstantiationException e) {
-                LOGGER.warn("初始化实体校验类映射异常，Entity: {}, e:{}.", clazz.getName(), e);
+    private void initValidator(final ImportContext context) {
+        if (rowValidatorClass != null) {
+            context.setRowValidator(getValidator(rowValidatorClass,
+                    rowValidatorClass.isAnnotationPresent(StatelessValidator.class)));
+        }
+        for (ImportField importField : fields) {
+            if (importField.getValidatorClass() != null) {
+                context.setFieldValidator(importField.getIndex(),
+                        getValidator(importField.getValidatorClass(), importField.isSharedValidator()));
             }
         }
+    }
 
-        for (Field field : declaredFields) {
-            if (field.isAnnotationPresent(ImportExcelDesc.class)) {
-                final ImportExcelDesc fieldDesc = field.getAnnotation(ImportExcelDesc.class);
-                if (fieldDesc != null && !"".equals(fieldDesc.function())) {
-                    try {
-                        validatorMap.put(field.getName(), getFieldValidateClass(clazz, fieldDesc, classDesc).newInstance());
-                    } catch (final IllegalAccessException | InstantiationException e) {
-                        LOGGER.warn("初始化属性校验类映射异常，filed: {}, e:{}.", field.getName(), e);
-                    }
-                }
+    /**
+     * 获取校验实例.
+     * 无状态校验类返回共享实例，否则创建新实例.
+     * @param checkClazz 校验类
+     * @param shared 是否共享
+     * @return 校验实例，创建失败时返回null
+     */
+    private Object getValidator(final Class<?> checkClazz, final boolean shared) {
+        try {
+            if (!shared) {
+                return newValidator(checkClazz);
+            }
+            Object validator = SHARED_VALIDATORS.get(checkClazz);
+            if (validator == null) {
+                validator = newValidator(checkClazz);
+                final Object previous = SHARED_VALIDATORS.putIfAbsent(checkClazz, validator);
+                validator = previous == null ? validator : previous;
             }
+            return validator;
+        } catch (final IllegalAccessException | InstantiationException e) {
+            LOGGER.warn("Can't instant a validator of {}！", checkClazz.getName(), e);
         }
+        return null;
+    }
+
+    /**
+     * 创建校验类实例，优先使用生成的行映射器.
+     * @param checkClazz 校验类
+     * @return 校验类实例
+     * @throws IllegalAccessException 构造器不可访问
+     * @throws InstantiationException 无法创建实例
+     */
+    private Object newValidator(final Class<?> checkClazz) throws IllegalAccessException, InstantiationException {
+        final Object validator = rowMapper == null ? null : rowMapper.newValidator(checkClazz);
+        return validator == null ? checkClazz.newInstance() : validator;
     }
 
     /**
@@ -344,8 +1046,8 @@ public final class ExcelImporter<T> {
      * @param classDesc 实体注解
      * @return 校验类
      */
-    private Class getFieldValidateClass(final Class entityClass, final ImportExcelDesc fieldDesc, final ImportExcelDesc classDesc) {
-        Class checkClazz;
+    private static Class<?> getFieldValidateClass(final Class<?> entityClass, final ImportExcelDesc fieldDesc, final ImportExcelDesc classDesc) {
+        Class<?> checkClazz;
         if (fieldDesc != null && !fieldDesc.clazz().equals(ImportExcelDesc.NoValidateClass.class)) {
             checkClazz = fieldDesc.clazz();
         } else if (classDesc != null && !classDesc.clazz().equals(ImportExcelDesc.NoValidateClass.class)) {
@@ -357,111 +1059,136 @@ public final class ExcelImporter<T> {
     }
 
     /**
-     * 获取单元格.
-     * @param sheet Excel表
-     * @param row 行
-     * @param column 列
-     * @return 单元格
+     * 校验日期格式单元格.
+     * @param row 行数据
+     * @param col 列
+     * @return 格式是否正确
      */
-    private Cell getCell(final Sheet sheet, int row, int column) {
-        final Map<Integer, CellPosition> rowCellPositions = cellValuePositionMap.get(row);
-        CellPosition position = null;
-        if (rowCellPositions != null) {
-            position = rowCellPositions.get(column);
+    private boolean validateDateCell(final RowValues row, final int col) {
+        final CellType type = row.getType(col);
+        if (type == null || CellType.BLANK == type) {
+            return true;
         }
-        if (position != null) {
-            row = position.getRow();
-            column = position.getColumn();
+        return CellType.NUMERIC == type && row.isDate(col);
+    }
+
+    /**
+     * 获取单元格样式对应的格式缓存.
+     * @param context 导入上下文
+     * @param row 行数据
+     * @param col 列
+     * @return 样式格式
+     */
+    private CellStyleFormat getStyleFormat(final ImportContext context, final RowValues row, final int col) {
+        final int styleIndex = row.getStyleIndex(col);
+        CellStyleFormat styleFormat = context.getStyleFormat(styleIndex);
+        if (styleFormat == null) {
+            styleFormat = new CellStyleFormat(row.getFormatString(col));
+            context.putStyleFormat(styleIndex, styleFormat);
         }
-        final Row rowRecord = sheet.getRow(row);
-        if (rowRecord == null) {
-            return null;
+        return styleFormat;
+    }
+
+    /**
+     * 获取日期格式化器.
+     * 同一格式字符串的格式化器线程安全、全局共享.
+     * 解析时数字宽度宽松，与SimpleDateFormat一致，如yyyy-MM-dd可以解析2020-1-5.
+     * @param dateFormat 日期格式
+     * @return 日期格式化器
+     */
+    private static DateTimeFormatter getDateFormatter(final String dateFormat) {
+        DateTimeFormatter formatter = DATE_FORMATTERS.get(dateFormat);
+        if (formatter == null) {
+            formatter = new DateTimeFormatterBuilder().parseLenient().appendPattern(dateFormat).toFormatter();
+            DATE_FORMATTERS.putIfAbsent(dateFormat, formatter);
         }
-        return rowRecord.getCell(column);
+        return formatter;
     }
 
     /**
-     * 校验日期格式单元格.
-     * @param cell 单元格
-     * @return 格式是否正确
+     * 按日期格式解析日期.
+     * 格式中没有的字段与SimpleDateFormat一致：缺少日期时为1970-01-01，缺少月、日时为1，缺少时间时为0点.
+     * @param text 文本
+     * @param dateFormat 日期格式
+     * @return 日期
+     * @throws DateTimeParseException 文本与日期格式不符
      */
-    private boolean validateDateCell(final Cell cell) {
-        if (cell == null || CellType.BLANK == cell.getCellType()) {
-            return true;
+    private static Date parseDate(final String text, final String dateFormat) {
+        final TemporalAccessor parsed = getDateFormatter(dateFormat).parse(text);
+        LocalDate date = parsed.query(TemporalQueries.localDate());
+        if (date == null) {
+            date = LocalDate.of(getField(parsed, ChronoField.YEAR, 1970), getField(parsed, ChronoField.MONTH_OF_YEAR, 1),
+                    getField(parsed, ChronoField.DAY_OF_MONTH, 1));
         }
-        return CellType.NUMERIC == cell.getCellType() && HSSFDateUtil.isCellDateFormatted(cell);
+        final LocalTime time = parsed.query(TemporalQueries.localTime());
+        final LocalDateTime dateTime = date.atTime(time == null ? LocalTime.MIDNIGHT : time);
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * 获取解析结果中的字段.
+     * @param parsed 解析结果
+     * @param field 字段
+     * @param defaultValue 没有该字段时的默认值
+     * @return 字段值
+     */
+    private static int getField(final TemporalAccessor parsed, final ChronoField field, final int defaultValue) {
+        return parsed.isSupported(field) ? parsed.get(field) : defaultValue;
     }
 
     /**
      * 获取单元格的内容.
-     * @param cell 单元格
+     * @param context 导入上下文
+     * @param row 行数据
+     * @param col 列
      * @param dateFormat a format string for date value
      * @return value of cell
      */
-    private String getCellValue(Cell cell, String dateFormat) {
-        if (cell == null) {
+    private String getCellValue(ImportContext context, RowValues row, int col, String dateFormat) {
+        final CellType type = row.getType(col);
+        if (type == null) {
             return null;
         }
         String value;
-        switch (cell.getCellType()) {
+        switch (type) {
             case STRING:
-                value = cell.getRichStringCellValue().getString();
+                value = row.getText(col);
                 break;
             case NUMERIC:
-                if (HSSFDateUtil.isCellDateFormatted(cell)) { // a date cell
-                    SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-                    value = sdf.format(HSSFDateUtil.getJavaDate(cell.getNumericCellValue()));
+                if (row.isDate(col)) { // a date cell
+                    final Date date = HSSFDateUtil.getJavaDate(row.getNumber(col));
+                    value = getDateFormatter(dateFormat).format(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
                 } else {
-                    value = getNumericCellValue(cell);
+                    value = getStyleFormat(context, row, col).getNumberFormat().format(row.getNumber(col));
                 }
                 break;
             case FORMULA:
-                value = cell.getCellFormula() + "";
+                value = row.getText(col) + "";
                 break;
             case BOOLEAN:
-                value = cell.getBooleanCellValue() + "";
-                break;
-            case BLANK:
-                value = "";
+                value = row.getBoolean(col) + "";
                 break;
             case ERROR:
                 value = "非法字符";
                 break;
             default:
-                value = cell.toString();
+                value = "";
                 break;
         }
         return value;
     }
 
-    /**
-     * 获取单元格数值类型值.
-     * @param cell 单元格
-     * @return 数值类型值
-     */
-    private String getNumericCellValue(final Cell cell) {
-        final double value = cell.getNumericCellValue();
-        final CellStyle style = cell.getCellStyle();
-        final DecimalFormat format = new DecimalFormat();
-        final String temp = style.getDataFormatString();
-        // 单元格设置成常规
-        if ("General".equals(temp)) {
-            format.applyPattern("#.#########");
-        }
-        return format.format(value);
-    }
-
     /**
      * 验证数据有效性.
      *
+     * @param context       导入上下文
      * @param value         数据值
      * @param exceptionMsg 固定异常信息内容
-     * @param field         属性
-     * @param fieldDesc    导入实体的属性注解
-     * @param classDesc  导入实体的类注解
+     * @param importField   导入属性
      * @return 返回带有 %c 的数据表示验证通过的数据；否则返回错误信息
      */
-    private String validateData(String value, String exceptionMsg, Field field, ImportExcelDesc fieldDesc, ImportExcelDesc classDesc) {
+    private String validateData(ImportContext context, String value, String exceptionMsg, ImportField importField) {
+        final ImportExcelDesc fieldDesc = importField.getDesc();
         String validateData = StringUtils.isBlank(value) ? CORRECT_SYMBOL : value + CORRECT_SYMBOL;
         if (fieldDesc.isCheckNull()) {
             validateData = checkNull(exceptionMsg, value);
@@ -470,7 +1197,7 @@ public final class ExcelImporter<T> {
             validateData = checkRegularExpression(exceptionMsg, value, fieldDesc.regularExpression(), fieldDesc.regularExpressionTip());
         }
         if (StringUtils.isNotBlank(fieldDesc.function())) {
-            validateData = checkFunction(exceptionMsg, value, field, fieldDesc, classDesc);
+            validateData = checkFunction(context, exceptionMsg, value, importField);
         }
         return validateData;
     }
@@ -501,64 +1228,79 @@ public final class ExcelImporter<T> {
 
     /**
      * 方法验证有效性.
+     * @param context 导入上下文
      * @param exceptionMsg 固定异常信息内容
      * @param value 数据值
-     * @param filed 属性
-     * @param fieldDesc 导入属性注解
-     * @param classDesc 导入类注解
+     * @param importField 导入属性
      * @return 返回带有 %c 的数据表示验证通过的数据；否则返回错误信息
      */
-    private String checkFunction(String exceptionMsg, String value, Field filed, ImportExcelDesc fieldDesc, ImportExcelDesc classDesc){
-        final String function = fieldDesc.function();
-        final Class<?> checkClazz = getFieldValidateClass(clazz, fieldDesc, classDesc);
-        try {
-            final Method method = checkClazz.getMethod(function, String.class, String.class);
-            Object validator = validatorMap.get(filed.getName());
-            if (validator == null) {
-                validator = checkClazz.newInstance();
-                validatorMap.put(filed.getName(), validator);
+    private String checkFunction(ImportContext context, String exceptionMsg, String value, ImportField importField) {
+        final Method method = importField.getValidateMethod();
+        final Object validator = context.getFieldValidator(importField.getIndex());
+        if (method == null || validator == null) {
+            return exceptionMsg + "方法校验错误！";
+        }
+        if (rowMapper != null) {
+            try {
+                final String res = rowMapper.validate(mapperIndexes[importField.getIndex()], validator, value, exceptionMsg);
+                if (res != null) {
+                    return res;
+                }
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Invoke validator failed！methodName：{}，clazzName：{}", method.getName(),
+                        importField.getValidatorClass().getName(), e);
+                return exceptionMsg + "方法校验错误！";
             }
+        }
+        try {
             final Object res = method.invoke(validator, value, exceptionMsg);
             if (res instanceof String) {
                 return (String) res;
             }
-        } catch (InstantiationException | IllegalAccessException e) {
-            LOGGER.warn("Can't find the method of validator！methodName：{}，clazzName：{}", function, checkClazz.getName());
-        } catch (NoSuchMethodException | InvocationTargetException e) {
-            LOGGER.warn("Can't instant a validator of {}！", checkClazz.getName());
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.warn("Invoke validator failed！methodName：{}，clazzName：{}", method.getName(),
+                    importField.getValidatorClass().getName(), e);
         }
         return exceptionMsg + "方法校验错误！";
     }
 
     /**
      * 行数据校验.
+     * @param context 导入上下文
      * @param entity 实体--行数据
      * @param exceptionMsg 异常信息
-     * @param clazzDesc VO类注解
      * @return 校验结果
      */
-    private String validateRow(final T entity, final String exceptionMsg, final ImportExcelDesc clazzDesc) {
-        final String function = clazzDesc.function();
-        final Class<?> checkClass = getFieldValidateClass(clazz, null, clazzDesc);
-        try {
-            final Method method = checkClass.getMethod(function, clazz, String.class);
-            Object validator = validatorMap.get(CLASS_VALIDATOR_KEY);
-            if (validator == null) {
-                validator = checkClass.newInstance();
-                validatorMap.put(CLASS_VALIDATOR_KEY, validator);
+    private String validateRow(final ImportContext context, final T entity, final String exceptionMsg) {
+        final Object validator = context.getRowValidator();
+        if (rowValidateMethod == null || validator == null) {
+            return exceptionMsg + "方法校验错误！";
+        }
+        if (rowMapper != null) {
+            try {
+                final String res = rowMapper.validateRow(validator, entity, exceptionMsg);
+                if (res != null) {
+                    return res;
+                }
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Invoke validator failed！methodName：{}，clazzName：{}", rowValidateMethod.getName(),
+                        rowValidatorClass.getName(), e);
+                return exceptionMsg + "方法校验错误！";
             }
-            final Object res = method.invoke(validator, entity, exceptionMsg);
+        }
+        try {
+            final Object res = rowValidateMethod.invoke(validator, entity, exceptionMsg);
             if (res instanceof String) {
                 return (String) res;
             }
-        } catch (InstantiationException | IllegalAccessException e) {
-            LOGGER.warn("Can't find the method of validator！methodName：{}，clazzName：{}", function, checkClass.getName());
-        } catch (NoSuchMethodException | InvocationTargetException e) {
-            LOGGER.warn("Can't instant a validator of {}！", checkClass.getName());
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LOGGER.warn("Invoke validator failed！methodName：{}，clazzName：{}", rowValidateMethod.getName(),
+                    rowValidatorClass.getName(), e);
         }
         return exceptionMsg + "方法校验错误！";
     }
 
+
     /**
      * 按照模板的属性类型进行转换.
      *
@@ -585,8 +1327,7 @@ public final class ExcelImporter<T> {
         } else if (BigDecimal.class == fieldType) {
             return BigDecimal.valueOf(getCellValueForDouble(cellValue));
         } else if (Date.class == fieldType) {
-            final SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-            return sdf.parse(cellValue);
+            return parseDate(cellValue, dateFormat);
         } else {
             throw new Exception("导入模板的属性类型【" + fieldType.getName() + "】没有对应的转换程序，请添加！");
         }
@@ -0,0 +1,299 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.ExcelConst;
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 编译后的Excel导出模板.
+ *
+ * <p>
+ *     模板为预先设置好样式的xlsx文件，取第一个sheet：
+ *     数据起始行中包含单元格 ${data} 的行为数据样式行，该单元格所在行、列即数据写入的起始行、列，
+ *     数据样式行各单元格的样式作为数据列样式；数据样式行之前为静态部分（标题、多级合并表头等），
+ *     之后为表尾，导出时表尾整体下移到数据之后.
+ *     单元格内容为 ${key} 形式的占位符，导出时替换为模型中key对应的值.
+ * </p>
+ * <p>
+ *     模板只解析一次：静态部分去除数据样式行和表尾后缓存为字节，表尾缓存为行快照，
+ *     同一模板可被多个线程同时用于导出.
+ * </p>
+ * @see ExcelTemplateExporter
+ * @author penghaohuan
+ */
+public final class ExcelTemplate {
+
+    /**
+     * 日志.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExcelTemplate.class);
+
+    /**
+     * 数据样式行标记.
+     */
+    static final String DATA_MARKER = placeholder(ExcelConst.DATA_MODEL_KEY);
+
+    /**
+     * 类路径模板缓存.
+     */
+    private static final ConcurrentMap<String, ExcelTemplate> CLASSPATH_TEMPLATES = new ConcurrentHashMap<>();
+
+    /**
+     * 去除数据样式行和表尾后的模板静态部分.
+     */
+    private final byte[] staticPart;
+
+    /**
+     * 数据起始行.
+     */
+    private final int firstRow;
+
+    /**
+     * 数据起始列.
+     */
+    private final int firstCol;
+
+    /**
+     * 数据样式行快照.
+     */
+    private final TemplateRow dataRow;
+
+    /**
+     * 表尾行快照.
+     */
+    private final List<TemplateRow> footerRows;
+
+    /**
+     * 表尾合并区域，行号相对表尾第一行.
+     */
+    private final List<CellRangeAddress> footerMerges;
+
+    private ExcelTemplate(final byte[] staticPart, final int firstRow, final int firstCol, final TemplateRow dataRow,
+                          final List<TemplateRow> footerRows, final List<CellRangeAddress> footerMerges) {
+        this.staticPart = staticPart;
+        this.firstRow = firstRow;
+        this.firstCol = firstCol;
+        this.dataRow = dataRow;
+        this.footerRows = footerRows;
+        this.footerMerges = footerMerges;
+    }
+
+    /**
+     * 编译模板.
+     * @param input 模板文件流，xlsx格式
+     * @return 编译后的模板
+     * @throws IOException 读取模板异常
+     * @throws ExcelTemplateException 模板中没有数据样式行
+     */
+    public static ExcelTemplate compile(final InputStream input) throws IOException, ExcelTemplateException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(input)) {
+            final XSSFSheet sheet = workbook.getSheetAt(0);
+            Cell marker = null;
+            for (int rowNum = sheet.getFirstRowNum(); marker == null && rowNum <= sheet.getLastRowNum(); rowNum++) {
+                final Row row = sheet.getRow(rowNum);
+                for (int col = 0; row != null && marker == null && col < row.getLastCellNum(); col++) {
+                    final Cell cell = row.getCell(col);
+                    if (cell != null && CellType.STRING == cell.getCellType() && DATA_MARKER.equals(cell.getStringCellValue().trim())) {
+                        marker = cell;
+                    }
+                }
+            }
+            if (marker == null) {
+                throw new ExcelTemplateException("文件模板错误，缺少数据标记：" + DATA_MARKER);
+            }
+            final int firstRow = marker.getRowIndex();
+            final TemplateRow dataRow = TemplateRow.of(sheet.getRow(firstRow));
+            final List<TemplateRow> footerRows = new ArrayList<>();
+            for (int rowNum = firstRow + 1; rowNum <= sheet.getLastRowNum(); rowNum++) {
+                footerRows.add(TemplateRow.of(sheet.getRow(rowNum)));
+            }
+
+            final List<CellRangeAddress> footerMerges = new ArrayList<>();
+            for (int i = sheet.getNumMergedRegions() - 1; i >= 0; i--) {
+                final CellRangeAddress region = sheet.getMergedRegion(i);
+                if (region.getLastRow() < firstRow) {
+                    continue;
+                }
+                if (region.getFirstRow() > firstRow) {
+                    footerMerges.add(new CellRangeAddress(region.getFirstRow() - firstRow - 1, region.getLastRow() - firstRow - 1,
+                            region.getFirstColumn(), region.getLastColumn()));
+                } else {
+                    LOGGER.warn("Merged region {} overlaps the data row of template, ignored.", region.formatAsString());
+                }
+                sheet.removeMergedRegion(i);
+            }
+            for (int rowNum = sheet.getLastRowNum(); rowNum >= firstRow; rowNum--) {
+                final Row row = sheet.getRow(rowNum);
+                if (row != null) {
+                    sheet.removeRow(row);
+                }
+            }
+
+            final ByteArrayOutputStream staticPart = new ByteArrayOutputStream();
+            workbook.write(staticPart);
+            return new ExcelTemplate(staticPart.toByteArray(), firstRow, marker.getColumnIndex(), dataRow,
+                    Collections.unmodifiableList(footerRows), Collections.unmodifiableList(footerMerges));
+        }
+    }
+
+    /**
+     * 从类路径加载模板，编译结果按路径缓存.
+     * @param path 类路径下的模板文件路径
+     * @return 编译后的模板
+     * @throws IOException 读取模板异常
+     * @throws ExcelTemplateException 模板不存在或格式错误
+     */
+    public static ExcelTemplate fromClasspath(final String path) throws IOException, ExcelTemplateException {
+        ExcelTemplate template = CLASSPATH_TEMPLATES.get(path);
+        if (template == null) {
+            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader() != null
+                    ? Thread.currentThread().getContextClassLoader() : ExcelTemplate.class.getClassLoader();
+            try (InputStream input = classLoader.getResourceAsStream(path)) {
+                if (input == null) {
+                    throw new ExcelTemplateException("模板文件不存在：" + path);
+                }
+                template = compile(input);
+            }
+            final ExcelTemplate previous = CLASSPATH_TEMPLATES.putIfAbsent(path, template);
+            template = previous == null ? template : previous;
+        }
+        return template;
+    }
+
+    /**
+     * 生成占位符.
+     * @param key 模型key
+     * @return 占位符
+     */
+    static String placeholder(final String key) {
+        return "${" + key + "}";
+    }
+
+    /**
+     * 加载模板静态部分，每次导出得到一个新的工作簿.
+     * @return 工作簿
+     * @throws IOException 读取异常
+     */
+    XSSFWorkbook openStaticPart() throws IOException {
+        return new XSSFWorkbook(new ByteArrayInputStream(staticPart));
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public int getFirstCol() {
+        return firstCol;
+    }
+
+    TemplateRow getDataRow() {
+        return dataRow;
+    }
+
+    List<TemplateRow> getFooterRows() {
+        return footerRows;
+    }
+
+    List<CellRangeAddress> getFooterMerges() {
+        return footerMerges;
+    }
+
+    /**
+     * 模板行快照.
+     */
+    static final class TemplateRow {
+
+        /**
+         * 行高，-1为默认行高.
+         */
+        private final short height;
+
+        /**
+         * 单元格样式下标，-1为无单元格.
+         */
+        private final int[] styles;
+
+        /**
+         * 单元格值：String、Double、Boolean，公式以 = 开头的String保存.
+         */
+        private final Object[] values;
+
+        private TemplateRow(final short height, final int[] styles, final Object[] values) {
+            this.height = height;
+            this.styles = styles;
+            this.values = values;
+        }
+
+        /**
+         * 生成行快照.
+         * @param row 行，可为null
+         * @return 行快照
+         */
+        static TemplateRow of(final Row row) {
+            if (row == null) {
+                return new TemplateRow((short) -1, new int[0], new Object[0]);
+            }
+            final int cellCount = Math.max(row.getLastCellNum(), 0);
+            final int[] styles = new int[cellCount];
+            final Object[] values = new Object[cellCount];
+            for (int col = 0; col < cellCount; col++) {
+                final Cell cell = row.getCell(col);
+                if (cell == null) {
+                    styles[col] = -1;
+                    continue;
+                }
+                styles[col] = cell.getCellStyle().getIndex() & 0xFFFF;
+                switch (cell.getCellType()) {
+                    case STRING:
+                        values[col] = cell.getStringCellValue();
+                        break;
+                    case NUMERIC:
+                        values[col] = cell.getNumericCellValue();
+                        break;
+                    case BOOLEAN:
+                        values[col] = cell.getBooleanCellValue();
+                        break;
+                    case FORMULA:
+                        values[col] = "=" + cell.getCellFormula();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return new TemplateRow(row.getHeight(), styles, values);
+        }
+
+        short getHeight() {
+            return height;
+        }
+
+        int getCellCount() {
+            return styles.length;
+        }
+
+        int getStyle(final int col) {
+            return col < styles.length ? styles[col] : -1;
+        }
+
+        Object getValue(final int col) {
+            return col < values.length ? values[col] : null;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.ExcelConst;
+import com.penghaohuan.excel.dictionary.Dictionary;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.ExternSheetReferenceToken;
+import org.apache.poi.ss.formula.FormulaParser;
+import org.apache.poi.ss.formula.FormulaRenderer;
+import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.ptg.AreaPtgBase;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFEvaluationWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Excel 模板导出工具.
+ * 将实体数据流式写入预先设置好样式的模板，模板的使用方式见{@link ExcelTemplate}.
+ *
+ * <p>
+ *     导出模型（model）支持的key：
+ *     1. {@link ExcelConst#SHEET_NAME_MODEL_KEY} sheet名称
+ *     2. {@link ExcelConst#HEAD_MODEL_KEY} 表头列名（String[]或List），写入数据起始行的上一行；
+ *        同时有{@link ExcelConst#SUB_HEAD_MODEL_KEY}时，表头写入上两行、子表头写入上一行
+ *     3. {@link ExcelConst#MERGE_CELLS_MODEL_KEY} 静态部分追加的合并区域（如 A1:D1 的集合）
+ *     4. {@link ExcelConst#SETVALUE_OF_POINTS_MODEL_KEY} 按单元格地址设值（如 B2 -&gt; 值 的Map）
+ *     5. {@link ExcelConst#DATA_MODEL_KEY} 数据（Iterable或Iterator），未直接传入数据时使用
+ *     6. {@link ExcelConst#MERGE_FOR_DATA_MODEL_KEY} 数据区需要纵向合并连续相同值的属性名，
+ *        与注解中的mergeSame作用相同
+ *     7. 其余key用于替换模板中的 ${key} 占位符，如 ${title}、${titleContent}
+ * </p>
+ * <p>数据行写入SXSSF工作簿，内存中只保留最近的窗口行，数据源为Iterator时无需一次性加载全部数据.</p>
+ * @see ExcelTemplate
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public final class ExcelTemplateExporter<T> {
+
+    /**
+     * 日志.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExcelTemplateExporter.class);
+
+    /**
+     * SXSSF内存中保留的行数.
+     */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    /**
+     * 导出属性列表.
+     */
+    private final List<ExportField> fields;
+
+    /**
+     * 构造.
+     * @param clazz 实体类型
+     */
+    public ExcelTemplateExporter(final Class<T> clazz) {
+        this.fields = ExcelExporter.initFields(clazz);
+    }
+
+    /**
+     * 按模板导出，数据取自模型中的{@link ExcelConst#DATA_MODEL_KEY}.
+     * @param template 编译后的模板
+     * @param model 导出模型
+     * @param output java输出流
+     * @throws IOException 响应流输出异常
+     */
+    @SuppressWarnings("unchecked")
+    public void exportExcel(final ExcelTemplate template, final Map<String, Object> model, final OutputStream output) throws IOException {
+        final Object data = model.get(ExcelConst.DATA_MODEL_KEY);
+        final Iterator<T> iterator;
+        if (data instanceof Iterable) {
+            iterator = ((Iterable<T>) data).iterator();
+        } else if (data instanceof Iterator) {
+            iterator = (Iterator<T>) data;
+        } else {
+            iterator = Collections.emptyIterator();
+        }
+        exportExcel(template, model, iterator, output);
+    }
+
+    /**
+     * 按模板导出.
+     * @param template 编译后的模板
+     * @param model 导出模型
+     * @param data 数据
+     * @param output java输出流
+     * @throws IOException 响应流输出异常
+     */
+    public void exportExcel(final ExcelTemplate template, final Map<String, Object> model, final Iterator<T> data,
+                            final OutputStream output) throws IOException {
+        final Dictionary[] dictionaries = ExcelExporter.resolveDictionaries(fields);
+        final XSSFWorkbook staticPart = template.openStaticPart();
+        SXSSFWorkbook workbook = null;
+        try {
+            fillStaticPart(template, staticPart.getSheetAt(0), model);
+            workbook = new SXSSFWorkbook(staticPart, ROW_ACCESS_WINDOW);
+            final Sheet sheet = workbook.getSheetAt(0);
+            final ExcelTemplate.TemplateRow dataRow = template.getDataRow();
+            final CellStyle[] styles = new CellStyle[fields.size()];
+            for (int j = 0; j < fields.size(); j++) {
+                final int style = dataRow.getStyle(template.getFirstCol() + j);
+                styles[j] = style < 0 ? null : workbook.getCellStyleAt(style);
+            }
+
+            final VerticalMerger merger = VerticalMerger.of(fields, toList(model.get(ExcelConst.MERGE_FOR_DATA_MODEL_KEY)),
+                    template.getFirstCol());
+            final Object[] values = new Object[fields.size()];
+            int rowNum = template.getFirstRow();
+            while (data.hasNext()) {
+                final T vo = data.next();
+                final Row row = sheet.createRow(rowNum++);
+                row.setHeight(dataRow.getHeight());
+                for (int j = 0; j < fields.size(); j++) {
+                    final Cell cell = row.createCell(template.getFirstCol() + j);
+                    if (styles[j] != null) {
+                        cell.setCellStyle(styles[j]);
+                    }
+                    try {
+                        values[j] = ExcelExporter.translate(dictionaries[j], fields.get(j).getValue(vo));
+                        setCellValue(cell, values[j]);
+                    } catch (final IllegalAccessException | IllegalArgumentException e) {
+                        values[j] = null;
+                        LOGGER.error(e.getMessage(), e);
+                    }
+                }
+                if (merger != null) {
+                    merger.addRow(row.getRowNum(), values);
+                }
+            }
+            if (merger != null) {
+                merger.finish(sheet);
+            }
+            writeFooter(template, workbook, sheet, Math.max(rowNum - template.getFirstRow(), 1), model);
+
+            workbook.write(output);
+            output.flush();
+        } finally {
+            if (workbook != null) {
+                workbook.dispose();
+                workbook.close(); // 同时关闭静态部分
+            } else {
+                staticPart.close();
+            }
+        }
+    }
+
+    /**
+     * 填充模板静态部分.
+     * @param template 模板
+     * @param sheet 静态部分sheet
+     * @param model 导出模型
+     */
+    private void fillStaticPart(final ExcelTemplate template, final XSSFSheet sheet, final Map<String, Object> model) {
+        final Object sheetName = model.get(ExcelConst.SHEET_NAME_MODEL_KEY);
+        if (sheetName != null) {
+            sheet.getWorkbook().setSheetName(0, String.valueOf(sheetName));
+        }
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                if (cell.getCellType() == CellType.STRING) {
+                    final Object value = resolvePlaceholder(cell.getStringCellValue(), model);
+                    if (value != null) {
+                        setCellValue(cell, value);
+                    }
+                }
+            }
+        }
+
+        final List<String> subHead = toList(model.get(ExcelConst.SUB_HEAD_MODEL_KEY));
+        final List<String> head = toList(model.get(ExcelConst.HEAD_MODEL_KEY));
+        if (!subHead.isEmpty()) {
+            writeHead(sheet, template.getFirstRow() - 1, template.getFirstCol(), subHead);
+            writeHead(sheet, template.getFirstRow() - 2, template.getFirstCol(), head);
+        } else {
+            writeHead(sheet, template.getFirstRow() - 1, template.getFirstCol(), head);
+        }
+
+        final Object points = model.get(ExcelConst.SETVALUE_OF_POINTS_MODEL_KEY);
+        if (points instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) points).entrySet()) {
+                final CellReference reference = new CellReference(String.valueOf(entry.getKey()));
+                final Row row = sheet.getRow(reference.getRow()) == null ? sheet.createRow(reference.getRow()) : sheet.getRow(reference.getRow());
+                final Cell cell = row.getCell(reference.getCol()) == null ? row.createCell(reference.getCol()) : row.getCell(reference.getCol());
+                setCellValue(cell, entry.getValue());
+            }
+        }
+
+        for (String region : toList(model.get(ExcelConst.MERGE_CELLS_MODEL_KEY))) {
+            sheet.addMergedRegion(CellRangeAddress.valueOf(region));
+        }
+    }
+
+    /**
+     * 写入表头.
+     * @param sheet sheet
+     * @param rowNum 行号
+     * @param firstCol 起始列
+     * @param head 表头列名
+     */
+    private void writeHead(final Sheet sheet, final int rowNum, final int firstCol, final List<String> head) {
+        if (rowNum < 0 || head.isEmpty()) {
+            return;
+        }
+        final Row row = sheet.getRow(rowNum) == null ? sheet.createRow(rowNum) : sheet.getRow(rowNum);
+        for (int j = 0; j < head.size(); j++) {
+            final Cell cell = row.getCell(firstCol + j) == null ? row.createCell(firstCol + j) : row.getCell(firstCol + j);
+            cell.setCellValue(head.get(j));
+        }
+    }
+
+    /**
+     * 在数据之后写入表尾.
+     * 没有数据时保留一个空的数据行，避免表尾公式引用到自身.
+     * @param template 模板
+     * @param workbook 工作簿
+     * @param sheet sheet
+     * @param dataRows 数据区行数
+     * @param model 导出模型
+     */
+    private void writeFooter(final ExcelTemplate template, final SXSSFWorkbook workbook, final Sheet sheet, final int dataRows,
+                             final Map<String, Object> model) {
+        final int startRow = template.getFirstRow() + dataRows;
+        final List<ExcelTemplate.TemplateRow> footerRows = template.getFooterRows();
+        for (int i = 0; i < footerRows.size(); i++) {
+            final ExcelTemplate.TemplateRow footer = footerRows.get(i);
+            final Row row = sheet.createRow(startRow + i);
+            row.setHeight(footer.getHeight());
+            for (int col = 0; col < footer.getCellCount(); col++) {
+                if (footer.getStyle(col) < 0) {
+                    continue;
+                }
+                final Cell cell = row.createCell(col);
+                cell.setCellStyle(workbook.getCellStyleAt(footer.getStyle(col)));
+                final Object value = footer.getValue(col);
+                if (value instanceof String && ((String) value).startsWith("=")) {
+                    cell.setCellFormula(shiftFormula(workbook, ((String) value).substring(1), template.getFirstRow(), dataRows));
+                } else if (value instanceof String) {
+                    final Object resolved = resolvePlaceholder((String) value, model);
+                    setCellValue(cell, resolved == null ? value : resolved);
+                } else if (value != null) {
+                    setCellValue(cell, value);
+                }
+            }
+        }
+        for (CellRangeAddress region : template.getFooterMerges()) {
+            sheet.addMergedRegion(new CellRangeAddress(region.getFirstRow() + startRow, region.getLastRow() + startRow,
+                    region.getFirstColumn(), region.getLastColumn()));
+        }
+    }
+
+    /**
+     * 按写入的数据行数调整表尾公式中本sheet的引用.
+     * 模板中止于数据样式行的区域扩展到整个数据区，如 SUM(C3:C3) 写入10行后为 SUM(C3:C12)；
+     * 数据样式行之后的引用（表尾之间的引用）随表尾下移；数据样式行之前的引用与其他sheet的引用不变.
+     * @param workbook 工作簿
+     * @param formula 模板中的公式（不含=）
+     * @param dataRow 数据样式行
+     * @param dataRows 数据区行数
+     * @return 调整后的公式
+     */
+    private static String shiftFormula(final SXSSFWorkbook workbook, final String formula, final int dataRow, final int dataRows) {
+        final SXSSFEvaluationWorkbook evaluationWorkbook = SXSSFEvaluationWorkbook.create(workbook);
+        final Ptg[] ptgs = FormulaParser.parse(formula, evaluationWorkbook, FormulaType.CELL, 0);
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof Pxg || ptg instanceof ExternSheetReferenceToken) {
+                continue;
+            }
+            if (ptg instanceof RefPtgBase) {
+                final RefPtgBase ref = (RefPtgBase) ptg;
+                ref.setRow(shiftRow(ref.getRow(), dataRow, dataRows, false));
+            } else if (ptg instanceof AreaPtgBase) {
+                final AreaPtgBase area = (AreaPtgBase) ptg;
+                if (area.getFirstRow() == 0 && area.getLastRow() == SpreadsheetVersion.EXCEL2007.getLastRowIndex()) {
+                    continue; // 整列引用
+                }
+                area.setFirstRow(shiftRow(area.getFirstRow(), dataRow, dataRows, false));
+                area.setLastRow(shiftRow(area.getLastRow(), dataRow, dataRows, true));
+            }
+        }
+        return FormulaRenderer.toFormulaString(evaluationWorkbook, ptgs);
+    }
+
+    /**
+     * 计算模板行号在数据区展开后的行号.
+     * 数据区之前的行不变，数据区之后的行下移dataRows - 1行；
+     * 引用模板数据行本身时，区域的首行仍指向第一条数据，区域的末行指向最后一条数据，使SUM(B5:B5)这类公式覆盖整个数据区.
+     * @param row 模板中的行号
+     * @param dataRow 模板数据行的行号
+     * @param dataRows 数据区行数
+     * @param last 是否为区域引用的末行；单元格引用与区域首行传false
+     * @return 展开后的行号
+     */
+    private static int shiftRow(final int row, final int dataRow, final int dataRows, final boolean last) {
+        if (row < dataRow) {
+            return row;
+        }
+        if (row == dataRow) {
+            return last ? dataRow + dataRows - 1 : dataRow;
+        }
+        return row + dataRows - 1;
+    }
+
+    /**
+     * 解析占位符.
+     * @param text 单元格文本
+     * @param model 导出模型
+     * @return 占位符对应的值，非占位符或模型中没有时返回null
+     */
+    private Object resolvePlaceholder(final String text, final Map<String, Object> model) {
+        final String value = text.trim();
+        if (value.length() < 4 || !value.startsWith("${") || !value.endsWith("}")) {
+            return null;
+        }
+        return model.get(value.substring(2, value.length() - 1));
+    }
+
+    /**
+     * 按值的类型设置单元格.
+     * @param cell 单元格
+     * @param value 值
+     */
+    private void setCellValue(final Cell cell, final Object value) {
+        if (value == null) {
+            cell.setCellValue("");
+        } else if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else if (value instanceof Calendar) {
+            cell.setCellValue((Calendar) value);
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else {
+            cell.setCellValue(String.valueOf(value));
+        }
+    }
+
+    /**
+     * 模型值转换为字符串列表.
+     * @param value String[]或集合
+     * @return 字符串列表
+     */
+    private List<String> toList(final Object value) {
+        if (value instanceof String[]) {
+            return Arrays.asList((String[]) value);
+        }
+        if (value instanceof Collection) {
+            final List<String> list = new ArrayList<>(((Collection<?>) value).size());
+            for (Object item : (Collection<?>) value) {
+                list.add(String.valueOf(item));
+            }
+            return list;
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,70 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+import com.penghaohuan.excel.mapper.RowWriter;
+
+import java.lang.reflect.Field;
+
+/**
+ * 导出属性描述.
+ * 在构造导出器时一次性解析好属性与注解，导出过程中只读.
+ * 有编译期生成的行读取器时通过读取器取值，否则使用反射.
+ * @author penghaohuan
+ */
+final class ExportField {
+
+    /**
+     * 属性下标.
+     */
+    private final int index;
+
+    /**
+     * 属性.
+     */
+    private final Field field;
+
+    /**
+     * 属性注解.
+     */
+    private final ExportExcelDesc desc;
+
+    /**
+     * 生成的行读取器，未生成时为null.
+     */
+    private final RowWriter<Object> writer;
+
+    /**
+     * 属性在行读取器中的下标.
+     */
+    private final int writerIndex;
+
+    ExportField(final int index, final Field field, final ExportExcelDesc desc, final RowWriter<Object> writer, final int writerIndex) {
+        this.index = index;
+        this.field = field;
+        this.desc = desc;
+        this.writer = writer;
+        this.writerIndex = writerIndex;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    ExportExcelDesc getDesc() {
+        return desc;
+    }
+
+    /**
+     * 读取实体的属性值.
+     * @param entity 实体
+     * @return 属性值
+     * @throws IllegalAccessException 属性不可访问
+     */
+    Object getValue(final Object entity) throws IllegalAccessException {
+        return writer == null ? field.get(entity) : writer.get(entity, writerIndex);
+    }
+}
@@ -0,0 +1,254 @@
+package com.penghaohuan.excel.handler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 导出流水线.
+ * 生产线程从{@link PageSupplier}逐页取数放入有界队列，写入线程通过迭代器逐行取出转换并写入工作簿，
+ * 查询与序列化并行进行.
+ *
+ * <p>
+ *     队列满时生产线程阻塞，形成背压，内存中最多保留队列容量+2页数据.
+ *     生产线程异常时写入线程在取到结束标志后抛出；写入线程异常或被中断时调用{@link #cancel()}，
+ *     清空队列并中断生产线程.
+ * </p>
+ * <p>
+ *     生产线程必须运行在写入线程之外：在写入线程中直接运行（如CallerRunsPolicy）时队列写满即死锁，
+ *     此时生产线程不取数并以异常结束；执行器在{@link #PRODUCER_START_TIMEOUT_SECONDS}秒内未启动生产线程时同样以异常结束.
+ * </p>
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+final class ExportPipeline<T> implements Runnable, Iterator<T> {
+
+    /**
+     * 生产线程启动的最长等待时间（秒）.
+     */
+    static final long PRODUCER_START_TIMEOUT_SECONDS = 60;
+
+    /**
+     * 结束标志.
+     */
+    private static final List<Object> END = Collections.emptyList();
+
+    /**
+     * 分页数据来源.
+     */
+    private final PageSupplier<T> supplier;
+
+    /**
+     * 待写入的页.
+     */
+    private final BlockingQueue<List<?>> pages;
+
+    /**
+     * 写入线程，即创建流水线的线程.
+     */
+    private final Thread consumer;
+
+    /**
+     * 状态，生产线程与取消通过CAS切换.
+     */
+    private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
+
+    /**
+     * 生产线程，状态为RUNNING前写入，之后只在取消时读取.
+     */
+    private Thread producer;
+
+    /**
+     * 生产线程的异常.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * 当前页.
+     */
+    private Iterator<?> current = Collections.emptyIterator();
+
+    /**
+     * 是否已取到结束标志.
+     */
+    private boolean ended;
+
+    /**
+     * 构造，当前线程为写入线程.
+     * @param supplier 分页数据来源
+     * @param queuePages 队列容量（页）
+     */
+    ExportPipeline(final PageSupplier<T> supplier, final int queuePages) {
+        this.supplier = supplier;
+        this.pages = new ArrayBlockingQueue<>(Math.max(queuePages, 1));
+        this.consumer = Thread.currentThread();
+    }
+
+    /**
+     * 生产线程：逐页取数放入队列.
+     */
+    @Override
+    public void run() {
+        producer = Thread.currentThread();
+        if (!state.compareAndSet(State.NEW, State.RUNNING)) {
+            return; // 启动前已取消
+        }
+        try {
+            if (producer == consumer) {
+                throw new IOException("Export producer must not run on the exporting thread");
+            }
+            while (state.get() == State.RUNNING) {
+                final List<T> page = supplier.nextPage();
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+                pages.put(page);
+            }
+        } catch (final InterruptedException e) {
+            failure = new InterruptedIOException("Export producer interrupted"); // 取消时不会被读取
+        } catch (final Throwable e) {
+            failure = e;
+        }
+        if (!state.compareAndSet(State.RUNNING, State.FINISHED)) {
+            while (state.get() == State.CANCELLING) {
+                Thread.yield(); // 等待取消的中断送达，避免中断泄漏到执行器的下一个任务
+            }
+            Thread.interrupted();
+            return;
+        }
+        try {
+            pages.put(END); // 此后不会再被中断，队列满时等待写入线程取出或取消时清空
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (ended) {
+                return false;
+            }
+            final List<?> page;
+            try {
+                page = nextPage();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new PipelineException(new InterruptedIOException("Export cancelled"));
+            }
+            if (page == END) {
+                ended = true;
+                if (failure != null) {
+                    throw new PipelineException(failure);
+                }
+                return false;
+            }
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return (T) current.next();
+    }
+
+    /**
+     * 取出下一页，生产线程启动后一直等待，未启动时最多等待{@link #PRODUCER_START_TIMEOUT_SECONDS}秒.
+     * @return 页或结束标志
+     * @throws InterruptedException 写入线程被中断
+     */
+    private List<?> nextPage() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PRODUCER_START_TIMEOUT_SECONDS);
+        while (true) {
+            final List<?> page = pages.poll(1, TimeUnit.SECONDS);
+            if (page != null) {
+                return page;
+            }
+            if (state.get() == State.NEW && System.nanoTime() - deadline > 0) {
+                cancel();
+                throw new PipelineException(new IOException("Export producer was not started within "
+                        + PRODUCER_START_TIMEOUT_SECONDS + " seconds"));
+            }
+        }
+    }
+
+    /**
+     * 取消，清空队列并中断生产线程.
+     * 只在生产线程取数期间中断；导出正常结束后调用无影响.
+     */
+    void cancel() {
+        if (state.compareAndSet(State.RUNNING, State.CANCELLING)) {
+            try {
+                producer.interrupt();
+            } finally {
+                state.set(State.CANCELLED);
+            }
+        } else {
+            state.compareAndSet(State.NEW, State.CANCELLED);
+        }
+        pages.clear();
+    }
+
+    /**
+     * 流水线状态.
+     */
+    private enum State {
+
+        /**
+         * 生产线程未启动.
+         */
+        NEW,
+
+        /**
+         * 生产线程取数中.
+         */
+        RUNNING,
+
+        /**
+         * 生产线程已取完或失败，只剩放入结束标志.
+         */
+        FINISHED,
+
+        /**
+         * 正在中断生产线程.
+         */
+        CANCELLING,
+
+        /**
+         * 已取消.
+         */
+        CANCELLED
+    }
+
+    /**
+     * 流水线异常，在写入线程中从迭代器抛出.
+     */
+    static final class PipelineException extends RuntimeException {
+
+        PipelineException(final Throwable cause) {
+            super(cause);
+        }
+
+        /**
+         * 转换为输出异常.
+         * @return 输出异常
+         */
+        IOException toIOException() {
+            return getCause() instanceof IOException ? (IOException) getCause()
+                    : new IOException("Export data supplier failed", getCause());
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package com.penghaohuan.excel.handler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * 导出行的外部归并排序.
+ * 行以排序键与单元格文本保存，内存中的行的估算字节数超过上限时排序后写入临时文件（一个有序段），
+ * 输出时对各有序段做多路归并，内存中每个有序段只保留当前行与读缓冲.
+ * 有序段超过{@link #MAX_MERGE_RUNS}个时先逐批归并为更大的有序段，同时打开的文件数有上限；
+ * 读写缓冲按内存上限与同时打开的有序段数分配，不随数据量增长.
+ * 排序键在加入时归一化为Long、Double、BigDecimal或String，比较时空值排在最后，相同的行按加入顺序输出.
+ * @author penghaohuan
+ */
+final class ExternalSorter implements Closeable {
+
+    /**
+     * 排序键类型：空值.
+     */
+    private static final byte NULL = 0;
+
+    /**
+     * 排序键类型：整数.
+     */
+    private static final byte LONG = 1;
+
+    /**
+     * 排序键类型：浮点数.
+     */
+    private static final byte DOUBLE = 2;
+
+    /**
+     * 排序键类型：精确小数.
+     */
+    private static final byte DECIMAL = 3;
+
+    /**
+     * 排序键类型：文本.
+     */
+    private static final byte STRING = 4;
+
+    /**
+     * 每行的估算固定开销.
+     */
+    private static final long ROW_OVERHEAD = 64;
+
+    /**
+     * 读写有序段的最大缓冲大小.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * 读写有序段的最小缓冲大小.
+     */
+    private static final int MIN_BUFFER_SIZE = 1 << 12;
+
+    /**
+     * 一次归并同时打开的最多有序段数.
+     */
+    static final int MAX_MERGE_RUNS = 64;
+
+    /**
+     * 行比较器.
+     */
+    private final Comparator<Record> comparator;
+
+    /**
+     * 内存中的行的估算字节数上限.
+     */
+    private final long maxBytesInMemory;
+
+    /**
+     * 内存中的行.
+     */
+    private final List<Record> buffer = new ArrayList<>();
+
+    /**
+     * 内存中的行的估算字节数.
+     */
+    private long bufferBytes;
+
+    /**
+     * 已写入的有序段.
+     */
+    private final List<File> runs = new ArrayList<>();
+
+    /**
+     * 行序号.
+     */
+    private long sequence;
+
+    /**
+     * 归并中打开的有序段.
+     */
+    private final List<RunReader> readers = new ArrayList<>();
+
+    /**
+     * 构造.
+     * @param ascending 各排序键是否升序
+     * @param maxBytesInMemory 内存中的行的估算字节数上限
+     */
+    ExternalSorter(final boolean[] ascending, final long maxBytesInMemory) {
+        this.maxBytesInMemory = maxBytesInMemory;
+        this.comparator = (a, b) -> {
+            for (int i = 0; i < ascending.length; i++) {
+                final int result = compareKey(a.keys[i], b.keys[i], ascending[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Long.compare(a.sequence, b.sequence);
+        };
+    }
+
+    /**
+     * 加入一行.
+     * @param keys 排序键，加入后归一化，数组由排序器持有
+     * @param cells 单元格文本，数组由排序器持有
+     * @throws IOException 写入临时文件异常
+     */
+    void add(final Object[] keys, final String[] cells) throws IOException {
+        long bytes = ROW_OVERHEAD;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = normalize(keys[i]);
+            bytes += 16 + (keys[i] instanceof String ? ((String) keys[i]).length() * 2L : 16);
+        }
+        for (String cell : cells) {
+            bytes += cell == null ? 8 : 48 + cell.length() * 2L;
+        }
+        buffer.add(new Record(keys, cells, sequence++));
+        bufferBytes += bytes;
+        if (bufferBytes > maxBytesInMemory) {
+            spill();
+        }
+    }
+
+    /**
+     * 按顺序输出所有行.
+     * 只能调用一次，迭代过程中的读取异常以{@link UncheckedIOException}抛出.
+     * @return 单元格文本
+     * @throws IOException 读写临时文件异常
+     */
+    Iterator<String[]> sorted() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(comparator);
+            final Iterator<Record> records = buffer.iterator();
+            return new Iterator<String[]>() {
+                @Override
+                public boolean hasNext() {
+                    return records.hasNext();
+                }
+
+                @Override
+                public String[] next() {
+                    return records.next().cells;
+                }
+            };
+        }
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        while (runs.size() > MAX_MERGE_RUNS) {
+            mergeBatch();
+        }
+        final PriorityQueue<RunReader> queue = openRuns(runs);
+        return new Iterator<String[]>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public String[] next() {
+                final RunReader reader = queue.poll();
+                if (reader == null) {
+                    throw new NoSuchElementException();
+                }
+                final String[] cells = reader.current.cells;
+                try {
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return cells;
+            }
+        };
+    }
+
+    /**
+     * 将最早的{@link #MAX_MERGE_RUNS}个有序段归并为一个有序段，追加在最后并删除原有序段.
+     * @throws IOException 读写临时文件异常
+     */
+    private void mergeBatch() throws IOException {
+        final List<File> batch = new ArrayList<>(runs.subList(0, MAX_MERGE_RUNS));
+        final File merged = File.createTempFile("excel-sort", ".run");
+        runs.add(merged);
+        try (DataOutputStream out = openOutput(merged, batch.size() + 1)) {
+            final PriorityQueue<RunReader> queue = openRuns(batch);
+            while (!queue.isEmpty()) {
+                final RunReader reader = queue.poll();
+                writeRecord(out, reader.current);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+        }
+        closeReaders();
+        for (File run : batch) {
+            Files.deleteIfExists(run.toPath());
+        }
+        runs.subList(0, MAX_MERGE_RUNS).clear();
+    }
+
+    /**
+     * 打开有序段并读取各段的第一行.
+     * @param files 有序段
+     * @return 按当前行排序的读取器，已读完的有序段不在其中
+     * @throws IOException 读取异常
+     */
+    private PriorityQueue<RunReader> openRuns(final List<File> files) throws IOException {
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(files.size(), (a, b) -> comparator.compare(a.current, b.current));
+        final int bufferSize = bufferSize(files.size());
+        for (File run : files) {
+            final RunReader reader = new RunReader(run, bufferSize);
+            readers.add(reader);
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * 打开有序段输出流.
+     * @param file 有序段
+     * @param streams 同时打开的有序段数
+     * @return 输出流
+     * @throws IOException 打开异常
+     */
+    private DataOutputStream openOutput(final File file, final int streams) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()), bufferSize(streams)));
+    }
+
+    /**
+     * 按内存上限计算读写缓冲大小.
+     * @param streams 同时打开的有序段数
+     * @return 缓冲大小
+     */
+    private int bufferSize(final int streams) {
+        return (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, maxBytesInMemory / Math.max(streams, 1)));
+    }
+
+    /**
+     * 删除临时文件.
+     * @throws IOException 删除异常
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        try {
+            closeReaders();
+        } catch (final IOException e) {
+            exception = e;
+        }
+        for (File run : runs) {
+            try {
+                Files.deleteIfExists(run.toPath());
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        runs.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 关闭归并中打开的有序段.
+     * @throws IOException 关闭异常
+     */
+    private void closeReaders() throws IOException {
+        IOException exception = null;
+        for (RunReader reader : readers) {
+            try {
+                reader.input.close();
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        readers.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 将内存中的行排序后写入临时文件.
+     * @throws IOException 写入异常
+     */
+    private void spill() throws IOException {
+        buffer.sort(comparator);
+        final File file = File.createTempFile("excel-sort", ".run");
+        runs.add(file);
+        try (DataOutputStream out = openOutput(file, 1)) {
+            for (Record record : buffer) {
+                writeRecord(out, record);
+            }
+        }
+        buffer.clear();
+        bufferBytes = 0;
+    }
+
+    /**
+     * 写入一行.
+     * @param out 输出流
+     * @param record 行
+     * @throws IOException 写入异常
+     */
+    private static void writeRecord(final DataOutputStream out, final Record record) throws IOException {
+        out.writeLong(record.sequence);
+        out.writeShort(record.keys.length);
+        for (Object key : record.keys) {
+            writeKey(out, key);
+        }
+        out.writeShort(record.cells.length);
+        for (String cell : record.cells) {
+            writeString(out, cell);
+        }
+    }
+
+    /**
+     * 归一化排序键.
+     * @param value 属性值
+     * @return Long、Double、BigDecimal、String或null
+     */
+    private static Object normalize(final Object value) {
+        if (value == null || value instanceof Long || value instanceof Double || value instanceof BigDecimal) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * 比较排序键，空值排在最后，类型不同时按类型排序.
+     * @param a 排序键
+     * @param b 排序键
+     * @param ascending 是否升序
+     * @return 比较结果
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKey(final Object a, final Object b, final boolean ascending) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? 1 : -1;
+        }
+        final int result = a.getClass() == b.getClass() ? ((Comparable) a).compareTo(b) : Integer.compare(tag(a), tag(b));
+        return ascending ? result : -result;
+    }
+
+    /**
+     * 获取排序键的类型.
+     * @param key 归一化的排序键
+     * @return 类型
+     */
+    private static byte tag(final Object key) {
+        if (key == null) {
+            return NULL;
+        }
+        if (key instanceof Long) {
+            return LONG;
+        }
+        if (key instanceof Double) {
+            return DOUBLE;
+        }
+        return key instanceof BigDecimal ? DECIMAL : STRING;
+    }
+
+    /**
+     * 写入排序键.
+     * @param out 输出流
+     * @param key 归一化的排序键
+     * @throws IOException 写入异常
+     */
+    private static void writeKey(final DataOutputStream out, final Object key) throws IOException {
+        final byte tag = tag(key);
+        out.writeByte(tag);
+        switch (tag) {
+            case LONG:
+                out.writeLong((Long) key);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) key);
+                break;
+            case DECIMAL:
+            case STRING:
+                writeString(out, key.toString());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 读取排序键.
+     * @param in 输入流
+     * @return 归一化的排序键
+     * @throws IOException 读取异常
+     */
+    private static Object readKey(final DataInputStream in) throws IOException {
+        switch (in.readByte()) {
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case DECIMAL:
+                return new BigDecimal(readString(in));
+            case STRING:
+                return readString(in);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 写入文本，UTF-8字节数为-1表示null.
+     * @param out 输出流
+     * @param text 文本
+     * @throws IOException 写入异常
+     */
+    private static void writeString(final DataOutputStream out, final String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取文本.
+     * @param in 输入流
+     * @return 文本
+     * @throws IOException 读取异常
+     */
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一行.
+     */
+    private static final class Record {
+
+        /**
+         * 归一化的排序键.
+         */
+        private final Object[] keys;
+
+        /**
+         * 单元格文本.
+         */
+        private final String[] cells;
+
+        /**
+         * 行序号.
+         */
+        private final long sequence;
+
+        Record(final Object[] keys, final String[] cells, final long sequence) {
+            this.keys = keys;
+            this.cells = cells;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 有序段读取器.
+     */
+    private static final class RunReader {
+
+        /**
+         * 输入流.
+         */
+        private final DataInputStream input;
+
+        /**
+         * 当前行.
+         */
+        private Record current;
+
+        RunReader(final File file, final int bufferSize) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), bufferSize));
+        }
+
+        /**
+         * 读取下一行.
+         * @return 是否还有行
+         * @throws IOException 读取异常
+         */
+        boolean advance() throws IOException {
+            final long sequence;
+            try {
+                sequence = input.readLong();
+            } catch (final EOFException e) {
+                current = null;
+                input.close();
+                return false;
+            }
+            final Object[] keys = new Object[input.readShort()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = readKey(input);
+            }
+            final String[] cells = new String[input.readShort()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = readString(input);
+            }
+            current = new Record(keys, cells, sequence);
+            return true;
+        }
+    }
+}
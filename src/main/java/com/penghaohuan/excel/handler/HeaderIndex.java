@@ -0,0 +1,140 @@
+package com.penghaohuan.excel.handler;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 表头索引.
+ * 表头解析一次后以规范化的列名建立哈希索引，属性绑定时按列名直接定位列，与列的顺序无关.
+ *
+ * <p>
+ *     多行表头时，每一列同时以末行列名和自上而下的表头路径建立索引，
+ *     路径各级以{@link #PATH_SEPARATOR}连接，如：联系方式 &gt; 电话。
+ *     列名规范化：去除首尾空白、全角字符转半角、英文字母转小写.
+ * </p>
+ * @author penghaohuan
+ */
+final class HeaderIndex {
+
+    /**
+     * 多级表头路径分隔符.
+     */
+    static final String PATH_SEPARATOR = ">";
+
+    /**
+     * 规范化列名-列索引映射.
+     */
+    private final Map<String, Integer> columns;
+
+    private HeaderIndex(final Map<String, Integer> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * 根据表头构建索引.
+     * @param headerRows 表头单元格文本，headerRows[行][列]，合并单元格需已填充为合并区域的值
+     * @return 表头索引
+     */
+    static HeaderIndex build(final String[][] headerRows) {
+        final Map<String, Integer> columns = new HashMap<>();
+        if (headerRows.length == 0) {
+            return new HeaderIndex(columns);
+        }
+        int columnCount = 0;
+        for (String[] row : headerRows) {
+            columnCount = Math.max(columnCount, row.length);
+        }
+        final Map<String, Integer> paths = new HashMap<>();
+        final StringBuilder path = new StringBuilder();
+        for (int col = 0; col < columnCount; col++) {
+            path.setLength(0);
+            String last = null;
+            for (String[] row : headerRows) {
+                final String text = col < row.length ? normalize(row[col]) : "";
+                if (text.isEmpty() || text.equals(last)) {
+                    continue; // 纵向合并的表头只计一级
+                }
+                if (path.length() > 0) {
+                    path.append(PATH_SEPARATOR);
+                }
+                path.append(text);
+                last = text;
+            }
+            if (last == null) {
+                continue;
+            }
+            final String leaf = normalize(headerRows[headerRows.length - 1].length > col ? headerRows[headerRows.length - 1][col] : null);
+            if (!leaf.isEmpty()) {
+                columns.putIfAbsent(leaf, col); // 列名重复时取第一列，与原有逻辑一致
+            }
+            paths.putIfAbsent(path.toString(), col);
+        }
+        columns.putAll(paths);
+        return new HeaderIndex(columns);
+    }
+
+    /**
+     * 获取列名对应的列索引.
+     * @param name 列名或表头路径
+     * @return 列索引，不存在时返回-1
+     */
+    int getColumn(final String name) {
+        final Integer col = columns.get(normalizePath(name));
+        return col == null ? -1 : col;
+    }
+
+    /**
+     * 表头是否为空.
+     * @return 是否为空
+     */
+    boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * 规范化表头路径，各级分别规范化.
+     * @param name 列名或表头路径
+     * @return 规范化结果
+     */
+    private static String normalizePath(final String name) {
+        if (name == null || !name.contains(PATH_SEPARATOR)) {
+            return normalize(name);
+        }
+        final StringBuilder path = new StringBuilder();
+        for (String part : StringUtils.split(name, PATH_SEPARATOR)) {
+            final String text = normalize(part);
+            if (text.isEmpty()) {
+                continue;
+            }
+            if (path.length() > 0) {
+                path.append(PATH_SEPARATOR);
+            }
+            path.append(text);
+        }
+        return path.toString();
+    }
+
+    /**
+     * 规范化列名.
+     * @param text 列名
+     * @return 规范化结果
+     */
+    static String normalize(final String text) {
+        if (text == null) {
+            return "";
+        }
+        final char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            final char c = chars[i];
+            if (c == '　') {
+                chars[i] = ' ';
+            } else if (c >= '！' && c <= '～') {
+                chars[i] = (char) (c - 0xFEE0);
+            }
+        }
+        return new String(chars).trim().toLowerCase(Locale.ROOT);
+    }
+}
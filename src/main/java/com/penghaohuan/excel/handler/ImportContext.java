@@ -0,0 +1,598 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.dictionary.Dictionary;
+import com.penghaohuan.excel.model.ColumnProfile;
+import com.penghaohuan.excel.model.DuplicateKey;
+import com.penghaohuan.excel.model.DuplicatePolicy;
+import com.penghaohuan.excel.model.ImportCheckpoint;
+import com.penghaohuan.excel.model.ImportRow;
+import com.penghaohuan.excel.model.ValidationError;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单次导入的上下文.
+ * 保存一次导入过程中的全部可变状态，导入器本身只持有只读的元数据，因此可在多线程间共享.
+ * @author penghaohuan
+ */
+final class ImportContext implements Closeable {
+
+    /**
+     * 表头行数.
+     */
+    private final int headRowNumbers;
+
+    /**
+     * 表头单元格文本，[行][列].
+     */
+    private final String[][] headerRows;
+
+    /**
+     * 列与导入属性的对应关系，读到第一行数据时构建.
+     */
+    private Map<Integer, ImportField> fieldsMap;
+
+    /**
+     * 下一个待导入的行号.
+     */
+    private int nextRowNum;
+
+    /**
+     * 第一个待导入的数据行号，续传时为断点的下一行.
+     */
+    private int firstDataRowNum;
+
+    /**
+     * 读取行号上限（不含），达到后停止读取.
+     */
+    private int endRowNum = Integer.MAX_VALUE;
+
+    /**
+     * 连续空行数上限，0表示不限制.
+     */
+    private int maxConsecutiveBlankRows;
+
+    /**
+     * 当前连续空行数.
+     */
+    private int consecutiveBlankRows;
+
+    /**
+     * 跳过的空行数.
+     */
+    private int blankRowCount;
+
+    /**
+     * 非空数据行数.
+     */
+    private int dataRowCount;
+
+    /**
+     * 最后一行数据的行号，从0开始，没有数据时为-1.
+     */
+    private int lastDataRowNum = -1;
+
+    /**
+     * 是否因连续空行达到上限而停止读取.
+     */
+    private boolean stoppedOnBlankRows;
+
+    /**
+     * 关键字段重复时的处理策略.
+     */
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.ALLOW;
+
+    /**
+     * 关键字段指纹集合，不检查重复时为null.
+     */
+    private KeyFingerprintSet keySet;
+
+    /**
+     * 重复的关键字段.
+     */
+    private final List<DuplicateKey> duplicates = new ArrayList<>();
+
+    /**
+     * 文件摘要，不记录断点时为null.
+     */
+    private String fileDigest;
+
+    /**
+     * 断点间隔行数，0表示只在导入结束时记录断点.
+     */
+    private int checkpointInterval;
+
+    /**
+     * 已提交的数据行数.
+     */
+    private int committedRowCount;
+
+    /**
+     * 最后提交的行号，从0开始.
+     */
+    private int lastCommittedRowNum = -1;
+
+    /**
+     * 最近一次断点时已提交的数据行数.
+     */
+    private int checkpointRowCount;
+
+    /**
+     * 批量校验器，不进行批量校验时为null.
+     */
+    private BatchValidator<Object> batchValidator;
+
+    /**
+     * 批量校验每批的行数.
+     */
+    private int validateChunkSize;
+
+    /**
+     * 等待批量校验的行.
+     */
+    private final List<ImportRow<Object>> pendingRows = new ArrayList<>();
+
+    /**
+     * 等待批量校验的行中，属性校验已通过的行.
+     */
+    private final BitSet pendingValid = new BitSet();
+
+    /**
+     * 属性的字典，下标与导入属性一致，没有字典时为null.
+     */
+    private final Dictionary[] dictionaries;
+
+    /**
+     * 结构化的校验错误.
+     */
+    private final List<ValidationError> validationErrors = new ArrayList<>();
+
+    /**
+     * 一行的属性值，逐行复用.
+     */
+    private final Object[] values;
+
+    /**
+     * 属性校验实例，下标与导入属性一致.
+     */
+    private final Object[] fieldValidators;
+
+    /**
+     * 行校验实例.
+     */
+    private Object rowValidator;
+
+    /**
+     * 样式格式缓存，下标为单元格样式下标.
+     */
+    private CellStyleFormat[] styleFormats = new CellStyleFormat[64];
+
+    /**
+     * 校验异常信息.
+     */
+    private final List<String> validateMessages = new LinkedList<>();
+
+    /**
+     * 增量导入时上次导入的快照，为null时不是增量导入.
+     */
+    private ImportSnapshot previousSnapshot;
+
+    /**
+     * 增量导入时本次导入的快照.
+     */
+    private ImportSnapshot snapshot;
+
+    /**
+     * 本次文件中出现的上次快照条目.
+     */
+    private BitSet seenKeys;
+
+    /**
+     * 参与内容哈希的列，递增.
+     */
+    private int[] deltaColumns;
+
+    /**
+     * 关键字段所在的列，递增.
+     */
+    private int[] deltaKeyColumns;
+
+    /**
+     * 新增的行数.
+     */
+    private int insertedRowCount;
+
+    /**
+     * 变化的行数.
+     */
+    private int updatedRowCount;
+
+    /**
+     * 未变化而跳过的行数.
+     */
+    private int unchangedRowCount;
+
+    /**
+     * 各导入属性的列统计器，下标与导入属性一致；未开启统计时为null.
+     */
+    private ColumnProfiler[] profilers;
+
+    ImportContext(final int headRowNumbers, final int fieldCount) {
+        this.headRowNumbers = headRowNumbers;
+        this.headerRows = new String[headRowNumbers][];
+        this.firstDataRowNum = headRowNumbers;
+        this.fieldValidators = new Object[fieldCount];
+        this.values = new Object[fieldCount];
+        this.dictionaries = new Dictionary[fieldCount];
+    }
+
+    int getHeadRowNumbers() {
+        return headRowNumbers;
+    }
+
+    String[][] getHeaderRows() {
+        return headerRows;
+    }
+
+    void setHeaderRow(final int rowNum, final String[] header) {
+        headerRows[rowNum] = header;
+    }
+
+    Map<Integer, ImportField> getFieldsMap() {
+        return fieldsMap;
+    }
+
+    void setFieldsMap(final Map<Integer, ImportField> fieldsMap) {
+        this.fieldsMap = fieldsMap;
+    }
+
+    int getNextRowNum() {
+        return nextRowNum;
+    }
+
+    void setNextRowNum(final int nextRowNum) {
+        this.nextRowNum = nextRowNum;
+    }
+
+    int getFirstDataRowNum() {
+        return firstDataRowNum;
+    }
+
+    void setFirstDataRowNum(final int firstDataRowNum) {
+        this.firstDataRowNum = firstDataRowNum;
+    }
+
+    int getEndRowNum() {
+        return endRowNum;
+    }
+
+    void setEndRowNum(final int endRowNum) {
+        this.endRowNum = endRowNum;
+    }
+
+    void setMaxConsecutiveBlankRows(final int maxConsecutiveBlankRows) {
+        this.maxConsecutiveBlankRows = maxConsecutiveBlankRows;
+    }
+
+    /**
+     * 记录空行.
+     * @param count 空行数
+     * @return 是否继续读取，连续空行达到上限时返回false
+     */
+    boolean addBlankRows(final int count) {
+        blankRowCount += count;
+        consecutiveBlankRows += count;
+        if (maxConsecutiveBlankRows > 0 && consecutiveBlankRows >= maxConsecutiveBlankRows) {
+            stoppedOnBlankRows = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录非空数据行.
+     * @param rowNum 行号
+     */
+    void addDataRow(final int rowNum) {
+        consecutiveBlankRows = 0;
+        dataRowCount++;
+        lastDataRowNum = rowNum;
+    }
+
+    int getBlankRowCount() {
+        return blankRowCount;
+    }
+
+    int getDataRowCount() {
+        return dataRowCount;
+    }
+
+    int getLastDataRowNum() {
+        return lastDataRowNum;
+    }
+
+    boolean isStoppedOnBlankRows() {
+        return stoppedOnBlankRows;
+    }
+
+    DuplicatePolicy getDuplicatePolicy() {
+        return duplicatePolicy;
+    }
+
+    KeyFingerprintSet getKeySet() {
+        return keySet;
+    }
+
+    /**
+     * 开启关键字段重复检查.
+     * @param duplicatePolicy 处理策略
+     * @param maxKeysInMemory 内存中保留的指纹数上限
+     */
+    void checkDuplicates(final DuplicatePolicy duplicatePolicy, final int maxKeysInMemory) {
+        this.duplicatePolicy = duplicatePolicy;
+        this.keySet = new KeyFingerprintSet(maxKeysInMemory);
+    }
+
+    List<DuplicateKey> getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * 开启断点记录.
+     * @param fileDigest 文件摘要
+     * @param checkpointInterval 断点间隔行数
+     */
+    void setCheckpoint(final String fileDigest, final int checkpointInterval) {
+        this.fileDigest = fileDigest;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * 记录已提交的行.
+     * @param rowNum 行号
+     * @return 是否达到断点间隔
+     */
+    boolean commitRow(final int rowNum) {
+        committedRowCount++;
+        lastCommittedRowNum = rowNum;
+        return checkpointInterval > 0 && committedRowCount % checkpointInterval == 0;
+    }
+
+    /**
+     * 上次断点后是否有新提交的行.
+     * @return 是否有新提交的行
+     */
+    boolean hasRowsSinceCheckpoint() {
+        return committedRowCount > checkpointRowCount;
+    }
+
+    /**
+     * 生成断点.
+     * @return 断点
+     */
+    ImportCheckpoint checkpoint() {
+        checkpointRowCount = committedRowCount;
+        return new ImportCheckpoint(fileDigest, lastCommittedRowNum + 1, committedRowCount);
+    }
+
+    BatchValidator<Object> getBatchValidator() {
+        return batchValidator;
+    }
+
+    /**
+     * 开启批量校验.
+     * @param batchValidator 批量校验器
+     * @param validateChunkSize 每批的行数
+     */
+    @SuppressWarnings("unchecked")
+    void setBatchValidator(final BatchValidator<?> batchValidator, final int validateChunkSize) {
+        this.batchValidator = (BatchValidator<Object>) batchValidator;
+        this.validateChunkSize = Math.max(validateChunkSize, 1);
+    }
+
+    /**
+     * 加入等待批量校验的行.
+     * @param entity 实体
+     * @param rowNumber 行号，从1开始
+     * @param valid 属性校验是否已通过
+     * @return 是否已满一批
+     */
+    boolean addPendingRow(final Object entity, final int rowNumber, final boolean valid) {
+        pendingValid.set(pendingRows.size(), valid);
+        pendingRows.add(new ImportRow<>(entity, rowNumber));
+        return pendingRows.size() >= validateChunkSize;
+    }
+
+    List<ImportRow<Object>> getPendingRows() {
+        return pendingRows;
+    }
+
+    boolean isPendingValid(final int index) {
+        return pendingValid.get(index);
+    }
+
+    void clearPendingRows() {
+        pendingRows.clear();
+        pendingValid.clear();
+    }
+
+    Dictionary getDictionary(final int index) {
+        return dictionaries[index];
+    }
+
+    void setDictionary(final int index, final Dictionary dictionary) {
+        dictionaries[index] = dictionary;
+    }
+
+    List<ValidationError> getValidationErrors() {
+        return validationErrors;
+    }
+
+    /**
+     * 清空并返回一行的属性值数组.
+     * @return 属性值数组
+     */
+    Object[] resetValues() {
+        Arrays.fill(values, null);
+        return values;
+    }
+
+    Object getFieldValidator(final int index) {
+        return fieldValidators[index];
+    }
+
+    void setFieldValidator(final int index, final Object validator) {
+        fieldValidators[index] = validator;
+    }
+
+    Object getRowValidator() {
+        return rowValidator;
+    }
+
+    void setRowValidator(final Object rowValidator) {
+        this.rowValidator = rowValidator;
+    }
+
+    CellStyleFormat getStyleFormat(final int styleIndex) {
+        return styleIndex < styleFormats.length ? styleFormats[styleIndex] : null;
+    }
+
+    void putStyleFormat(final int styleIndex, final CellStyleFormat styleFormat) {
+        if (styleIndex >= styleFormats.length) {
+            styleFormats = Arrays.copyOf(styleFormats, Math.max(styleIndex + 1, styleFormats.length * 2));
+        }
+        styleFormats[styleIndex] = styleFormat;
+    }
+
+    List<String> getValidateMessages() {
+        return validateMessages;
+    }
+
+    /**
+     * 开启增量导入.
+     * @param previous 上次导入的快照
+     */
+    void setDelta(final ImportSnapshot previous) {
+        this.previousSnapshot = previous;
+        this.snapshot = new ImportSnapshot(Math.max(previous.size(), 1024));
+        this.seenKeys = new BitSet(previous.size());
+    }
+
+    boolean isDelta() {
+        return previousSnapshot != null;
+    }
+
+    /**
+     * 根据属性与列的对应关系初始化增量导入的列.
+     * @param fieldsMap 列与属性的对应关系
+     */
+    void initDeltaColumns(final Map<Integer, ImportField> fieldsMap) {
+        deltaColumns = fieldsMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        deltaKeyColumns = Arrays.stream(deltaColumns).filter(column -> fieldsMap.get(column).getDesc().keyAttr()).toArray();
+    }
+
+    int[] getDeltaColumns() {
+        return deltaColumns;
+    }
+
+    int[] getDeltaKeyColumns() {
+        return deltaKeyColumns;
+    }
+
+    /**
+     * 记录一行的关键字段与内容哈希，并与上次快照比较.
+     * @param keyText 关键字段文本
+     * @param hash 内容哈希
+     * @return 是否新增或变化
+     */
+    boolean putDeltaRow(final String keyText, final long hash) {
+        final long key = ImportSnapshot.fingerprint(keyText);
+        snapshot.put(key, keyText, hash);
+        final int index = previousSnapshot.indexOf(key);
+        if (index == ImportSnapshot.MISSING) {
+            insertedRowCount++;
+            return true;
+        }
+        seenKeys.set(index);
+        if (previousSnapshot.getHash(index) == hash) {
+            unchangedRowCount++;
+            return false;
+        }
+        updatedRowCount++;
+        return true;
+    }
+
+    ImportSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 获取上次快照中有、本次文件中没有的关键字段.
+     * @return 关键字段文本
+     */
+    List<String> getDeletedKeys() {
+        return previousSnapshot.getKeyTextsExcept(seenKeys);
+    }
+
+    int getInsertedRowCount() {
+        return insertedRowCount;
+    }
+
+    int getUpdatedRowCount() {
+        return updatedRowCount;
+    }
+
+    int getUnchangedRowCount() {
+        return unchangedRowCount;
+    }
+
+    /**
+     * 开启列统计.
+     * @param fields 导入属性列表
+     */
+    void profileColumns(final List<ImportField> fields) {
+        profilers = new ColumnProfiler[fields.size()];
+        for (ImportField field : fields) {
+            profilers[field.getIndex()] = new ColumnProfiler(field);
+        }
+    }
+
+    /**
+     * 获取导入属性的列统计器.
+     * @param index 导入属性下标
+     * @return 列统计器，未开启统计时为null
+     */
+    ColumnProfiler getProfiler(final int index) {
+        return profilers == null ? null : profilers[index];
+    }
+
+    /**
+     * 生成各列的统计信息.
+     * @return 统计信息，未开启统计时为空列表
+     */
+    List<ColumnProfile> getColumnProfiles() {
+        final List<ColumnProfile> profiles = new ArrayList<>();
+        for (int i = 0; profilers != null && i < profilers.length; i++) {
+            profiles.add(profilers[i].toProfile());
+        }
+        return profiles;
+    }
+
+    /**
+     * 释放导入过程中使用的临时文件.
+     * @throws IOException 删除异常
+     */
+    @Override
+    public void close() throws IOException {
+        if (keySet != null) {
+            keySet.close();
+        }
+    }
+}
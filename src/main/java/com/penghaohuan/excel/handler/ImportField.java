@@ -0,0 +1,83 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+import com.penghaohuan.excel.annotation.StatelessValidator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * 导入属性描述.
+ * 在构造导入器时一次性解析好属性、注解以及校验方法，导入过程中只读.
+ * @author penghaohuan
+ */
+final class ImportField {
+
+    /**
+     * 属性下标.
+     */
+    private final int index;
+
+    /**
+     * 属性.
+     */
+    private final Field field;
+
+    /**
+     * 属性注解.
+     */
+    private final ImportExcelDesc desc;
+
+    /**
+     * 校验类.
+     */
+    private final Class<?> validatorClass;
+
+    /**
+     * 校验方法，未配置或找不到时为null.
+     */
+    private final Method validateMethod;
+
+    /**
+     * 校验类是否无状态、可共享.
+     */
+    private final boolean sharedValidator;
+
+    ImportField(final int index, final Field field, final ImportExcelDesc desc, final Class<?> validatorClass,
+                final Method validateMethod) {
+        this.index = index;
+        this.field = field;
+        this.desc = desc;
+        this.validatorClass = validatorClass;
+        this.validateMethod = validateMethod;
+        this.sharedValidator = validatorClass != null && validatorClass.isAnnotationPresent(StatelessValidator.class);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    ImportExcelDesc getDesc() {
+        return desc;
+    }
+
+    Class<?> getType() {
+        return field.getType();
+    }
+
+    Class<?> getValidatorClass() {
+        return validatorClass;
+    }
+
+    Method getValidateMethod() {
+        return validateMethod;
+    }
+
+    boolean isSharedValidator() {
+        return sharedValidator;
+    }
+}
@@ -0,0 +1,30 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.model.ImportCheckpoint;
+
+/**
+ * 逐行导入回调.
+ * 实体创建并校验通过后立即交给回调，不在内存中保留，适用于大文件导入与断点续传.
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public interface ImportListener<T> {
+
+    /**
+     * 处理一行数据.
+     * 方法正常返回即视为该行已提交.
+     * @param entity 实体
+     * @param rowNumber 行号，从1开始
+     * @throws Exception 处理异常，导入停止并以{@link com.penghaohuan.excel.exception.ExcelListenerException}抛出
+     */
+    void onRow(T entity, int rowNumber) throws Exception;
+
+    /**
+     * 断点.
+     * 每提交{@link com.penghaohuan.excel.model.ImportOptions#setCheckpointInterval(int)}行以及导入结束时调用.
+     * @param checkpoint 断点
+     * @throws Exception 处理异常，导入停止并以{@link com.penghaohuan.excel.exception.ExcelListenerException}抛出
+     */
+    default void onCheckpoint(ImportCheckpoint checkpoint) throws Exception {
+    }
+}
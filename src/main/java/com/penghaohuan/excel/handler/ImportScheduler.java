@@ -0,0 +1,368 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.model.ImportCost;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import com.penghaohuan.excel.reader.SheetReaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导入调度器.
+ *
+ * <p>
+ *     多个大文件同时导入时各自加载工作簿容易耗尽内存.调度器在解析前通过{@link SheetReaders#estimate(File)}估算每个任务的内存开销，
+ *     按全局内存预算与并发数准入，超出预算的任务排队等待.
+ *     完整加载的估算开销超过单任务上限时，改为流式读取（xlsx使用XSSFReader事件解析），
+ *     调度器使用导入选项的副本，不修改传入的选项，是否流式读取见{@link ImportResult#isStreaming()}.
+ * </p>
+ * <p>
+ *     排队的任务按租户轮转调度，每个租户同时运行的任务数有上限.
+ *     队首任务放不下时跳过该租户，但最早排队的任务放不下时暂停准入，避免大任务被持续饿死.
+ *     单个任务的开销超过全局预算时按全局预算计，即独占运行.
+ * </p>
+ * <p>
+ *     运行环境支持虚拟线程（Java 21+）时每个任务使用一个虚拟线程，否则使用固定大小的线程池；并发数始终由准入控制限制.
+ * </p>
+ * @author penghaohuan
+ */
+public class ImportScheduler {
+
+    /**
+     * 日志.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportScheduler.class);
+
+    /**
+     * 全局内存预算，字节.
+     */
+    private final long memoryBudget;
+
+    /**
+     * 同时运行的任务数上限.
+     */
+    private final int maxRunning;
+
+    /**
+     * 每个租户同时运行的任务数上限.
+     */
+    private final int tenantLimit;
+
+    /**
+     * 完整加载的单任务内存上限，超过时改为流式读取.
+     */
+    private volatile long domLimit;
+
+    /**
+     * 执行器.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 各租户的等待队列，按租户首次提交的顺序.
+     */
+    private final LinkedHashMap<String, ArrayDeque<Job<?>>> queues = new LinkedHashMap<>();
+
+    /**
+     * 各租户运行中的任务数.
+     */
+    private final Map<String, Integer> runningByTenant = new HashMap<>();
+
+    /**
+     * 上次准入的租户，下次从其后一个租户开始轮转.
+     */
+    private String lastTenant;
+
+    /**
+     * 运行中任务的开销之和.
+     */
+    private long usedBytes;
+
+    /**
+     * 运行中的任务数.
+     */
+    private int running;
+
+    /**
+     * 提交序号.
+     */
+    private long sequence;
+
+    /**
+     * 构造.
+     * @param memoryBudget 全局内存预算，字节
+     * @param maxRunning 同时运行的任务数上限
+     * @param tenantLimit 每个租户同时运行的任务数上限
+     */
+    public ImportScheduler(final long memoryBudget, final int maxRunning, final int tenantLimit) {
+        this.memoryBudget = memoryBudget;
+        this.maxRunning = Math.max(maxRunning, 1);
+        this.tenantLimit = Math.max(tenantLimit, 1);
+        this.domLimit = memoryBudget / this.maxRunning;
+        this.executor = newExecutor(this.maxRunning);
+    }
+
+    /**
+     * 设置完整加载的单任务内存上限，默认为全局预算除以并发数.
+     * @param domLimit 字节
+     */
+    public void setDomLimit(final long domLimit) {
+        this.domLimit = domLimit;
+    }
+
+    /**
+     * 提交导入任务.
+     * 开销估算在调用线程中进行，文件格式错误时返回的结果直接以{@link ExcelTemplateException}失败.
+     * @param tenant 租户
+     * @param importer 导入器
+     * @param file 文件，任务完成前不能删除
+     * @param headRowNumbers 表头行数
+     * @param importOptions 导入选项，提交时复制，之后的修改不影响该任务
+     * @param <T> 类型
+     * @return 导入结果，按估算改为流式读取时{@link ImportResult#isStreaming()}为true
+     */
+    public <T> CompletableFuture<ImportResult<T>> submit(final String tenant, final ExcelImporter<T> importer, final File file,
+                                                         final Integer headRowNumbers, final ImportOptions importOptions) {
+        final CompletableFuture<ImportResult<T>> future = new CompletableFuture<>();
+        final ImportCost cost;
+        try {
+            cost = SheetReaders.estimate(file);
+        } catch (final IOException | ExcelTemplateException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        final ImportOptions options = new ImportOptions(importOptions);
+        if (!options.isStreaming() && cost.getDomBytes() > domLimit) {
+            LOGGER.info("Import of {} routed to streaming, estimated {} bytes when fully loaded.", file.getName(), cost.getDomBytes());
+            options.setStreaming(true);
+        }
+        final long bytes = Math.min(options.isStreaming() ? cost.getStreamingBytes() : cost.getDomBytes(), memoryBudget);
+        final Job<T> job = new Job<>(tenant, bytes, future, () -> {
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                return importer.importExcelWithResult(input, headRowNumbers, options);
+            }
+        });
+        synchronized (this) {
+            job.sequence = sequence++;
+            queues.computeIfAbsent(tenant, key -> new ArrayDeque<>()).add(job);
+            dispatch();
+        }
+        return future;
+    }
+
+    /**
+     * 停止接收任务，等待中的任务以{@link RejectedExecutionException}失败，运行中的任务继续完成.
+     * 不等待运行中的任务，需要等待时调用{@link #awaitTermination(long, TimeUnit)}.
+     */
+    public void shutdown() {
+        final List<Job<?>> rejected = new ArrayList<>();
+        synchronized (this) {
+            for (ArrayDeque<Job<?>> queue : queues.values()) {
+                rejected.addAll(queue);
+            }
+            queues.clear();
+            executor.shutdown();
+        }
+        for (Job<?> job : rejected) {
+            job.future.completeExceptionally(new RejectedExecutionException("Import scheduler is shut down."));
+        }
+    }
+
+    /**
+     * {@link #shutdown()}后等待运行中的任务完成.
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 运行中的任务都已完成时返回true，超时返回false
+     * @throws InterruptedException 等待被中断
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 准入等待中的任务，直到没有可准入的任务.
+     * 调用方必须持有锁.
+     */
+    private void dispatch() {
+        while (running < maxRunning && !executor.isShutdown()) {
+            final Job<?> job = nextJob();
+            if (job == null) {
+                return;
+            }
+            running++;
+            usedBytes += job.bytes;
+            runningByTenant.merge(job.tenant, 1, Integer::sum);
+            lastTenant = job.tenant;
+            try {
+                executor.execute(() -> run(job));
+            } catch (final RejectedExecutionException e) {
+                release(job);
+                job.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 按租户轮转选出下一个可准入的任务，并从队列中移除.
+     * 调用方必须持有锁.
+     * @return 任务，没有可准入的任务时返回null
+     */
+    private Job<?> nextJob() {
+        final List<String> tenants = new ArrayList<>(queues.keySet());
+        final int start = lastTenant == null ? 0 : tenants.indexOf(lastTenant) + 1;
+        Job<?> oldest = null;
+        for (String tenant : tenants) {
+            final Job<?> head = head(tenant);
+            if (head != null && runningByTenant.getOrDefault(tenant, 0) < tenantLimit
+                    && (oldest == null || head.sequence < oldest.sequence)) {
+                oldest = head;
+            }
+        }
+        if (oldest == null || running > 0 && usedBytes + oldest.bytes > memoryBudget) {
+            return null; // 最早排队的任务放不下时为其保留预算
+        }
+        for (int i = 0; i < tenants.size(); i++) {
+            final String tenant = tenants.get((start + i) % tenants.size());
+            final Job<?> head = head(tenant);
+            if (head == null || runningByTenant.getOrDefault(tenant, 0) >= tenantLimit) {
+                continue;
+            }
+            if (running == 0 || usedBytes + head.bytes <= memoryBudget) {
+                queues.get(tenant).poll();
+                return head;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取租户的队首任务，移除已取消的任务与空队列.
+     * 调用方必须持有锁.
+     * @param tenant 租户
+     * @return 队首任务，没有时返回null
+     */
+    private Job<?> head(final String tenant) {
+        final ArrayDeque<Job<?>> queue = queues.get(tenant);
+        while (queue != null && !queue.isEmpty() && queue.peek().future.isDone()) {
+            queue.poll();
+        }
+        if (queue == null) {
+            return null;
+        }
+        if (queue.isEmpty()) {
+            queues.remove(tenant);
+            return null;
+        }
+        return queue.peek();
+    }
+
+    /**
+     * 运行任务，完成后释放预算并准入等待中的任务.
+     * @param job 任务
+     * @param <T> 类型
+     */
+    private <T> void run(final Job<T> job) {
+        try {
+            if (!job.future.isDone()) {
+                job.future.complete(job.task.call());
+            }
+        } catch (final Exception | Error e) {
+            job.future.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                release(job);
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * 释放任务占用的预算.
+     * 调用方必须持有锁.
+     * @param job 任务
+     */
+    private void release(final Job<?> job) {
+        running--;
+        usedBytes -= job.bytes;
+        runningByTenant.computeIfPresent(job.tenant, (tenant, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * 创建执行器，优先使用虚拟线程.
+     * 通过反射调用{@code Executors.newVirtualThreadPerTaskExecutor()}，以便在Java 8上编译与运行.
+     * @param threads 线程池大小
+     * @return 执行器
+     */
+    private static ExecutorService newExecutor(final int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            final AtomicInteger counter = new AtomicInteger();
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable, "excel-import-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(threads, threadFactory);
+        }
+    }
+
+    /**
+     * 导入任务.
+     * @param <T> 类型
+     */
+    private static final class Job<T> {
+
+        /**
+         * 租户.
+         */
+        private final String tenant;
+
+        /**
+         * 占用的预算.
+         */
+        private final long bytes;
+
+        /**
+         * 结果.
+         */
+        private final CompletableFuture<ImportResult<T>> future;
+
+        /**
+         * 导入.
+         */
+        private final Callable<ImportResult<T>> task;
+
+        /**
+         * 提交序号.
+         */
+        private long sequence;
+
+        Job(final String tenant, final long bytes, final CompletableFuture<ImportResult<T>> future, final Callable<ImportResult<T>> task) {
+            this.tenant = tenant;
+            this.bytes = bytes;
+            this.future = future;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.penghaohuan.excel.handler;
+
+import com.penghaohuan.excel.reader.RowValues;
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 增量导入快照.
+ * 记录每个关键字段对应行的64位内容哈希，下次导入时内容哈希不变的行直接跳过，不转换、不校验、不交给回调.
+ * 关键字段指纹与内容哈希保存在long数组中，关键字段文本以UTF-8连续保存，用于报告被删除的行；
+ * 50万行约占30MB以内，可通过{@link #save(File)}与{@link #load(File)}保存到本地文件.
+ * @author penghaohuan
+ */
+public final class ImportSnapshot {
+
+    /**
+     * 文件头.
+     */
+    private static final int MAGIC = 0x584c534e;
+
+    /**
+     * 文件格式版本.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * 不存在时的返回值.
+     */
+    static final int MISSING = -1;
+
+    /**
+     * 各条目的关键字段指纹，按加入顺序.
+     */
+    private long[] keys;
+
+    /**
+     * 各条目的内容哈希.
+     */
+    private long[] hashes;
+
+    /**
+     * 各条目关键字段文本在文本池中的结束位置.
+     */
+    private int[] textEnds;
+
+    /**
+     * 关键字段文本池.
+     */
+    private byte[] texts;
+
+    /**
+     * 文本池已用字节数.
+     */
+    private int textLength;
+
+    /**
+     * 条目数.
+     */
+    private int size;
+
+    /**
+     * 开放寻址槽位，保存条目下标加1，0为空槽位.
+     */
+    private int[] slots;
+
+    public ImportSnapshot() {
+        this(1024);
+    }
+
+    /**
+     * 构造.
+     * @param expectedSize 预计条目数
+     */
+    public ImportSnapshot(final int expectedSize) {
+        final int capacity = Math.max(expectedSize, 16);
+        this.keys = new long[capacity];
+        this.hashes = new long[capacity];
+        this.textEnds = new int[capacity];
+        this.texts = new byte[capacity * 16];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1]; // 负载不超过0.5
+    }
+
+    /**
+     * 获取条目数.
+     * @return 条目数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 从文件加载快照.
+     * @param file 文件
+     * @return 快照
+     * @throws IOException 读取异常或文件格式错误
+     */
+    public static ImportSnapshot load(final File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not an import snapshot file: " + file);
+            }
+            final int count = in.readInt();
+            final ImportSnapshot snapshot = new ImportSnapshot(count);
+            byte[] text = new byte[64];
+            for (int i = 0; i < count; i++) {
+                final long key = in.readLong();
+                final long hash = in.readLong();
+                final int length = in.readInt();
+                if (length > text.length) {
+                    text = new byte[Math.max(length, text.length * 2)];
+                }
+                in.readFully(text, 0, length);
+                snapshot.add(key, hash, text, length);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 保存快照到文件.
+     * 先写入临时文件再改名，保存失败不会破坏原有文件.
+     * @param file 文件
+     * @throws IOException 写入异常
+     */
+    public void save(final File file) throws IOException {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath()), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    final int start = i == 0 ? 0 : textEnds[i - 1];
+                    out.writeLong(keys[i]);
+                    out.writeLong(hashes[i]);
+                    out.writeInt(textEnds[i] - start);
+                    out.write(texts, start, textEnds[i] - start);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * 计算关键字段文本的64位指纹.
+     * @param keyText 关键字段文本
+     * @return 指纹
+     */
+    static long fingerprint(final String keyText) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < keyText.length(); i++) {
+            hash = (hash ^ keyText.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * 计算一行映射列原始值的64位内容哈希.
+     * 按列号顺序对单元格类型与原始值（数值取二进制位，其余取文本）做FNV-1a哈希，不做格式化与类型转换.
+     * @param row 行数据
+     * @param columns 映射的列，递增
+     * @return 内容哈希
+     */
+    static long rowHash(final RowValues row, final int[] columns) {
+        long hash = 0xcbf29ce484222325L;
+        for (int column : columns) {
+            final CellType type = row.getType(column);
+            hash = (hash ^ (type == null ? 0 : type.ordinal() + 1)) * 0x100000001b3L;
+            if (type == CellType.NUMERIC) {
+                final long bits = Double.doubleToLongBits(row.getNumber(column));
+                hash = (hash ^ (bits >>> 32)) * 0x100000001b3L;
+                hash = (hash ^ (bits & 0xFFFFFFFFL)) * 0x100000001b3L;
+            } else if (type == CellType.BOOLEAN) {
+                hash = (hash ^ (row.getBoolean(column) ? 1 : 2)) * 0x100000001b3L;
+            } else if (type == CellType.STRING || type == CellType.FORMULA) {
+                final String text = row.getText(column);
+                for (int i = 0; text != null && i < text.length(); i++) {
+                    hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            hash = hash * 0x100000001b3L; // 分隔符
+        }
+        return mix(hash);
+    }
+
+    /**
+     * 哈希的最终混合.
+     * @param hash 哈希
+     * @return 混合后的哈希
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * 查找条目.
+     * @param key 关键字段指纹
+     * @return 条目下标，不存在时返回{@link #MISSING}
+     */
+    int indexOf(final long key) {
+        final int mask = slots.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (slots[slot] != 0) {
+            if (keys[slots[slot] - 1] == key) {
+                return slots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * 获取条目的内容哈希.
+     * @param index 条目下标
+     * @return 内容哈希
+     */
+    long getHash(final int index) {
+        return hashes[index];
+    }
+
+    /**
+     * 获取条目的关键字段文本.
+     * @param index 条目下标
+     * @return 关键字段文本
+     */
+    String getKeyText(final int index) {
+        final int start = index == 0 ? 0 : textEnds[index - 1];
+        return new String(texts, start, textEnds[index] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 放入条目，关键字段已存在时更新内容哈希.
+     * @param key 关键字段指纹
+     * @param keyText 关键字段文本
+     * @param hash 内容哈希
+     */
+    void put(final long key, final String keyText, final long hash) {
+        final int index = indexOf(key);
+        if (index != MISSING) {
+            hashes[index] = hash;
+            return;
+        }
+        final byte[] text = keyText.getBytes(StandardCharsets.UTF_8);
+        add(key, hash, text, text.length);
+    }
+
+    /**
+     * 获取未标记的条目的关键字段文本.
+     * @param seen 已标记的条目下标
+     * @return 关键字段文本，按加入顺序
+     */
+    List<String> getKeyTextsExcept(final BitSet seen) {
+        final List<String> result = new ArrayList<>();
+        for (int i = seen.nextClearBit(0); i < size; i = seen.nextClearBit(i + 1)) {
+            result.add(getKeyText(i));
+        }
+        return result;
+    }
+
+    /**
+     * 追加新条目.
+     * @param key 关键字段指纹
+     * @param hash 内容哈希
+     * @param text 关键字段文本
+     * @param length 文本字节数
+     */
+    private void add(final long key, final long hash, final byte[] text, final int length) {
+        if (size == keys.length) {
+            final int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            textEnds = Arrays.copyOf(textEnds, capacity);
+            rehash(capacity);
+        }
+        if (textLength + length > texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(textLength + length, texts.length * 2));
+        }
+        System.arraycopy(text, 0, texts, textLength, length);
+        textLength += length;
+        keys[size] = key;
+        hashes[size] = hash;
+        textEnds[size] = textLength;
+        size++;
+        final int mask = slots.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = size;
+    }
+
+    /**
+     * 扩容槽位并重新放入所有条目.
+     * @param capacity 条目容量
+     */
+    private void rehash(final int capacity) {
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        final int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = (int) (keys[i] ^ (keys[i] >>> 32)) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.penghaohuan.excel.handler;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 关键字段指纹集合.
+ * 以64位指纹为键、long为值的开放寻址哈希表，不装箱，每个条目约占32字节.
+ * 条目数超过内存上限时，按指纹排序写入临时文件（一个有序段）并清空内存表；
+ * 查找时依次检查内存表与各有序段，有序段在内存中只保留稀疏索引，每次查找最多读取一个块.
+ * @author penghaohuan
+ */
+final class KeyFingerprintSet implements Closeable {
+
+    /**
+     * 不存在时的返回值.
+     */
+    static final long MISSING = -1L;
+
+    /**
+     * 空槽位的键，指纹为0时替换为1.
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * 有序段中每个条目的字节数.
+     */
+    private static final int ENTRY_BYTES = 16;
+
+    /**
+     * 有序段的稀疏索引间隔，即每个块的条目数.
+     */
+    private static final int BLOCK_ENTRIES = 256;
+
+    /**
+     * 内存中的条目数上限.
+     */
+    private final int maxEntries;
+
+    /**
+     * 槽位的键.
+     */
+    private final long[] keys;
+
+    /**
+     * 槽位的值.
+     */
+    private final long[] values;
+
+    /**
+     * 内存中的条目数.
+     */
+    private int size;
+
+    /**
+     * 已写入临时文件的有序段.
+     */
+    private final List<SortedRun> runs = new ArrayList<>();
+
+    /**
+     * 构造.
+     * @param maxEntries 内存中的条目数上限
+     */
+    KeyFingerprintSet(final int maxEntries) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        final int capacity = Integer.highestOneBit(Math.min(this.maxEntries, 1 << 29) * 2 - 1) << 1; // 负载不超过0.5
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * 计算关键字段的64位指纹.
+     * 对各值的文本做FNV-1a哈希并以0分隔，最后做一次混合，结果不为0.
+     * @param values 一行的属性值
+     * @param keyIndexes 关键字段的属性下标
+     * @return 指纹
+     */
+    static long fingerprint(final Object[] values, final int[] keyIndexes) {
+        long hash = 0xcbf29ce484222325L;
+        for (int index : keyIndexes) {
+            final String text = String.valueOf(values[index]);
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+            }
+            hash = hash * 0x100000001b3L; // 分隔符
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    /**
+     * 放入条目.
+     * @param key 指纹
+     * @param value 值，不能为负数
+     * @param replace 已存在时是否替换为新值
+     * @return 已存在时返回原值，否则返回{@link #MISSING}
+     * @throws IOException 读写临时文件异常
+     */
+    long put(final long key, final long value, final boolean replace) throws IOException {
+        final int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                final long previous = values[slot];
+                if (replace) {
+                    values[slot] = value;
+                }
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        for (SortedRun run : runs) {
+            final long previous = run.find(key, replace, value);
+            if (previous != MISSING) {
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= maxEntries) {
+            spill();
+        }
+        return MISSING;
+    }
+
+    /**
+     * 将内存中的条目按指纹排序写入临时文件，并清空内存表.
+     * @throws IOException 写入异常
+     */
+    private void spill() throws IOException {
+        final long[] sorted = new long[size];
+        int count = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                sorted[count++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        final File file = File.createTempFile("excel-keys", ".run");
+        final long[] fences = new long[(size + BLOCK_ENTRIES - 1) / BLOCK_ENTRIES];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            for (int i = 0; i < sorted.length; i++) {
+                if (i % BLOCK_ENTRIES == 0) {
+                    fences[i / BLOCK_ENTRIES] = sorted[i];
+                }
+                out.writeLong(sorted[i]);
+                out.writeLong(get(sorted[i]));
+            }
+        } catch (final IOException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        runs.add(new SortedRun(file, fences, size));
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * 获取内存表中的值.
+     * @param key 指纹
+     * @return 值，不存在时返回{@link #MISSING}
+     */
+    private long get(final long key) {
+        final int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * 关闭并删除临时文件.
+     * @throws IOException 删除异常
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (SortedRun run : runs) {
+            try {
+                run.close();
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        runs.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 写入临时文件的有序段.
+     */
+    private static final class SortedRun implements Closeable {
+
+        /**
+         * 临时文件.
+         */
+        private final File file;
+
+        /**
+         * 每个块第一个条目的指纹.
+         */
+        private final long[] fences;
+
+        /**
+         * 条目数.
+         */
+        private final int count;
+
+        /**
+         * 随机读写文件.
+         */
+        private final RandomAccessFile access;
+
+        /**
+         * 块缓冲.
+         */
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_ENTRIES * ENTRY_BYTES);
+
+        SortedRun(final File file, final long[] fences, final int count) throws IOException {
+            this.file = file;
+            this.fences = fences;
+            this.count = count;
+            this.access = new RandomAccessFile(file, "rw");
+        }
+
+        /**
+         * 查找条目.
+         * @param key 指纹
+         * @param replace 存在时是否替换为新值
+         * @param value 新值
+         * @return 原值，不存在时返回{@link #MISSING}
+         * @throws IOException 读写异常
+         */
+        long find(final long key, final boolean replace, final long value) throws IOException {
+            if (key < fences[0]) {
+                return MISSING;
+            }
+            int blockIndex = Arrays.binarySearch(fences, key);
+            if (blockIndex < 0) {
+                blockIndex = -blockIndex - 2; // 最后一个不大于key的块
+            }
+            final int first = blockIndex * BLOCK_ENTRIES;
+            final int entries = Math.min(BLOCK_ENTRIES, count - first);
+            block.clear();
+            block.limit(entries * ENTRY_BYTES);
+            final long position = (long) first * ENTRY_BYTES;
+            while (block.hasRemaining() && access.getChannel().read(block, position + block.position()) >= 0) {
+                continue;
+            }
+            int low = 0;
+            int high = entries - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final long midKey = block.getLong(mid * ENTRY_BYTES);
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    final long previous = block.getLong(mid * ENTRY_BYTES + 8);
+                    if (replace) {
+                        access.seek((long) (first + mid) * ENTRY_BYTES + 8);
+                        access.writeLong(value);
+                    }
+                    return previous;
+                }
+            }
+            return MISSING;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                access.close();
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.penghaohuan.excel.handler;
+
+import java.util.List;
+
+/**
+ * 分页数据来源.
+ * 流水线导出时在生产线程中依次调用，无需线程安全.
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public interface PageSupplier<T> {
+
+    /**
+     * 获取下一页数据.
+     * @return 下一页数据，null或空列表表示没有更多数据
+     * @throws Exception 查询异常，导出停止并抛出
+     */
+    List<T> nextPage() throws Exception;
+}
@@ -0,0 +1,140 @@
+package com.penghaohuan.excel.handler;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCells;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 纵向合并连续相同值的单元格.
+ * 逐行写入时只记录每个合并列当前连续段的起始行与值，连续段结束时记下合并区域，
+ * 不回读已写出的行，适用于SXSSF流式写入.
+ * 合并区域在sheet写完时统一追加：SXSSF跟踪自动列宽时每写出一行都会解析sheet中所有合并区域，
+ * 边写边追加会使导出耗时随行数平方增长.
+ * xlsx的合并区域直接追加到底层sheet的mergeCells节点：Sheet.addMergedRegionUnsafe每次都会重新统计已有合并区域的个数，
+ * 逐个追加同样随合并区域数平方增长，百万行分组导出时可达数十分钟.
+ * 合并列按列顺序分级：左侧合并列的连续段结束时，右侧合并列的连续段同时结束，用于分组报表的多级分组.
+ * 空值不参与合并.
+ * @author penghaohuan
+ */
+final class VerticalMerger {
+
+    /**
+     * 合并列对应的属性下标，递增.
+     */
+    private final int[] indexes;
+
+    /**
+     * 第一个属性所在的列.
+     */
+    private final int firstCol;
+
+    /**
+     * 各合并列当前连续段的值，没有连续段时为null.
+     */
+    private final Object[] runValues;
+
+    /**
+     * 各合并列当前连续段的起始行.
+     */
+    private final int[] runStarts;
+
+    /**
+     * 上一行的行号.
+     */
+    private int lastRow = -1;
+
+    /**
+     * 已结束的连续段对应的合并区域.
+     */
+    private final List<CellRangeAddress> regions = new ArrayList<>();
+
+    /**
+     * 构造.
+     * @param indexes 合并列对应的属性下标，递增
+     * @param firstCol 第一个属性所在的列
+     */
+    VerticalMerger(final int[] indexes, final int firstCol) {
+        this.indexes = indexes;
+        this.firstCol = firstCol;
+        this.runValues = new Object[indexes.length];
+        this.runStarts = new int[indexes.length];
+    }
+
+    /**
+     * 创建合并器.
+     * @param fields 导出属性列表
+     * @param extraFields 额外需要合并的属性名，可为空
+     * @param firstCol 第一个属性所在的列
+     * @return 合并器，没有需要合并的列时返回null
+     */
+    static VerticalMerger of(final List<ExportField> fields, final List<String> extraFields, final int firstCol) {
+        final int[] indexes = fields.stream()
+                .filter(field -> field.getDesc().mergeSame() || extraFields.contains(field.getField().getName()))
+                .mapToInt(ExportField::getIndex).toArray();
+        return indexes.length == 0 ? null : new VerticalMerger(indexes, firstCol);
+    }
+
+    /**
+     * 写入一行后调用.
+     * @param rowNum 行号
+     * @param values 该行的属性值，下标与导出属性一致
+     */
+    void addRow(final int rowNum, final Object[] values) {
+        boolean broken = rowNum != lastRow + 1;
+        for (int i = 0; i < indexes.length; i++) {
+            final Object value = values[indexes[i]];
+            if (broken || value == null || "".equals(value) || !value.equals(runValues[i])) {
+                endRun(i);
+                runStarts[i] = rowNum;
+                runValues[i] = "".equals(value) ? null : value;
+                broken = true;
+            }
+        }
+        lastRow = rowNum;
+    }
+
+    /**
+     * sheet写完时调用，结束所有连续段并追加合并区域.
+     * @param sheet sheet
+     */
+    void finish(final Sheet sheet) {
+        for (int i = 0; i < indexes.length; i++) {
+            endRun(i);
+            runValues[i] = null;
+        }
+        final XSSFSheet xssfSheet = sheet instanceof SXSSFSheet
+                ? ((SXSSFSheet) sheet).getWorkbook().getXSSFWorkbook().getSheet(sheet.getSheetName())
+                : sheet instanceof XSSFSheet ? (XSSFSheet) sheet : null;
+        if (xssfSheet == null) {
+            for (CellRangeAddress region : regions) {
+                sheet.addMergedRegionUnsafe(region); // 连续段互不重叠，无需校验
+            }
+        } else if (!regions.isEmpty()) {
+            final CTWorksheet worksheet = xssfSheet.getCTWorksheet();
+            final CTMergeCells mergeCells = worksheet.isSetMergeCells() ? worksheet.getMergeCells() : worksheet.addNewMergeCells();
+            for (CellRangeAddress region : regions) {
+                mergeCells.addNewMergeCell().setRef(region.formatAsString());
+            }
+            mergeCells.setCount(mergeCells.sizeOfMergeCellArray());
+        }
+        regions.clear();
+        lastRow = -1;
+    }
+
+    /**
+     * 结束连续段，超过一行时记下合并区域.
+     * @param i 合并列序号
+     */
+    private void endRun(final int i) {
+        if (runValues[i] != null && lastRow > runStarts[i]) {
+            final int col = firstCol + indexes[i];
+            regions.add(new CellRangeAddress(runStarts[i], lastRow, col, col));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.penghaohuan.excel.mapper;
+
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 查找编译期生成的映射器.
+ * 生成类与实体位于同一个包，类名为实体类名（内部类以下划线连接外部类名）加后缀.
+ * 生成类的{@link #SCHEMA_FIELD}常量记录生成时实体结构的指纹，与运行时实体的指纹不一致
+ * （如实体修改后增量编译保留了上次生成的类）时视为过期，不使用生成类.
+ * @author penghaohuan
+ */
+public final class GeneratedMappers {
+
+    /**
+     * 日志.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratedMappers.class);
+
+    /**
+     * 导入行映射器类名后缀.
+     */
+    public static final String ROW_MAPPER_SUFFIX = "_RowMapper";
+
+    /**
+     * 导出行读取器类名后缀.
+     */
+    public static final String ROW_WRITER_SUFFIX = "_RowWriter";
+
+    /**
+     * 生成类中记录实体结构指纹的常量名.
+     */
+    public static final String SCHEMA_FIELD = "SCHEMA";
+
+    private GeneratedMappers() {
+    }
+
+    /**
+     * 查找实体的导入行映射器.
+     * @param clazz 实体类型
+     * @param <T> 实体类型
+     * @return 映射器，未生成时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> findRowMapper(final Class<T> clazz) {
+        return (RowMapper<T>) newInstance(clazz, ROW_MAPPER_SUFFIX, RowMapper.class, importSchema(clazz));
+    }
+
+    /**
+     * 查找实体的导出行读取器.
+     * @param clazz 实体类型
+     * @param <T> 实体类型
+     * @return 读取器，未生成时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowWriter<T> findRowWriter(final Class<T> clazz) {
+        return (RowWriter<T>) newInstance(clazz, ROW_WRITER_SUFFIX, RowWriter.class, exportSchema(clazz));
+    }
+
+    /**
+     * 生成类的全限定名.
+     * @param packageName 包名
+     * @param binaryName 实体类的二进制名，如 a.b.Outer$Inner
+     * @param suffix 后缀
+     * @return 生成类的全限定名
+     */
+    public static String generatedName(final String packageName, final String binaryName, final String suffix) {
+        final String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + suffix;
+    }
+
+    /**
+     * 实体结构的指纹.
+     * 每个条目描述一个属性（或类注解），条目排序后计算，与属性声明顺序无关.
+     * @param entries 条目，属性为 属性名:类型名[:校验方法:校验类]，类注解为 @校验方法:校验类，类型名与校验类使用二进制名
+     * @return SHA-256摘要，十六进制小写
+     */
+    public static String fingerprint(final List<String> entries) {
+        final List<String> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted);
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest(String.join("\n", sorted).getBytes(StandardCharsets.UTF_8))) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 运行时实体的导入结构指纹，与{@link com.penghaohuan.excel.processor.ExcelMapperProcessor}生成RowMapper时的算法一致.
+     * @param clazz 实体类型
+     * @return 指纹
+     */
+    static String importSchema(final Class<?> clazz) {
+        final List<String> entries = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            final ImportExcelDesc desc = field.getAnnotation(ImportExcelDesc.class);
+            if (desc != null) {
+                entries.add(field.getName() + ":" + field.getType().getTypeName() + ":" + desc.function() + ":" + desc.clazz().getName());
+            }
+        }
+        final ImportExcelDesc classDesc = clazz.getAnnotation(ImportExcelDesc.class);
+        if (classDesc != null) {
+            entries.add("@" + classDesc.function() + ":" + classDesc.clazz().getName());
+        }
+        return fingerprint(entries);
+    }
+
+    /**
+     * 运行时实体的导出结构指纹，与{@link com.penghaohuan.excel.processor.ExcelMapperProcessor}生成RowWriter时的算法一致.
+     * @param clazz 实体类型
+     * @return 指纹
+     */
+    static String exportSchema(final Class<?> clazz) {
+        final List<String> entries = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.isAnnotationPresent(ExportExcelDesc.class)) {
+                entries.add(field.getName() + ":" + field.getType().getTypeName());
+            }
+        }
+        return fingerprint(entries);
+    }
+
+    /**
+     * 创建生成类的实例.
+     * @param clazz 实体类型
+     * @param suffix 后缀
+     * @param type 生成类实现的接口
+     * @param schema 运行时实体的结构指纹
+     * @return 实例，未生成、已过期或无法创建时返回null
+     */
+    private static Object newInstance(final Class<?> clazz, final String suffix, final Class<?> type, final String schema) {
+        final String packageName = clazz.getPackage() == null ? "" : clazz.getPackage().getName();
+        final String name = generatedName(packageName, clazz.getName(), suffix);
+        try {
+            final Class<?> generated = Class.forName(name, true, clazz.getClassLoader());
+            if (!type.isAssignableFrom(generated)) {
+                return null;
+            }
+            if (!schema.equals(generatedSchema(generated))) {
+                LOGGER.warn("Generated class {} is out of date with {}, fall back to reflection.", name, clazz.getName());
+                return null;
+            }
+            return generated.getDeclaredConstructor().newInstance();
+        } catch (final ClassNotFoundException e) {
+            return null;
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            LOGGER.warn("Can't instant generated class {}！", name, e);
+        }
+        return null;
+    }
+
+    /**
+     * 生成类记录的结构指纹.
+     * @param generated 生成类
+     * @return 指纹，没有记录时返回null
+     */
+    private static Object generatedSchema(final Class<?> generated) {
+        try {
+            return generated.getField(SCHEMA_FIELD).get(null);
+        } catch (final NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
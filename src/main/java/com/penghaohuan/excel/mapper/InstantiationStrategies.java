@@ -0,0 +1,404 @@
+package com.penghaohuan.excel.mapper;
+
+import com.penghaohuan.excel.annotation.ExcelCreator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * 实体创建策略工厂.
+ *
+ * <p>
+ *     按以下顺序为实体选择创建方式，所需的MethodHandle在构造导入器时一次性解析并缓存：
+ *     1. 标注了{@link ExcelCreator}的构造器或静态工厂方法
+ *     2. 无参构造器 + setter（没有setter的属性直接写入属性）
+ *     3. 参数类型与导入属性依次一致的构造器（如全参构造器、record的规范构造器）
+ *     4. 静态builder()方法返回的构建器，属性名同名方法设值，build()创建
+ * </p>
+ * @author penghaohuan
+ */
+public final class InstantiationStrategies {
+
+    /**
+     * 统一的创建方法类型：(Object[])Object.
+     */
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 统一的设值方法类型：(Object, Object)void.
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private InstantiationStrategies() {
+    }
+
+    /**
+     * 使用生成的行映射器创建实体.
+     * @param mapper 行映射器
+     * @param indexes 导入属性下标对应的行映射器属性下标
+     * @param <T> 实体类型
+     * @return 创建策略
+     */
+    public static <T> InstantiationStrategy<T> ofRowMapper(final RowMapper<T> mapper, final int[] indexes) {
+        return values -> {
+            final Object[] mapperValues = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                mapperValues[indexes[i]] = values[i];
+            }
+            return mapper.map(mapperValues);
+        };
+    }
+
+    /**
+     * 为实体选择创建策略.
+     * @param clazz 实体类型
+     * @param fields 导入属性，按声明顺序
+     * @param <T> 实体类型
+     * @return 创建策略
+     * @throws IllegalArgumentException 实体没有可用的创建方式
+     */
+    public static <T> InstantiationStrategy<T> forClass(final Class<T> clazz, final List<Field> fields) {
+        try {
+            final Executable creator = findCreator(clazz, fields);
+            if (creator != null) {
+                return spread(clazz, creator, fields);
+            }
+            final Constructor<T> noArgs = findConstructor(clazz);
+            if (noArgs != null) {
+                return setters(clazz, noArgs, fields);
+            }
+            final Constructor<?> allArgs = findAllArgsConstructor(clazz, fields);
+            if (allArgs != null) {
+                return spread(clazz, allArgs, fields);
+            }
+            final InstantiationStrategy<T> builder = builder(clazz, fields);
+            if (builder != null) {
+                return builder;
+            }
+        } catch (final IllegalAccessException e) {
+            throw new IllegalArgumentException("Can't access creator of " + clazz.getName(), e);
+        }
+        throw new IllegalArgumentException("No creator found for " + clazz.getName()
+                + ", add a no-args constructor or mark one with @ExcelCreator.");
+    }
+
+    /**
+     * 查找标注了{@link ExcelCreator}的构造器或静态工厂方法.
+     * @param clazz 实体类型
+     * @param fields 导入属性
+     * @return 构造器或静态工厂方法，没有时返回null
+     */
+    private static Executable findCreator(final Class<?> clazz, final List<Field> fields) {
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(ExcelCreator.class)) {
+                checkParameters(constructor, fields);
+                return constructor;
+            }
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(ExcelCreator.class)) {
+                if (!Modifier.isStatic(method.getModifiers()) || !clazz.isAssignableFrom(method.getReturnType())) {
+                    throw new IllegalArgumentException("@ExcelCreator method " + method.getName() + " must be static and return "
+                            + clazz.getName());
+                }
+                checkParameters(method, fields);
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 校验创建方法的参数与导入属性一致.
+     * @param creator 构造器或静态工厂方法
+     * @param fields 导入属性
+     */
+    private static void checkParameters(final Executable creator, final List<Field> fields) {
+        if (!isParametersMatch(creator, fields)) {
+            throw new IllegalArgumentException("Parameters of @ExcelCreator " + creator.getName()
+                    + " must match the @ImportExcelDesc fields in declaration order.");
+        }
+    }
+
+    /**
+     * 参数类型是否依次可接受导入属性的值.
+     * @param creator 构造器或静态工厂方法
+     * @param fields 导入属性
+     * @return 是否一致
+     */
+    private static boolean isParametersMatch(final Executable creator, final List<Field> fields) {
+        final Class<?>[] parameterTypes = creator.getParameterTypes();
+        if (parameterTypes.length != fields.size()) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!wrap(parameterTypes[i]).isAssignableFrom(wrap(fields.get(i).getType()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找无参构造器.
+     * @param clazz 实体类型
+     * @param <T> 实体类型
+     * @return 无参构造器，没有时返回null
+     */
+    private static <T> Constructor<T> findConstructor(final Class<T> clazz) {
+        try {
+            return clazz.getDeclaredConstructor();
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查找参数类型与导入属性依次一致的构造器.
+     * @param clazz 实体类型
+     * @param fields 导入属性
+     * @return 构造器，没有时返回null
+     */
+    private static Constructor<?> findAllArgsConstructor(final Class<?> clazz, final List<Field> fields) {
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (isParametersMatch(constructor, fields)) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 以数组展开参数调用构造器或静态工厂方法.
+     * @param clazz 实体类型
+     * @param creator 构造器或静态工厂方法
+     * @param fields 导入属性
+     * @param <T> 实体类型
+     * @return 创建策略
+     * @throws IllegalAccessException 不可访问
+     */
+    private static <T> InstantiationStrategy<T> spread(final Class<T> clazz, final Executable creator, final List<Field> fields)
+            throws IllegalAccessException {
+        creator.setAccessible(true);
+        final MethodHandle handle = creator instanceof Constructor
+                ? MethodHandles.lookup().unreflectConstructor((Constructor<?>) creator)
+                : MethodHandles.lookup().unreflect((Method) creator);
+        final MethodHandle spread = handle.asSpreader(Object[].class, fields.size()).asType(SPREAD_TYPE);
+        final Object[] defaults = primitiveDefaults(creator.getParameterTypes());
+        return values -> {
+            for (int i = 0; i < defaults.length; i++) {
+                if (values[i] == null && defaults[i] != null) {
+                    values[i] = defaults[i]; // 基本类型参数不能为null
+                }
+            }
+            return clazz.cast(applySpread(spread, values));
+        };
+    }
+
+    /**
+     * 无参构造器 + setter.
+     * @param clazz 实体类型
+     * @param constructor 无参构造器
+     * @param fields 导入属性
+     * @param <T> 实体类型
+     * @return 创建策略
+     * @throws IllegalAccessException 不可访问
+     */
+    private static <T> InstantiationStrategy<T> setters(final Class<T> clazz, final Constructor<T> constructor, final List<Field> fields)
+            throws IllegalAccessException {
+        constructor.setAccessible(true);
+        final MethodHandle constructorHandle = MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        final MethodHandle[] setters = new MethodHandle[fields.size()];
+        final boolean[] primitives = new boolean[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            final Field field = fields.get(i);
+            final Method setter = findMethod(clazz, "set" + capitalize(field.getName()), field.getType());
+            if (setter != null && !Modifier.isStatic(setter.getModifiers())) {
+                setter.setAccessible(true);
+                setters[i] = MethodHandles.lookup().unreflect(setter).asType(SETTER_TYPE);
+            } else {
+                field.setAccessible(true);
+                setters[i] = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+            }
+            primitives[i] = field.getType().isPrimitive();
+        }
+        return values -> {
+            final Object entity = create(constructorHandle);
+            for (int i = 0; i < setters.length; i++) {
+                if (values[i] != null || !primitives[i]) {
+                    set(setters[i], entity, values[i]);
+                }
+            }
+            return clazz.cast(entity);
+        };
+    }
+
+    /**
+     * 静态builder()方法返回的构建器.
+     * 构建器中与属性同名、参数类型一致的方法用于设值，build()创建实体.
+     * @param clazz 实体类型
+     * @param fields 导入属性
+     * @param <T> 实体类型
+     * @return 创建策略，实体没有构建器时返回null
+     * @throws IllegalAccessException 不可访问
+     */
+    private static <T> InstantiationStrategy<T> builder(final Class<T> clazz, final List<Field> fields) throws IllegalAccessException {
+        final Method builderMethod = findMethod(clazz, "builder");
+        if (builderMethod == null || !Modifier.isStatic(builderMethod.getModifiers())) {
+            return null;
+        }
+        final Class<?> builderType = builderMethod.getReturnType();
+        final Method buildMethod = findMethod(builderType, "build");
+        if (buildMethod == null || !clazz.isAssignableFrom(buildMethod.getReturnType())) {
+            return null;
+        }
+        final MethodHandle[] setters = new MethodHandle[fields.size()];
+        final boolean[] primitives = new boolean[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            final Field field = fields.get(i);
+            final Method setter = findMethod(builderType, field.getName(), field.getType());
+            if (setter == null) {
+                return null;
+            }
+            setter.setAccessible(true);
+            setters[i] = MethodHandles.lookup().unreflect(setter).asType(SETTER_TYPE); // 构建器的返回值即自身，忽略
+            primitives[i] = field.getType().isPrimitive();
+        }
+        builderMethod.setAccessible(true);
+        buildMethod.setAccessible(true);
+        final MethodHandle newBuilder = MethodHandles.lookup().unreflect(builderMethod).asType(MethodType.methodType(Object.class));
+        final MethodHandle build = MethodHandles.lookup().unreflect(buildMethod).asType(MethodType.methodType(Object.class, Object.class));
+        return values -> {
+            final Object builder = create(newBuilder);
+            for (int i = 0; i < setters.length; i++) {
+                if (values[i] != null || !primitives[i]) {
+                    set(setters[i], builder, values[i]);
+                }
+            }
+            return clazz.cast(apply(build, builder));
+        };
+    }
+
+    /**
+     * 查找方法，包括非public方法.
+     * @param clazz 类型
+     * @param name 方法名
+     * @param parameterTypes 参数类型
+     * @return 方法，没有时返回null
+     */
+    private static Method findMethod(final Class<?> clazz, final String name, final Class<?>... parameterTypes) {
+        try {
+            return clazz.getDeclaredMethod(name, parameterTypes);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 调用类型为()Object的方法句柄.
+     * @param handle 方法句柄
+     * @return 返回值
+     * @throws Exception 调用异常
+     */
+    private static Object create(final MethodHandle handle) throws Exception {
+        try {
+            return (Object) handle.invokeExact();
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 调用类型为(Object)Object的方法句柄.
+     * @param handle 方法句柄
+     * @param arg 参数
+     * @return 返回值
+     * @throws Exception 调用异常
+     */
+    private static Object apply(final MethodHandle handle, final Object arg) throws Exception {
+        try {
+            return (Object) handle.invokeExact(arg);
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 调用类型为(Object[])Object的方法句柄.
+     * @param handle 方法句柄
+     * @param args 参数
+     * @return 返回值
+     * @throws Exception 调用异常
+     */
+    private static Object applySpread(final MethodHandle handle, final Object[] args) throws Exception {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 调用类型为(Object, Object)void的方法句柄.
+     * @param handle 方法句柄
+     * @param target 目标
+     * @param value 值
+     * @throws Exception 调用异常
+     */
+    private static void set(final MethodHandle handle, final Object target, final Object value) throws Exception {
+        try {
+            handle.invokeExact(target, value);
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 基本类型参数的默认值.
+     * @param parameterTypes 参数类型
+     * @return 默认值，非基本类型为null
+     */
+    private static Object[] primitiveDefaults(final Class<?>[] parameterTypes) {
+        final Object[] defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i].isPrimitive()) {
+                defaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * 基本类型转换为包装类型.
+     * @param type 类型
+     * @return 包装类型
+     */
+    private static Class<?> wrap(final Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    /**
+     * 首字母大写.
+     * @param name 名称
+     * @return 首字母大写的名称
+     */
+    private static String capitalize(final String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,18 @@
+package com.penghaohuan.excel.mapper;
+
+/**
+ * 导入实体的创建策略.
+ * 导入器先将一行中各属性的值转换好放入数组，再调用一次策略创建实体.
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public interface InstantiationStrategy<T> {
+
+    /**
+     * 创建实体.
+     * @param values 已转换为属性类型的值，下标与导入属性的声明顺序一致；导入器逐行复用该数组，策略不应持有
+     * @return 实体
+     * @throws Exception 创建实体异常
+     */
+    T newInstance(Object[] values) throws Exception;
+}
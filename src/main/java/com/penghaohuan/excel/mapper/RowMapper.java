@@ -0,0 +1,50 @@
+package com.penghaohuan.excel.mapper;
+
+/**
+ * 导入行映射器.
+ * 由{@link com.penghaohuan.excel.processor.ExcelMapperProcessor}在编译期为标注了@ImportExcelDesc的实体生成，
+ * 以直接的构造、setter与校验方法调用代替反射；导入器找不到生成的映射器时回退到反射.
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public interface RowMapper<T> {
+
+    /**
+     * 导入属性名，按属性声明顺序.
+     * @return 属性名
+     */
+    String[] fieldNames();
+
+    /**
+     * 创建实体并写入属性值.
+     * @param values 已转换为属性类型的值，下标与{@link #fieldNames()}一致
+     * @return 实体
+     */
+    T map(Object[] values);
+
+    /**
+     * 创建校验类实例.
+     * @param validatorClass 校验类
+     * @return 校验类实例，未知的校验类返回null
+     */
+    Object newValidator(Class<?> validatorClass);
+
+    /**
+     * 调用属性的校验方法.
+     * @param index 属性下标，与{@link #fieldNames()}一致
+     * @param validator 校验类实例
+     * @param value 单元格值
+     * @param exceptionMsg 异常信息
+     * @return 校验结果，属性没有可调用的校验方法时返回null
+     */
+    String validate(int index, Object validator, String value, String exceptionMsg);
+
+    /**
+     * 调用行校验方法.
+     * @param validator 校验类实例
+     * @param entity 实体
+     * @param exceptionMsg 异常信息
+     * @return 校验结果，没有可调用的行校验方法时返回null
+     */
+    String validateRow(Object validator, T entity, String exceptionMsg);
+}
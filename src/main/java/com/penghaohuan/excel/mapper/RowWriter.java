@@ -0,0 +1,25 @@
+package com.penghaohuan.excel.mapper;
+
+/**
+ * 导出行读取器.
+ * 由{@link com.penghaohuan.excel.processor.ExcelMapperProcessor}在编译期为标注了@ExportExcelDesc的实体生成，
+ * 以直接的getter调用代替反射；导出器找不到生成的读取器时回退到反射.
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public interface RowWriter<T> {
+
+    /**
+     * 导出属性名，按属性声明顺序.
+     * @return 属性名
+     */
+    String[] fieldNames();
+
+    /**
+     * 读取实体的属性值.
+     * @param entity 实体
+     * @param index 属性下标，与{@link #fieldNames()}一致
+     * @return 属性值
+     */
+    Object get(T entity, int index);
+}
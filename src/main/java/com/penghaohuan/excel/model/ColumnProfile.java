@@ -0,0 +1,118 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 导入列的统计信息.
+ * 在导入的同一次读取中按单元格文本与转换后的值统计，基数为HyperLogLog估算值，误差约2%.
+ *
+ * @author penghaohuan
+ */
+public class ColumnProfile {
+
+    /**
+     * 属性名.
+     */
+    private String field;
+
+    /**
+     * 列名.
+     */
+    private String column;
+
+    /**
+     * 非空单元格数.
+     */
+    private long valueCount;
+
+    /**
+     * 空单元格数.
+     */
+    private long nullCount;
+
+    /**
+     * 转换后的最小值，数值类型为Double，日期为Date，其余为文本；没有值时为null.
+     */
+    private Object min;
+
+    /**
+     * 转换后的最大值，类型同最小值.
+     */
+    private Object max;
+
+    /**
+     * 不同单元格文本数的估算值.
+     */
+    private long distinctEstimate;
+
+    /**
+     * 单元格文本的最大长度.
+     */
+    private int maxLength;
+
+    public ColumnProfile() {
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    public void setValueCount(long valueCount) {
+        this.valueCount = valueCount;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public void setNullCount(long nullCount) {
+        this.nullCount = nullCount;
+    }
+
+    public Object getMin() {
+        return min;
+    }
+
+    public void setMin(Object min) {
+        this.min = min;
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    public void setMax(Object max) {
+        this.max = max;
+    }
+
+    public long getDistinctEstimate() {
+        return distinctEstimate;
+    }
+
+    public void setDistinctEstimate(long distinctEstimate) {
+        this.distinctEstimate = distinctEstimate;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public void setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 重复的关键字段.
+ *
+ * @author penghaohuan
+ */
+public class DuplicateKey {
+
+    /**
+     * 关键字段的值，多个关键字段以逗号连接.
+     */
+    private String key;
+
+    /**
+     * 之前出现的行号，从1开始.
+     */
+    private int firstRow;
+
+    /**
+     * 重复出现的行号，从1开始.
+     */
+    private int duplicateRow;
+
+    public DuplicateKey() {
+    }
+
+    public DuplicateKey(String key, int firstRow, int duplicateRow) {
+        this.key = key;
+        this.firstRow = firstRow;
+        this.duplicateRow = duplicateRow;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public void setFirstRow(int firstRow) {
+        this.firstRow = firstRow;
+    }
+
+    public int getDuplicateRow() {
+        return duplicateRow;
+    }
+
+    public void setDuplicateRow(int duplicateRow) {
+        this.duplicateRow = duplicateRow;
+    }
+
+}
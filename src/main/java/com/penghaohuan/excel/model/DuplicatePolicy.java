@@ -0,0 +1,30 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 关键字段重复时的处理策略.
+ * 关键字段为标注了keyAttr的属性，有多个时按属性声明顺序组合为一个键.
+ *
+ * @author penghaohuan
+ */
+public enum DuplicatePolicy {
+
+    /**
+     * 不检查重复.
+     */
+    ALLOW,
+
+    /**
+     * 重复时作为校验错误，导入结束后抛出校验异常.
+     */
+    REJECT,
+
+    /**
+     * 保留第一次出现的行，后续重复行不导入.
+     */
+    KEEP_FIRST,
+
+    /**
+     * 保留最后一次出现的行，之前的重复行从结果中移除.
+     */
+    KEEP_LAST
+}
@@ -0,0 +1,72 @@
+package com.penghaohuan.excel.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Excel导出排序选项.
+ * 按一个或多个导出属性排序，依次比较；内存中的行超过上限时排序写入临时文件，最后归并输出.
+ * 数值、日期按值比较，其余按文本比较，空值排在最后；值相同的行保持原有顺序.
+ *
+ * @author penghaohuan
+ */
+public class ExportSort {
+
+    /**
+     * 排序的属性名.
+     */
+    private final List<String> fields = new ArrayList<>();
+
+    /**
+     * 各属性是否升序.
+     */
+    private final List<Boolean> ascending = new ArrayList<>();
+
+    /**
+     * 内存中缓存的行的估算字节数上限.
+     */
+    private long maxBytesInMemory = 64L << 20;
+
+    public ExportSort() {
+    }
+
+    /**
+     * 按属性升序.
+     * @param field 属性名
+     * @return 当前排序选项
+     */
+    public ExportSort asc(String field) {
+        fields.add(field);
+        ascending.add(Boolean.TRUE);
+        return this;
+    }
+
+    /**
+     * 按属性降序.
+     * @param field 属性名
+     * @return 当前排序选项
+     */
+    public ExportSort desc(String field) {
+        fields.add(field);
+        ascending.add(Boolean.FALSE);
+        return this;
+    }
+
+    public List<String> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    public List<Boolean> getAscending() {
+        return Collections.unmodifiableList(ascending);
+    }
+
+    public long getMaxBytesInMemory() {
+        return maxBytesInMemory;
+    }
+
+    public void setMaxBytesInMemory(long maxBytesInMemory) {
+        this.maxBytesInMemory = maxBytesInMemory;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 导入断点.
+ * 记录已提交的最后一行与文件摘要，续传时通过{@link ImportOptions#setResumeFrom(int)}与
+ * {@link ImportOptions#setResumeDigest(String)}从下一行继续.
+ *
+ * @author penghaohuan
+ */
+public class ImportCheckpoint {
+
+    /**
+     * 文件的SHA-256摘要，十六进制小写.
+     */
+    private String fileDigest;
+
+    /**
+     * 已提交的最后一行的行号，从1开始.
+     */
+    private int lastRow;
+
+    /**
+     * 本次导入已提交的数据行数.
+     */
+    private int rowCount;
+
+    public ImportCheckpoint() {
+    }
+
+    public ImportCheckpoint(String fileDigest, int lastRow, int rowCount) {
+        this.fileDigest = fileDigest;
+        this.lastRow = lastRow;
+        this.rowCount = rowCount;
+    }
+
+    public String getFileDigest() {
+        return fileDigest;
+    }
+
+    public void setFileDigest(String fileDigest) {
+        this.fileDigest = fileDigest;
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    public void setLastRow(int lastRow) {
+        this.lastRow = lastRow;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 导入开销估算.
+ * 解析前根据文件结构估算的内存占用，用于导入调度的准入控制与读取方式选择.
+ *
+ * @author penghaohuan
+ */
+public class ImportCost {
+
+    /**
+     * 文件是否为xlsx.
+     */
+    private boolean ooxml;
+
+    /**
+     * 文件字节数.
+     */
+    private long fileBytes;
+
+    /**
+     * 所有zip条目解压后的总字节数，xls为文件字节数.
+     */
+    private long uncompressedBytes;
+
+    /**
+     * zip条目解压后与压缩后大小之比的最大值，xls为1.
+     */
+    private double expansionRatio;
+
+    /**
+     * 工作表XML解压后的字节数，xls为0.
+     */
+    private long sheetBytes;
+
+    /**
+     * 共享字符串表解压后的字节数，xls为0.
+     */
+    private long sharedStringBytes;
+
+    /**
+     * 共享字符串表声明的字符串数，未知时为0.
+     */
+    private int sharedStrings;
+
+    /**
+     * 样式表声明的单元格样式数，未知时为0.
+     */
+    private int styles;
+
+    /**
+     * 工作表声明的行数，未知时为0.
+     */
+    private int rows;
+
+    /**
+     * 工作表声明的列数，未知时为0.
+     */
+    private int columns;
+
+    /**
+     * 完整加载工作簿的估算内存字节数.
+     */
+    private long domBytes;
+
+    /**
+     * 流式读取的估算内存字节数.
+     */
+    private long streamingBytes;
+
+    public ImportCost() {
+    }
+
+    public boolean isOoxml() {
+        return ooxml;
+    }
+
+    public void setOoxml(boolean ooxml) {
+        this.ooxml = ooxml;
+    }
+
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    public void setFileBytes(long fileBytes) {
+        this.fileBytes = fileBytes;
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    public void setUncompressedBytes(long uncompressedBytes) {
+        this.uncompressedBytes = uncompressedBytes;
+    }
+
+    public double getExpansionRatio() {
+        return expansionRatio;
+    }
+
+    public void setExpansionRatio(double expansionRatio) {
+        this.expansionRatio = expansionRatio;
+    }
+
+    public long getSheetBytes() {
+        return sheetBytes;
+    }
+
+    public void setSheetBytes(long sheetBytes) {
+        this.sheetBytes = sheetBytes;
+    }
+
+    public long getSharedStringBytes() {
+        return sharedStringBytes;
+    }
+
+    public void setSharedStringBytes(long sharedStringBytes) {
+        this.sharedStringBytes = sharedStringBytes;
+    }
+
+    public int getSharedStrings() {
+        return sharedStrings;
+    }
+
+    public void setSharedStrings(int sharedStrings) {
+        this.sharedStrings = sharedStrings;
+    }
+
+    public int getStyles() {
+        return styles;
+    }
+
+    public void setStyles(int styles) {
+        this.styles = styles;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int columns) {
+        this.columns = columns;
+    }
+
+    public long getDomBytes() {
+        return domBytes;
+    }
+
+    public void setDomBytes(long domBytes) {
+        this.domBytes = domBytes;
+    }
+
+    public long getStreamingBytes() {
+        return streamingBytes;
+    }
+
+    public void setStreamingBytes(long streamingBytes) {
+        this.streamingBytes = streamingBytes;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * Excel导入限制.
+ * 在完整解析前根据文件结构检查，超出任一限制时拒绝导入；各项为0表示不限制.
+ * xlsx检查zip目录中声明的大小、工作表的dimension、共享字符串数与样式数；xls解析前只检查文件大小.
+ * 声明的结构可能缺失或不实：读取时再按实际读到的行号与列数检查行数、列数与单元格数（xls同样检查），
+ * xlsx解压时按实际解压出的字节数检查压缩比与解压后大小，只作用于本次导入.
+ *
+ * @author penghaohuan
+ */
+public class ImportLimits {
+
+    /**
+     * 工作表行数上限.
+     */
+    private int maxRows;
+
+    /**
+     * 工作表列数上限.
+     */
+    private int maxColumns;
+
+    /**
+     * 工作表单元格数（行数乘列数）上限.
+     */
+    private long maxCells;
+
+    /**
+     * zip条目解压后与压缩后大小之比的上限.
+     */
+    private double maxExpansionRatio;
+
+    /**
+     * 所有zip条目解压后的总字节数上限，xls为文件字节数上限.
+     */
+    private long maxUncompressedBytes;
+
+    /**
+     * 共享字符串数上限.
+     */
+    private int maxSharedStrings;
+
+    /**
+     * 单元格样式数上限.
+     */
+    private int maxStyles;
+
+    public ImportLimits() {
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxColumns() {
+        return maxColumns;
+    }
+
+    public void setMaxColumns(int maxColumns) {
+        this.maxColumns = maxColumns;
+    }
+
+    public long getMaxCells() {
+        return maxCells;
+    }
+
+    public void setMaxCells(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    public double getMaxExpansionRatio() {
+        return maxExpansionRatio;
+    }
+
+    public void setMaxExpansionRatio(double maxExpansionRatio) {
+        this.maxExpansionRatio = maxExpansionRatio;
+    }
+
+    public long getMaxUncompressedBytes() {
+        return maxUncompressedBytes;
+    }
+
+    public void setMaxUncompressedBytes(long maxUncompressedBytes) {
+        this.maxUncompressedBytes = maxUncompressedBytes;
+    }
+
+    public int getMaxSharedStrings() {
+        return maxSharedStrings;
+    }
+
+    public void setMaxSharedStrings(int maxSharedStrings) {
+        this.maxSharedStrings = maxSharedStrings;
+    }
+
+    public int getMaxStyles() {
+        return maxStyles;
+    }
+
+    public void setMaxStyles(int maxStyles) {
+        this.maxStyles = maxStyles;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.penghaohuan.excel.model;
+
+import com.penghaohuan.excel.handler.BatchValidator;
+import com.penghaohuan.excel.handler.ImportSnapshot;
+
+/**
+ * Excel导入选项.
+ *
+ * @author penghaohuan
+ */
+public class ImportOptions {
+
+    /**
+     * 是否流式读取.
+     * 流式读取时xlsx使用SAX事件解析、xls使用记录事件解析，内存占用与行数无关，但不解析数据区的合并单元格.
+     */
+    private boolean streaming;
+
+    /**
+     * 连续空行数上限.
+     * 连续读到这么多行所有映射列都为空的行后停止读取，用于截断只带格式的尾部空行；0表示不限制.
+     */
+    private int maxConsecutiveBlankRows;
+
+    /**
+     * 关键字段重复时的处理策略，默认不检查.
+     */
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.ALLOW;
+
+    /**
+     * 重复检查时内存中保留的关键字段指纹数上限.
+     * 每个指纹约占32字节，超过后排序写入临时文件；默认约8MB.
+     */
+    private int maxKeysInMemory = 1 << 18;
+
+    /**
+     * 逐行回调导入时的断点间隔行数，0表示只在导入结束时记录断点.
+     */
+    private int checkpointInterval;
+
+    /**
+     * 续传的断点行号，从1开始；该行及之前的数据行在读取器中直接跳过，不解析、不转换、不校验.
+     * 0表示从头导入.
+     */
+    private int resumeFrom;
+
+    /**
+     * 续传时期望的文件摘要，与断点中的摘要不一致时拒绝导入；为null时不校验.
+     */
+    private String resumeDigest;
+
+    /**
+     * 批量校验器，为null时不进行批量校验.
+     */
+    private BatchValidator<?> batchValidator;
+
+    /**
+     * 批量校验每批的行数.
+     */
+    private int validateChunkSize = 500;
+
+    /**
+     * 导入限制，为null时不检查.
+     * 设置后输入流先写入临时文件，在完整解析前检查文件结构，超出限制时抛出{@link com.penghaohuan.excel.exception.ExcelLimitExceededException}.
+     */
+    private ImportLimits limits;
+
+    /**
+     * 增量导入时上次导入的快照，为null时不是增量导入.
+     * 首次增量导入可传入空快照；需要关键字段，不支持续传.
+     */
+    private ImportSnapshot previousSnapshot;
+
+    /**
+     * 是否统计各列的空值数、取值范围、不同值个数与最大长度，结果见{@link ImportResult#getColumnProfiles()}.
+     */
+    private boolean profileColumns;
+
+    public ImportOptions() {
+    }
+
+    /**
+     * 复制导入选项，批量校验器、导入限制与快照共享同一实例.
+     * @param other 导入选项
+     */
+    public ImportOptions(final ImportOptions other) {
+        this.streaming = other.streaming;
+        this.maxConsecutiveBlankRows = other.maxConsecutiveBlankRows;
+        this.duplicatePolicy = other.duplicatePolicy;
+        this.maxKeysInMemory = other.maxKeysInMemory;
+        this.checkpointInterval = other.checkpointInterval;
+        this.resumeFrom = other.resumeFrom;
+        this.resumeDigest = other.resumeDigest;
+        this.batchValidator = other.batchValidator;
+        this.validateChunkSize = other.validateChunkSize;
+        this.limits = other.limits;
+        this.previousSnapshot = other.previousSnapshot;
+        this.profileColumns = other.profileColumns;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getMaxConsecutiveBlankRows() {
+        return maxConsecutiveBlankRows;
+    }
+
+    public void setMaxConsecutiveBlankRows(int maxConsecutiveBlankRows) {
+        this.maxConsecutiveBlankRows = maxConsecutiveBlankRows;
+    }
+
+    public DuplicatePolicy getDuplicatePolicy() {
+        return duplicatePolicy;
+    }
+
+    public void setDuplicatePolicy(DuplicatePolicy duplicatePolicy) {
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    public int getMaxKeysInMemory() {
+        return maxKeysInMemory;
+    }
+
+    public void setMaxKeysInMemory(int maxKeysInMemory) {
+        this.maxKeysInMemory = maxKeysInMemory;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getResumeFrom() {
+        return resumeFrom;
+    }
+
+    public void setResumeFrom(int resumeFrom) {
+        this.resumeFrom = resumeFrom;
+    }
+
+    public String getResumeDigest() {
+        return resumeDigest;
+    }
+
+    public void setResumeDigest(String resumeDigest) {
+        this.resumeDigest = resumeDigest;
+    }
+
+    public BatchValidator<?> getBatchValidator() {
+        return batchValidator;
+    }
+
+    public void setBatchValidator(BatchValidator<?> batchValidator) {
+        this.batchValidator = batchValidator;
+    }
+
+    public int getValidateChunkSize() {
+        return validateChunkSize;
+    }
+
+    public void setValidateChunkSize(int validateChunkSize) {
+        this.validateChunkSize = validateChunkSize;
+    }
+
+    public ImportLimits getLimits() {
+        return limits;
+    }
+
+    public void setLimits(ImportLimits limits) {
+        this.limits = limits;
+    }
+
+    public ImportSnapshot getPreviousSnapshot() {
+        return previousSnapshot;
+    }
+
+    public void setPreviousSnapshot(ImportSnapshot previousSnapshot) {
+        this.previousSnapshot = previousSnapshot;
+    }
+
+    public boolean isProfileColumns() {
+        return profileColumns;
+    }
+
+    public void setProfileColumns(boolean profileColumns) {
+        this.profileColumns = profileColumns;
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.penghaohuan.excel.model;
+
+import com.penghaohuan.excel.handler.ImportSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Excel导入结果.
+ * 除导入的数据外，还包含数据的实际范围：
+ * 仅带格式的空行不计入数据，末尾的空行不影响最后一行数据的行号.
+ *
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public class ImportResult<T> {
+
+    /**
+     * 导入的数据.
+     */
+    private List<T> data;
+
+    /**
+     * 最后一行数据的行号，从1开始，没有数据时为0.
+     */
+    private int lastDataRow;
+
+    /**
+     * 读取到的非空数据行数.
+     */
+    private int dataRowCount;
+
+    /**
+     * 跳过的空行数.
+     */
+    private int blankRowCount;
+
+    /**
+     * 是否因连续空行达到上限而停止读取.
+     */
+    private boolean stoppedOnBlankRows;
+
+    /**
+     * 重复的关键字段，按重复行出现的顺序.
+     */
+    private List<DuplicateKey> duplicates = new ArrayList<>();
+
+    /**
+     * 增量导入时本次导入的快照，下次导入时作为上次快照传入；不是增量导入时为null.
+     */
+    private ImportSnapshot snapshot;
+
+    /**
+     * 增量导入时新增的行数.
+     */
+    private int insertedRowCount;
+
+    /**
+     * 增量导入时变化的行数.
+     */
+    private int updatedRowCount;
+
+    /**
+     * 增量导入时未变化而跳过的行数.
+     */
+    private int unchangedRowCount;
+
+    /**
+     * 增量导入时上次快照中有、本次文件中没有的关键字段，多个关键字段以逗号分隔.
+     */
+    private List<String> deletedKeys = new ArrayList<>();
+
+    /**
+     * 各导入属性对应列的统计信息，按属性顺序；未开启统计时为空列表.
+     */
+    private List<ColumnProfile> columnProfiles = new ArrayList<>();
+
+    /**
+     * 是否流式读取，包括由{@link com.penghaohuan.excel.handler.ImportScheduler}按内存估算改为流式读取的导入.
+     */
+    private boolean streaming;
+
+    public ImportResult() {
+    }
+
+    public List<T> getData() {
+        return data;
+    }
+
+    public void setData(List<T> data) {
+        this.data = data;
+    }
+
+    public int getLastDataRow() {
+        return lastDataRow;
+    }
+
+    public void setLastDataRow(int lastDataRow) {
+        this.lastDataRow = lastDataRow;
+    }
+
+    public int getDataRowCount() {
+        return dataRowCount;
+    }
+
+    public void setDataRowCount(int dataRowCount) {
+        this.dataRowCount = dataRowCount;
+    }
+
+    public int getBlankRowCount() {
+        return blankRowCount;
+    }
+
+    public void setBlankRowCount(int blankRowCount) {
+        this.blankRowCount = blankRowCount;
+    }
+
+    public boolean isStoppedOnBlankRows() {
+        return stoppedOnBlankRows;
+    }
+
+    public void setStoppedOnBlankRows(boolean stoppedOnBlankRows) {
+        this.stoppedOnBlankRows = stoppedOnBlankRows;
+    }
+
+    public List<DuplicateKey> getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(List<DuplicateKey> duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public ImportSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(ImportSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public int getInsertedRowCount() {
+        return insertedRowCount;
+    }
+
+    public void setInsertedRowCount(int insertedRowCount) {
+        this.insertedRowCount = insertedRowCount;
+    }
+
+    public int getUpdatedRowCount() {
+        return updatedRowCount;
+    }
+
+    public void setUpdatedRowCount(int updatedRowCount) {
+        this.updatedRowCount = updatedRowCount;
+    }
+
+    public int getUnchangedRowCount() {
+        return unchangedRowCount;
+    }
+
+    public void setUnchangedRowCount(int unchangedRowCount) {
+        this.unchangedRowCount = unchangedRowCount;
+    }
+
+    public List<String> getDeletedKeys() {
+        return deletedKeys;
+    }
+
+    public void setDeletedKeys(List<String> deletedKeys) {
+        this.deletedKeys = deletedKeys;
+    }
+
+    public List<ColumnProfile> getColumnProfiles() {
+        return columnProfiles;
+    }
+
+    public void setColumnProfiles(List<ColumnProfile> columnProfiles) {
+        this.columnProfiles = columnProfiles;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 导入的一行数据.
+ *
+ * @author penghaohuan
+ * @param <T> 对应Excel行数据的数据类型
+ */
+public class ImportRow<T> {
+
+    /**
+     * 实体.
+     */
+    private T entity;
+
+    /**
+     * 行号，从1开始.
+     */
+    private int rowNumber;
+
+    public ImportRow() {
+    }
+
+    public ImportRow(T entity, int rowNumber) {
+        this.entity = entity;
+        this.rowNumber = rowNumber;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public void setEntity(T entity) {
+        this.entity = entity;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public void setRowNumber(int rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.penghaohuan.excel.model;
+
+/**
+ * 结构化的校验错误.
+ *
+ * @author penghaohuan
+ */
+public class ValidationError {
+
+    /**
+     * 行号，从1开始.
+     */
+    private int row;
+
+    /**
+     * 列名.
+     */
+    private String column;
+
+    /**
+     * 单元格的值.
+     */
+    private String value;
+
+    /**
+     * 错误信息.
+     */
+    private String message;
+
+    public ValidationError() {
+    }
+
+    public ValidationError(int row, String column, String value, String message) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+}
@@ -0,0 +1,554 @@
+package com.penghaohuan.excel.processor;
+
+import com.penghaohuan.excel.annotation.ExcelCreator;
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+import com.penghaohuan.excel.mapper.GeneratedMappers;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 生成导入行映射器与导出行读取器的注解处理器.
+ *
+ * <p>
+ *     为每个含有@ImportExcelDesc属性的实体生成 实体类名_RowMapper，
+ *     为每个含有@ExportExcelDesc属性的实体生成 实体类名_RowWriter，生成类与实体位于同一个包.
+ *     生成的代码直接调用构造器、setter/getter与校验方法，导入导出器在运行时优先使用，
+ *     找不到时回退到反射.
+ * </p>
+ * <p>
+ *     该处理器是可选的，jar中没有注册META-INF/services，需要在编译实体时显式启用，如maven-compiler-plugin：
+ *     &lt;annotationProcessors&gt;&lt;annotationProcessor&gt;com.penghaohuan.excel.processor.ExcelMapperProcessor
+ *     &lt;/annotationProcessor&gt;&lt;/annotationProcessors&gt;
+ * </p>
+ * <p>实体没有可访问的无参构造器、属性没有可访问的setter/getter且属性为private时，不生成对应的类并给出警告；
+ * 实体中有标注了@ExcelCreator的构造器或工厂方法时不生成RowMapper.</p>
+ * <p>
+ *     生成类中记录实体结构（属性名、类型与校验方法）的指纹，运行时由{@link GeneratedMappers}与实体比较，不一致时回退到反射.
+ *     增量编译时上次生成的源文件已在编译源路径中，无法在本轮重新生成，指纹不一致时给出警告.
+ * </p>
+ * @author penghaohuan
+ */
+@SupportedAnnotationTypes({"com.penghaohuan.excel.annotation.ImportExcelDesc", "com.penghaohuan.excel.annotation.ExportExcelDesc"})
+public class ExcelMapperProcessor extends AbstractProcessor {
+
+    /**
+     * 生成代码的缩进.
+     */
+    private static final String INDENT = "    ";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (TypeElement type : enclosingTypes(roundEnv.getElementsAnnotatedWith(ImportExcelDesc.class))) {
+            generateRowMapper(type);
+        }
+        for (TypeElement type : enclosingTypes(roundEnv.getElementsAnnotatedWith(ExportExcelDesc.class))) {
+            generateRowWriter(type);
+        }
+        return false;
+    }
+
+    /**
+     * 注解属性所在的实体类.
+     * @param elements 标注了注解的元素
+     * @return 实体类
+     */
+    private Set<TypeElement> enclosingTypes(final Set<? extends Element> elements) {
+        final Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element element : elements) {
+            if (element.getKind() == ElementKind.FIELD) {
+                types.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        return types;
+    }
+
+    /**
+     * 生成导入行映射器.
+     * @param type 实体类
+     */
+    private void generateRowMapper(final TypeElement type) {
+        final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getAnnotation(ExcelCreator.class) != null) {
+                return; // 指定了创建方式的实体由InstantiationStrategies创建
+            }
+        }
+        if (!isInstantiable(type, pkg)) {
+            warn(type, "没有可访问的无参构造器，不生成RowMapper");
+            return;
+        }
+        final String entity = type.getQualifiedName().toString();
+        final ImportExcelDesc classDesc = type.getAnnotation(ImportExcelDesc.class);
+        final List<VariableElement> fields = new ArrayList<>();
+        final List<String> assignments = new ArrayList<>();
+        final List<String> validations = new ArrayList<>();
+        final Map<String, TypeElement> validators = new LinkedHashMap<>();
+        final List<String> schema = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            final ImportExcelDesc desc = field.getAnnotation(ImportExcelDesc.class);
+            if (desc == null) {
+                continue;
+            }
+            final String assignment = assignment(type, field, fields.size());
+            if (assignment == null) {
+                warn(field, "没有可访问的setter，不生成RowMapper");
+                return;
+            }
+            if (!desc.function().trim().isEmpty()) {
+                final TypeElement validator = validatorType(type, desc, classDesc);
+                final String call = validateCall(validator, pkg, desc.function(), stringType(), "value");
+                if (call != null) {
+                    validations.add("case " + fields.size() + ":\n" + INDENT + "return result(" + call + ");");
+                    validators.put(validator.getQualifiedName().toString(), validator);
+                }
+            }
+            fields.add(field);
+            assignments.add(assignment);
+            schema.add(field.getSimpleName() + ":" + typeName(field.asType()) + ":" + desc.function() + ":" + validatorName(desc));
+        }
+        if (classDesc != null) {
+            schema.add("@" + classDesc.function() + ":" + validatorName(classDesc));
+        }
+        String rowValidation = null;
+        if (classDesc != null && !classDesc.function().trim().isEmpty()) {
+            final TypeElement validator = validatorType(type, null, classDesc);
+            rowValidation = validateCall(validator, pkg, classDesc.function(), type.asType(), "entity");
+            if (rowValidation != null) {
+                validators.put(validator.getQualifiedName().toString(), validator);
+            }
+        }
+
+        final StringBuilder code = new StringBuilder();
+        final String className = beginClass(code, type, pkg, GeneratedMappers.ROW_MAPPER_SUFFIX,
+                "com.penghaohuan.excel.mapper.RowMapper<" + entity + ">", fields, schema);
+        code.append(INDENT).append("@Override\n")
+                .append(INDENT).append("@SuppressWarnings(\"unchecked\")\n")
+                .append(INDENT).append("public ").append(entity).append(" map(final Object[] values) {\n")
+                .append(INDENT).append(INDENT).append("final ").append(entity).append(" entity = new ").append(entity).append("();\n");
+        for (String assignment : assignments) {
+            code.append(INDENT).append(INDENT).append(assignment).append('\n');
+        }
+        code.append(INDENT).append(INDENT).append("return entity;\n")
+                .append(INDENT).append("}\n\n");
+
+        code.append(INDENT).append("@Override\n")
+                .append(INDENT).append("public Object newValidator(final Class<?> validatorClass) {\n");
+        for (TypeElement validator : validators.values()) {
+            if (isInstantiable(validator, pkg)) {
+                final String name = validator.getQualifiedName().toString();
+                code.append(INDENT).append(INDENT).append("if (validatorClass == ").append(name).append(".class) {\n")
+                        .append(INDENT).append(INDENT).append(INDENT).append("return new ").append(name).append("();\n")
+                        .append(INDENT).append(INDENT).append("}\n");
+            }
+        }
+        code.append(INDENT).append(INDENT).append("return null;\n")
+                .append(INDENT).append("}\n\n");
+
+        code.append(INDENT).append("@Override\n")
+                .append(INDENT).append("public String validate(final int index, final Object validator, final String value, final String exceptionMsg) {\n")
+                .append(INDENT).append(INDENT).append("switch (index) {\n");
+        for (String validation : validations) {
+            for (String line : validation.split("\n")) {
+                code.append(INDENT).append(INDENT).append(INDENT).append(line).append('\n');
+            }
+        }
+        code.append(INDENT).append(INDENT).append(INDENT).append("default:\n")
+                .append(INDENT).append(INDENT).append(INDENT).append(INDENT).append("return null;\n")
+                .append(INDENT).append(INDENT).append("}\n")
+                .append(INDENT).append("}\n\n");
+
+        code.append(INDENT).append("@Override\n")
+                .append(INDENT).append("public String validateRow(final Object validator, final ").append(entity)
+                .append(" entity, final String exceptionMsg) {\n")
+                .append(INDENT).append(INDENT).append("return ").append(rowValidation == null ? "null" : "result(" + rowValidation + ")").append(";\n")
+                .append(INDENT).append("}\n\n");
+
+        code.append(INDENT).append("private static String result(final Object result) {\n")
+                .append(INDENT).append(INDENT).append("return result instanceof String ? (String) result : null;\n")
+                .append(INDENT).append("}\n")
+                .append("}\n");
+        write(type, className, GeneratedMappers.fingerprint(schema), code);
+    }
+
+    /**
+     * 生成导出行读取器.
+     * @param type 实体类
+     */
+    private void generateRowWriter(final TypeElement type) {
+        final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        if (!isAccessible(type, pkg)) {
+            warn(type, "实体类不可访问，不生成RowWriter");
+            return;
+        }
+        final String entity = type.getQualifiedName().toString();
+        final List<VariableElement> fields = new ArrayList<>();
+        final List<String> reads = new ArrayList<>();
+        final List<String> schema = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getAnnotation(ExportExcelDesc.class) == null) {
+                continue;
+            }
+            final String read = read(type, field);
+            if (read == null) {
+                warn(field, "没有可访问的getter，不生成RowWriter");
+                return;
+            }
+            fields.add(field);
+            reads.add(read);
+            schema.add(field.getSimpleName() + ":" + typeName(field.asType()));
+        }
+
+        final StringBuilder code = new StringBuilder();
+        final String className = beginClass(code, type, pkg, GeneratedMappers.ROW_WRITER_SUFFIX,
+                "com.penghaohuan.excel.mapper.RowWriter<" + entity + ">", fields, schema);
+        code.append(INDENT).append("@Override\n")
+                .append(INDENT).append("public Object get(final ").append(entity).append(" entity, final int index) {\n")
+                .append(INDENT).append(INDENT).append("switch (index) {\n");
+        for (int i = 0; i < reads.size(); i++) {
+            code.append(INDENT).append(INDENT).append(INDENT).append("case ").append(i).append(":\n")
+                    .append(INDENT).append(INDENT).append(INDENT).append(INDENT).append("return ").append(reads.get(i)).append(";\n");
+        }
+        code.append(INDENT).append(INDENT).append(INDENT).append("default:\n")
+                .append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+                .append("throw new IndexOutOfBoundsException(String.valueOf(index));\n")
+                .append(INDENT).append(INDENT).append("}\n")
+                .append(INDENT).append("}\n")
+                .append("}\n");
+        write(type, className, GeneratedMappers.fingerprint(schema), code);
+    }
+
+    /**
+     * 写入生成类的声明与属性名.
+     * @param code 代码
+     * @param type 实体类
+     * @param pkg 实体所在的包
+     * @param suffix 类名后缀
+     * @param superInterface 实现的接口
+     * @param fields 属性
+     * @param schema 实体结构指纹的条目
+     * @return 生成类的全限定名
+     */
+    private String beginClass(final StringBuilder code, final TypeElement type, final PackageElement pkg, final String suffix,
+                              final String superInterface, final List<VariableElement> fields, final List<String> schema) {
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String className = GeneratedMappers.generatedName(packageName,
+                processingEnv.getElementUtils().getBinaryName(type).toString(), suffix);
+        if (!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";\n\n");
+        }
+        code.append("/**\n")
+                .append(" * 由").append(getClass().getSimpleName()).append("根据").append(type.getSimpleName()).append("生成，请勿修改.\n")
+                .append(" */\n")
+                .append("public final class ").append(className.substring(className.lastIndexOf('.') + 1))
+                .append(" implements ").append(superInterface).append(" {\n\n")
+                .append(INDENT).append("public static final String ").append(GeneratedMappers.SCHEMA_FIELD).append(" = \"")
+                .append(GeneratedMappers.fingerprint(schema)).append("\";\n\n")
+                .append(INDENT).append("private static final String[] FIELD_NAMES = {");
+        for (int i = 0; i < fields.size(); i++) {
+            code.append(i == 0 ? "" : ", ").append('"').append(fields.get(i).getSimpleName()).append('"');
+        }
+        code.append("};\n\n")
+                .append(INDENT).append("@Override\n")
+                .append(INDENT).append("public String[] fieldNames() {\n")
+                .append(INDENT).append(INDENT).append("return FIELD_NAMES.clone();\n")
+                .append(INDENT).append("}\n\n");
+        return className;
+    }
+
+    /**
+     * 写入属性值的语句.
+     * 优先使用setter，其次直接赋值；基本类型的属性在值为null时不赋值.
+     * @param type 实体类
+     * @param field 属性
+     * @param index 值下标
+     * @return 语句，不可写入时返回null
+     */
+    private String assignment(final TypeElement type, final VariableElement field, final int index) {
+        final TypeMirror fieldType = field.asType();
+        final String value = "(" + castType(fieldType) + ") values[" + index + "]";
+        final String setter = "set" + capitalize(field.getSimpleName().toString());
+        String statement = null;
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(setter) && method.getParameters().size() == 1 && isCallable(method)
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), fieldType)) {
+                statement = "entity." + setter + "(" + value + ");";
+                break;
+            }
+        }
+        if (statement == null && isCallable(field) && !field.getModifiers().contains(Modifier.FINAL)) {
+            statement = "entity." + field.getSimpleName() + " = " + value + ";";
+        }
+        if (statement != null && fieldType.getKind().isPrimitive()) {
+            statement = "if (values[" + index + "] != null) {\n" + INDENT + INDENT + INDENT + statement + "\n" + INDENT + INDENT + "}";
+        }
+        return statement;
+    }
+
+    /**
+     * 读取属性值的表达式.
+     * 优先使用getter（布尔属性也查找is前缀），其次直接读取属性.
+     * @param type 实体类
+     * @param field 属性
+     * @return 表达式，不可读取时返回null
+     */
+    private String read(final TypeElement type, final VariableElement field) {
+        final String name = capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            final String methodName = method.getSimpleName().toString();
+            final boolean getter = methodName.equals("get" + name) || methodName.equals("is" + name)
+                    && (field.asType().getKind() == TypeKind.BOOLEAN || "java.lang.Boolean".equals(field.asType().toString()));
+            if (getter && method.getParameters().isEmpty() && isCallable(method)
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return "entity." + methodName + "()";
+            }
+        }
+        return isCallable(field) ? "entity." + field.getSimpleName() : null;
+    }
+
+    /**
+     * 调用校验方法的表达式.
+     * 校验方法为校验类中名为function、参数为(valueType, String)的public方法.
+     * @param validator 校验类
+     * @param pkg 实体所在的包
+     * @param function 方法名
+     * @param valueType 待校验值的类型
+     * @param valueName 待校验值的变量名
+     * @return 表达式，找不到可调用的校验方法时返回null
+     */
+    private String validateCall(final TypeElement validator, final PackageElement pkg, final String function,
+                                final TypeMirror valueType, final String valueName) {
+        if (!isAccessible(validator, pkg)) {
+            return null;
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(validator))) {
+            if (method.getSimpleName().contentEquals(function) && method.getModifiers().contains(Modifier.PUBLIC)
+                    && method.getParameters().size() == 2 && method.getReturnType().getKind() != TypeKind.VOID
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), valueType)
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(1).asType(), stringType())) {
+                return "((" + validator.getQualifiedName() + ") validator)." + function + "(" + valueName + ", exceptionMsg)";
+            }
+        }
+        warn(validator, "找不到校验方法" + function + "，运行时回退到反射");
+        return null;
+    }
+
+    /**
+     * 确定校验类.
+     * 优先级：属性注解校验类&gt;类注解校验类&gt;实体类.
+     * @param type 实体类
+     * @param fieldDesc 属性注解
+     * @param classDesc 类注解
+     * @return 校验类
+     */
+    private TypeElement validatorType(final TypeElement type, final ImportExcelDesc fieldDesc, final ImportExcelDesc classDesc) {
+        TypeElement validator = fieldDesc == null ? null : declaredValidator(fieldDesc);
+        if (validator == null && classDesc != null) {
+            validator = declaredValidator(classDesc);
+        }
+        return validator == null ? type : validator;
+    }
+
+    /**
+     * 注解中声明的校验类.
+     * @param desc 注解
+     * @return 校验类，未声明时返回null
+     */
+    private TypeElement declaredValidator(final ImportExcelDesc desc) {
+        TypeMirror mirror;
+        try {
+            desc.clazz();
+            return null;
+        } catch (final MirroredTypeException e) {
+            mirror = e.getTypeMirror(); // 编译期无法加载Class，只能取类型镜像
+        }
+        if (!(mirror instanceof DeclaredType)) {
+            return null;
+        }
+        final TypeElement element = (TypeElement) ((DeclaredType) mirror).asElement();
+        return element.getQualifiedName().contentEquals(ImportExcelDesc.NoValidateClass.class.getCanonicalName()) ? null : element;
+    }
+
+    /**
+     * 类型是否可以在生成类中通过无参构造器创建.
+     * @param type 类型
+     * @param pkg 生成类所在的包
+     * @return 是否可创建
+     */
+    private boolean isInstantiable(final TypeElement type, final PackageElement pkg) {
+        if (!isAccessible(type, pkg) || type.getModifiers().contains(Modifier.ABSTRACT) || type.getKind() != ElementKind.CLASS
+                || type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            return false;
+        }
+        final List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty()) {
+                return isAccessible(constructor, pkg);
+            }
+        }
+        return constructors.isEmpty();
+    }
+
+    /**
+     * 类型及其外部类是否可以在生成类中访问.
+     * @param element 类型
+     * @param pkg 生成类所在的包
+     * @return 是否可访问
+     */
+    private boolean isAccessible(final Element element, final PackageElement pkg) {
+        for (Element e = element; e != null && e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!e.getModifiers().contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(e).equals(pkg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 实体成员是否可以在同包的生成类中调用.
+     * @param member 属性或方法
+     * @return 是否可调用
+     */
+    private boolean isCallable(final Element member) {
+        return !member.getModifiers().contains(Modifier.PRIVATE) && !member.getModifiers().contains(Modifier.STATIC);
+    }
+
+    /**
+     * 强制转换使用的类型名，基本类型使用包装类型.
+     * @param type 类型
+     * @return 类型名
+     */
+    private String castType(final TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * 类型名，与运行时Class#getTypeName一致：声明类型使用二进制名，泛型取擦除后的类型.
+     * @param type 类型
+     * @return 类型名
+     */
+    private String typeName(final TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+            case TYPEVAR:
+                return typeName(processingEnv.getTypeUtils().erasure(type));
+            default:
+                return type.toString();
+        }
+    }
+
+    /**
+     * 注解中校验类的二进制名，未声明时为{@link ImportExcelDesc.NoValidateClass}.
+     * @param desc 注解
+     * @return 二进制名
+     */
+    private String validatorName(final ImportExcelDesc desc) {
+        try {
+            return desc.clazz().getName();
+        } catch (final MirroredTypeException e) {
+            return typeName(e.getTypeMirror());
+        }
+    }
+
+    /**
+     * String类型.
+     * @return 类型镜像
+     */
+    private TypeMirror stringType() {
+        return processingEnv.getElementUtils().getTypeElement(String.class.getName()).asType();
+    }
+
+    /**
+     * 写入生成的源文件.
+     * @param type 实体类
+     * @param className 生成类的全限定名
+     * @param fingerprint 实体结构指纹
+     * @param code 代码
+     */
+    private void write(final TypeElement type, final String className, final String fingerprint, final StringBuilder code) {
+        final TypeElement existing = processingEnv.getElementUtils().getTypeElement(className);
+        if (existing != null) { // 增量编译时上次生成的源文件已在编译源路径中，不能在本轮重新创建
+            if (!fingerprint.equals(existingFingerprint(existing))) {
+                warn(type, className + "已过期，运行时回退到反射，请清理生成的源文件后重新编译");
+            }
+            return;
+        }
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, type).openWriter()) {
+            writer.write(code.toString());
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成" + className + "失败：" + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * 已生成类记录的结构指纹.
+     * @param existing 已生成的类
+     * @return 指纹，没有记录时返回null
+     */
+    private Object existingFingerprint(final TypeElement existing) {
+        for (VariableElement field : ElementFilter.fieldsIn(existing.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals(GeneratedMappers.SCHEMA_FIELD)) {
+                return field.getConstantValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 输出警告.
+     * @param element 元素
+     * @param message 信息
+     */
+    private void warn(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    /**
+     * 首字母大写.
+     * @param name 名称
+     * @return 首字母大写的名称
+     */
+    private static String capitalize(final String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.penghaohuan.excel.reader;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.Arrays;
+
+/**
+ * 日期格式判断缓存.
+ * 按单元格样式下标缓存格式是否为日期格式，同一样式只解析一次格式字符串.
+ * 仅在单次读取内使用，非线程安全.
+ * @author penghaohuan
+ */
+final class DateFormatCache {
+
+    /**
+     * 未判断.
+     */
+    private static final byte UNKNOWN = 0;
+
+    /**
+     * 日期格式.
+     */
+    private static final byte DATE = 1;
+
+    /**
+     * 非日期格式.
+     */
+    private static final byte NOT_DATE = 2;
+
+    /**
+     * 判断结果，下标为样式下标.
+     */
+    private byte[] cache = new byte[64];
+
+    /**
+     * 数值单元格是否为日期.
+     * @param styleIndex 样式下标
+     * @param formatIndex 格式下标
+     * @param formatString 格式字符串
+     * @param value 数值
+     * @return 是否为日期
+     */
+    boolean isDate(final int styleIndex, final int formatIndex, final String formatString, final double value) {
+        if (styleIndex >= cache.length) {
+            cache = Arrays.copyOf(cache, Math.max(styleIndex + 1, cache.length * 2));
+        }
+        byte state = cache[styleIndex];
+        if (state == UNKNOWN) {
+            state = formatString != null && DateUtil.isADateFormat(formatIndex, formatString) ? DATE : NOT_DATE;
+            cache[styleIndex] = state;
+        }
+        return state == DATE && DateUtil.isValidExcelDate(value);
+    }
+}
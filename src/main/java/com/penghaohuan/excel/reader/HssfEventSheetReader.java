@@ -0,0 +1,241 @@
+package com.penghaohuan.excel.reader;
+
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 基于记录事件的xls流式Sheet读取器.
+ * 使用HSSFEventFactory逐条处理第一个sheet的记录，内存占用与行数无关；不解析数据区的合并单元格.
+ * 日期通过FormatTrackingHSSFListener按单元格格式识别，公式单元格读取公式文本.
+ * 设置列投影后，投影外的单元格记录直接跳过，不查找共享字符串、不解析公式；跳过的行同样处理.
+ * @author penghaohuan
+ */
+final class HssfEventSheetReader implements SheetReader {
+
+    /**
+     * xls文件系统.
+     */
+    private final POIFSFileSystem fileSystem;
+
+    /**
+     * 列投影，null表示读取全部列.
+     */
+    private BitSet projection;
+
+    /**
+     * 跳过的起始行号（含）.
+     */
+    private int skipFrom;
+
+    /**
+     * 跳过的结束行号（不含）.
+     */
+    private int skipTo;
+
+    HssfEventSheetReader(final File file) throws IOException {
+        this.fileSystem = new POIFSFileSystem(file, true);
+    }
+
+    @Override
+    public List<CellRangeAddress> getMergedRegions() {
+        return null;
+    }
+
+    @Override
+    public void setProjection(final BitSet columns) {
+        this.projection = columns;
+    }
+
+    @Override
+    public void skipRows(final int fromRowNum, final int toRowNum) {
+        this.skipFrom = fromRowNum;
+        this.skipTo = toRowNum;
+    }
+
+    @Override
+    public void read(final RowHandler handler) throws Exception {
+        final RecordListener listener = new RecordListener(handler);
+        final HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(listener.workbookBuildingListener);
+        try {
+            new HSSFEventFactory().processWorkbookEvents(request, fileSystem);
+        } catch (final StopReadingException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileSystem.close();
+    }
+
+    /**
+     * 停止读取.
+     * 回调返回false、抛出异常或第一个sheet读取完毕时用于中断记录处理.
+     */
+    private static final class StopReadingException extends RuntimeException {
+
+        StopReadingException(final Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * 记录事件处理.
+     */
+    private final class RecordListener implements HSSFListener {
+
+        /**
+         * 行数据回调.
+         */
+        private final RowHandler handler;
+
+        /**
+         * 格式跟踪.
+         */
+        private final FormatTrackingHSSFListener formatListener;
+
+        /**
+         * 收集工作簿记录，用于解析公式.
+         */
+        private final EventWorkbookBuilder.SheetRecordCollectingListener workbookBuildingListener;
+
+        /**
+         * 行数据.
+         */
+        private final RowValues values = new RowValues();
+
+        /**
+         * 日期格式判断缓存.
+         */
+        private final DateFormatCache dateFormatCache = new DateFormatCache();
+
+        /**
+         * 共享字符串表.
+         */
+        private SSTRecord sstRecord;
+
+        /**
+         * 已读到的sheet序号，-1为工作簿全局记录.
+         */
+        private int sheetIndex = -1;
+
+        /**
+         * 当前行号.
+         */
+        private int rowNum = -1;
+
+        RecordListener(final RowHandler handler) {
+            this.handler = handler;
+            this.formatListener = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(this));
+            this.workbookBuildingListener = new EventWorkbookBuilder.SheetRecordCollectingListener(formatListener);
+        }
+
+        @Override
+        public void processRecord(final Record record) {
+            if (record instanceof BOFRecord) {
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheetIndex++;
+                }
+                return;
+            }
+            if (record instanceof SSTRecord) {
+                sstRecord = (SSTRecord) record;
+                return;
+            }
+            if (sheetIndex != 0) {
+                return;
+            }
+            if (record instanceof EOFRecord) {
+                throw new StopReadingException(null); // 只读取第一个sheet
+            }
+            if (record instanceof LastCellOfRowDummyRecord) {
+                endRow(((LastCellOfRowDummyRecord) record).getRow());
+                return;
+            }
+            if (!(record instanceof CellValueRecordInterface)) {
+                return;
+            }
+            final CellValueRecordInterface cell = (CellValueRecordInterface) record;
+            if (cell.getRow() >= skipFrom && cell.getRow() < skipTo) {
+                return; // 跳过的行
+            }
+            if (cell.getRow() != rowNum) {
+                rowNum = cell.getRow();
+                values.reset(rowNum);
+            }
+            final int col = cell.getColumn();
+            if (projection != null && !projection.get(col)) {
+                return;
+            }
+            final int styleIndex = cell.getXFIndex();
+            if (record instanceof NumberRecord) {
+                final double value = ((NumberRecord) record).getValue();
+                final String format = formatListener.getFormatString(cell);
+                values.setNumber(col, value, styleIndex, format,
+                        dateFormatCache.isDate(styleIndex, formatListener.getFormatIndex(cell), format, value));
+            } else if (record instanceof LabelSSTRecord) {
+                values.setString(col, sstRecord.getString(((LabelSSTRecord) record).getSSTIndex()).getString(), styleIndex);
+            } else if (record instanceof LabelRecord) {
+                values.setString(col, ((LabelRecord) record).getValue(), styleIndex);
+            } else if (record instanceof FormulaRecord) {
+                values.setFormula(col, HSSFFormulaParser.toFormulaString(workbookBuildingListener.getStubHSSFWorkbook(),
+                        ((FormulaRecord) record).getParsedExpression()), styleIndex);
+            } else if (record instanceof BoolErrRecord) {
+                final BoolErrRecord boolErr = (BoolErrRecord) record;
+                if (boolErr.isBoolean()) {
+                    values.setBoolean(col, boolErr.getBooleanValue(), styleIndex);
+                } else {
+                    values.setError(col, styleIndex);
+                }
+            } else if (record instanceof BlankRecord) {
+                values.setBlank(col, styleIndex);
+            }
+        }
+
+        /**
+         * 行结束，交给回调.
+         * @param lastRowNum 行号
+         */
+        private void endRow(final int lastRowNum) {
+            if (lastRowNum != rowNum) {
+                return; // 没有单元格的行
+            }
+            final boolean next;
+            try {
+                next = handler.handleRow(values);
+            } catch (final Exception e) {
+                throw new StopReadingException(e);
+            }
+            if (!next) {
+                throw new StopReadingException(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.penghaohuan.excel.reader;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按需解码的共享字符串表.
+ * 不在打开时解析整个sharedStrings.xml，而是在单元格首次引用某个下标时，
+ * 用StAX向前拉取解析到该下标为止；从未被引用到的下标之后的字符串不会被解码.
+ * Excel按字符串首次出现的顺序写入共享字符串表，配合列投影与提前终止，通常只需解析表的开头部分.
+ * @author penghaohuan
+ */
+final class LazySharedStrings implements Closeable {
+
+    /**
+     * 已解码的字符串.
+     */
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * 共享字符串表输入流，没有共享字符串表时为null.
+     */
+    private InputStream input;
+
+    /**
+     * StAX解析器，解析完毕后为null.
+     */
+    private XMLStreamReader parser;
+
+    /**
+     * 元素文本.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    LazySharedStrings(final OPCPackage pkg) throws IOException {
+        final List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return;
+        }
+        this.input = parts.get(0).getInputStream();
+        try {
+            this.parser = StaxHelper.newXMLInputFactory().createXMLStreamReader(input);
+        } catch (final XMLStreamException e) {
+            input.close();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 获取共享字符串.
+     * @param index 下标
+     * @return 字符串，下标超出范围时返回null
+     * @throws IOException 解析异常
+     */
+    String getEntryAt(final int index) throws IOException {
+        try {
+            while (strings.size() <= index && parser != null) {
+                readNext();
+            }
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+        return index < strings.size() ? strings.get(index) : null;
+    }
+
+    /**
+     * 解析下一个si元素.
+     * 拼接其中的t元素文本，忽略rPh中的注音.
+     * @throws XMLStreamException 解析异常
+     * @throws IOException 关闭异常
+     */
+    private void readNext() throws XMLStreamException, IOException {
+        int depth = 0;
+        boolean inPhonetic = false;
+        boolean inText = false;
+        while (parser.hasNext()) {
+            final int event = parser.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final String name = parser.getLocalName();
+                if ("si".equals(name)) {
+                    depth = 1;
+                    text.setLength(0);
+                } else if ("rPh".equals(name)) {
+                    inPhonetic = true;
+                } else if ("t".equals(name) && depth > 0 && !inPhonetic) {
+                    inText = true;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                final String name = parser.getLocalName();
+                if ("si".equals(name)) {
+                    strings.add(text.toString());
+                    return;
+                } else if ("rPh".equals(name)) {
+                    inPhonetic = false;
+                } else if ("t".equals(name)) {
+                    inText = false;
+                }
+            } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)) {
+                text.append(parser.getTextCharacters(), parser.getTextStart(), parser.getTextLength());
+            }
+        }
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (final XMLStreamException e) {
+                throw new IOException(e);
+            } finally {
+                parser = null;
+            }
+        }
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+}
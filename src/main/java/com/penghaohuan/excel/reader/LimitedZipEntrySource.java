@@ -0,0 +1,216 @@
+package com.penghaohuan.excel.reader;
+
+import com.penghaohuan.excel.exception.ExcelLimitExceededException;
+import com.penghaohuan.excel.model.ImportLimits;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.InputStreamStatistics;
+import org.apache.poi.openxml4j.util.ZipEntrySource;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按导入限制检查解压的zip条目源.
+ * 读取条目时统计实际解压出的字节数与读入的压缩字节数，不依赖zip目录中声明的大小；
+ * 条目压缩比超出上限或所有条目解压后的总字节数超出上限时抛出{@link ZipLimitException}.
+ * 只作用于本次导入，不修改{@link ZipSecureFile}的全局设置；全局设置比导入限制更严格时同样按全局设置检查.
+ * @author penghaohuan
+ */
+final class LimitedZipEntrySource implements ZipEntrySource {
+
+    /**
+     * 计算压缩比的最小解压字节数，过小的条目压缩比没有意义.
+     */
+    private static final long RATIO_MIN_ENTRY_BYTES = 64 * 1024;
+
+    /**
+     * zip文件.
+     */
+    private final ZipFile zip;
+
+    /**
+     * 压缩比上限，0表示不限制.
+     */
+    private final double maxExpansionRatio;
+
+    /**
+     * 单个条目解压后的字节数上限，0表示不限制.
+     */
+    private final long maxEntryBytes;
+
+    /**
+     * 所有条目解压后的总字节数上限，0表示不限制.
+     */
+    private final long maxUncompressedBytes;
+
+    /**
+     * 各条目已解压出的最大字节数，同一条目重复读取时不重复计入总数.
+     */
+    private final Map<String, Long> inflated = new HashMap<>();
+
+    /**
+     * 所有条目已解压出的总字节数.
+     */
+    private long totalInflated;
+
+    /**
+     * 是否已关闭.
+     */
+    private boolean closed;
+
+    LimitedZipEntrySource(final File file, final ImportLimits limits) throws IOException {
+        this.zip = new ZipFile(file);
+        final double globalRatio = ZipSecureFile.getMinInflateRatio() > 0 ? 1 / ZipSecureFile.getMinInflateRatio() : 0;
+        this.maxExpansionRatio = strictest(limits.getMaxExpansionRatio(), globalRatio);
+        this.maxEntryBytes = (long) strictest(limits.getMaxUncompressedBytes(), Math.max(ZipSecureFile.getMaxEntrySize(), 0));
+        this.maxUncompressedBytes = limits.getMaxUncompressedBytes();
+    }
+
+    /**
+     * 取两个上限中较严格的一个.
+     * @param a 上限，0表示不限制
+     * @param b 上限，0表示不限制
+     * @return 较严格的上限，0表示不限制
+     */
+    private static double strictest(final double a, final double b) {
+        if (a <= 0) {
+            return b;
+        }
+        return b <= 0 ? a : Math.min(a, b);
+    }
+
+    @Override
+    public Enumeration<? extends ZipArchiveEntry> getEntries() {
+        return zip.getEntries();
+    }
+
+    @Override
+    public ZipArchiveEntry getEntry(final String path) {
+        return zip.getEntry(path);
+    }
+
+    @Override
+    public InputStream getInputStream(final ZipArchiveEntry entry) throws IOException {
+        return new LimitedInputStream(zip.getInputStream(entry), entry.getName());
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        zip.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 记录条目已解压出的字节数并检查限制.
+     * @param name 条目名
+     * @param uncompressed 本次读取已解压出的字节数
+     * @param compressed 本次读取已读入的压缩字节数
+     * @throws ZipLimitException 超出限制
+     */
+    private synchronized void inflate(final String name, final long uncompressed, final long compressed) throws ZipLimitException {
+        final Long previous = inflated.get(name);
+        if (previous == null || uncompressed > previous) {
+            totalInflated += uncompressed - (previous == null ? 0 : previous);
+            inflated.put(name, uncompressed);
+        }
+        if (maxEntryBytes > 0 && uncompressed > maxEntryBytes) {
+            throw new ZipLimitException(new ExcelLimitExceededException("解压后大小", uncompressed, maxEntryBytes));
+        }
+        if (maxUncompressedBytes > 0 && totalInflated > maxUncompressedBytes) {
+            throw new ZipLimitException(new ExcelLimitExceededException("解压后大小", totalInflated, maxUncompressedBytes));
+        }
+        if (maxExpansionRatio > 0 && uncompressed >= RATIO_MIN_ENTRY_BYTES && compressed > 0
+                && (double) uncompressed / compressed > maxExpansionRatio) {
+            throw new ZipLimitException(new ExcelLimitExceededException("压缩比", (double) uncompressed / compressed, maxExpansionRatio));
+        }
+    }
+
+    /**
+     * 统计解压字节数的条目输入流.
+     */
+    private final class LimitedInputStream extends FilterInputStream {
+
+        /**
+         * 条目名.
+         */
+        private final String name;
+
+        /**
+         * 已解压出的字节数.
+         */
+        private long count;
+
+        LimitedInputStream(final InputStream in, final String name) {
+            super(in);
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            if (skipped > 0) {
+                advance(skipped);
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * 累加解压出的字节数并检查限制，未压缩的条目按压缩比1计.
+         * @param n 字节数
+         * @throws ZipLimitException 超出限制
+         */
+        private void advance(final long n) throws ZipLimitException {
+            count += n;
+            final long compressed = in instanceof InputStreamStatistics ? ((InputStreamStatistics) in).getCompressedCount() : count;
+            inflate(name, count, compressed);
+        }
+    }
+
+    /**
+     * 解压超出导入限制，原因为{@link ExcelLimitExceededException}.
+     * 在输入流中抛出，只能是{@link IOException}.
+     */
+    static final class ZipLimitException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        ZipLimitException(final ExcelLimitExceededException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
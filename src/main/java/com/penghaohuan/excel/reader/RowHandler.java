@@ -0,0 +1,16 @@
+package com.penghaohuan.excel.reader;
+
+/**
+ * 行数据回调.
+ * @author penghaohuan
+ */
+public interface RowHandler {
+
+    /**
+     * 处理一行数据.
+     * @param row 行数据，仅在本次回调内有效
+     * @return 是否继续读取，返回false时读取器立即停止
+     * @throws Exception 处理异常，读取器停止并原样抛出
+     */
+    boolean handleRow(RowValues row) throws Exception;
+}
@@ -0,0 +1,221 @@
+package com.penghaohuan.excel.reader;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.util.Arrays;
+
+/**
+ * 行数据缓冲.
+ * 读取器逐行复用同一个实例写入单元格原始值，只清理上一行写入过的列，不为每个单元格创建对象.
+ * 仅在读取回调内有效，需要保留时应自行复制.
+ * @author penghaohuan
+ */
+public final class RowValues {
+
+    /**
+     * 初始列容量.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 行号，从0开始.
+     */
+    private int rowNum;
+
+    /**
+     * 单元格类型，null表示无单元格.
+     */
+    private CellType[] types = new CellType[INITIAL_CAPACITY];
+
+    /**
+     * 文本值：字符串、公式.
+     */
+    private String[] texts = new String[INITIAL_CAPACITY];
+
+    /**
+     * 数值.
+     */
+    private double[] numbers = new double[INITIAL_CAPACITY];
+
+    /**
+     * 是否日期格式的数值.
+     */
+    private boolean[] dates = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * 单元格样式下标.
+     */
+    private int[] styles = new int[INITIAL_CAPACITY];
+
+    /**
+     * 数值格式.
+     */
+    private String[] formats = new String[INITIAL_CAPACITY];
+
+    /**
+     * 已写入的列.
+     */
+    private int[] touched = new int[INITIAL_CAPACITY];
+
+    /**
+     * 已写入的列数.
+     */
+    private int touchedCount;
+
+    /**
+     * 最大列下标+1.
+     */
+    private int lastColumn;
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 单元格类型.
+     * @param col 列
+     * @return 类型，无单元格时返回null
+     */
+    public CellType getType(final int col) {
+        return col < types.length ? types[col] : null;
+    }
+
+    public String getText(final int col) {
+        return texts[col];
+    }
+
+    public double getNumber(final int col) {
+        return numbers[col];
+    }
+
+    public boolean getBoolean(final int col) {
+        return numbers[col] != 0;
+    }
+
+    public boolean isDate(final int col) {
+        return dates[col];
+    }
+
+    public int getStyleIndex(final int col) {
+        return styles[col];
+    }
+
+    public String getFormatString(final int col) {
+        return formats[col];
+    }
+
+    /**
+     * 最大列下标+1.
+     * @return 列数
+     */
+    public int getLastColumn() {
+        return lastColumn;
+    }
+
+    /**
+     * 是否没有任何单元格.
+     * @return 是否为空行
+     */
+    public boolean isEmpty() {
+        return touchedCount == 0;
+    }
+
+    /**
+     * 开始新的一行.
+     * @param rowNum 行号
+     */
+    void reset(final int rowNum) {
+        for (int i = 0; i < touchedCount; i++) {
+            final int col = touched[i];
+            types[col] = null;
+            texts[col] = null;
+            formats[col] = null;
+        }
+        touchedCount = 0;
+        lastColumn = 0;
+        this.rowNum = rowNum;
+    }
+
+    void setString(final int col, final String text, final int style) {
+        set(col, CellType.STRING, style).texts[col] = text;
+    }
+
+    void setNumber(final int col, final double value, final int style, final String format, final boolean date) {
+        set(col, CellType.NUMERIC, style);
+        numbers[col] = value;
+        formats[col] = format;
+        dates[col] = date;
+    }
+
+    void setBoolean(final int col, final boolean value, final int style) {
+        set(col, CellType.BOOLEAN, style).numbers[col] = value ? 1 : 0;
+    }
+
+    void setFormula(final int col, final String formula, final int style) {
+        set(col, CellType.FORMULA, style).texts[col] = formula;
+    }
+
+    void setError(final int col, final int style) {
+        set(col, CellType.ERROR, style);
+    }
+
+    void setBlank(final int col, final int style) {
+        set(col, CellType.BLANK, style);
+    }
+
+    /**
+     * 复制另一行中的单元格.
+     * @param col 目标列
+     * @param source 来源行
+     * @param sourceCol 来源列
+     */
+    void copy(final int col, final RowValues source, final int sourceCol) {
+        final CellType type = source.getType(sourceCol);
+        if (type == null) {
+            return;
+        }
+        set(col, type, source.styles[sourceCol]);
+        texts[col] = source.texts[sourceCol];
+        numbers[col] = source.numbers[sourceCol];
+        dates[col] = source.dates[sourceCol];
+        formats[col] = source.formats[sourceCol];
+    }
+
+    /**
+     * 写入单元格类型，必要时扩容.
+     * @param col 列
+     * @param type 类型
+     * @param style 样式下标
+     * @return this
+     */
+    private RowValues set(final int col, final CellType type, final int style) {
+        if (col >= types.length) {
+            grow(col + 1);
+        }
+        if (types[col] == null) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touched.length * 2);
+            }
+            touched[touchedCount++] = col;
+        }
+        types[col] = type;
+        styles[col] = style;
+        dates[col] = false;
+        lastColumn = Math.max(lastColumn, col + 1);
+        return this;
+    }
+
+    /**
+     * 扩容.
+     * @param minCapacity 最小容量
+     */
+    private void grow(final int minCapacity) {
+        final int capacity = Math.max(minCapacity, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        styles = Arrays.copyOf(styles, capacity);
+        formats = Arrays.copyOf(formats, capacity);
+    }
+}
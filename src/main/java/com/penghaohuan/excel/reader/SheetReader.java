@@ -0,0 +1,47 @@
+package com.penghaohuan.excel.reader;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.Closeable;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sheet读取器.
+ * 按行号递增的顺序读取第一个sheet，将每行单元格的原始值交给{@link RowHandler}.
+ * 不同实现分别基于完整加载的工作簿、xlsx的SAX事件和xls的记录事件，对导入流程输出相同的行数据.
+ * @author penghaohuan
+ */
+public interface SheetReader extends Closeable {
+
+    /**
+     * 读取前即可获得的合并区域.
+     * 流式读取器在读到sheet末尾前无法得知合并区域，返回null.
+     * @return 合并区域，未知时返回null
+     */
+    List<CellRangeAddress> getMergedRegions();
+
+    /**
+     * 设置列投影.
+     * 此后读取的行只解析投影中的列，其余单元格跳过，不创建值对象也不解码共享字符串.
+     * 可在读取回调中调用（如解析完表头后），从下一行开始生效.
+     * @param columns 需要读取的列，null表示读取全部列
+     */
+    void setProjection(BitSet columns);
+
+    /**
+     * 跳过行.
+     * 行号（从0开始）在[fromRowNum, toRowNum)内的行不解析单元格，也不交给回调，用于断点续传时快速越过已处理的行.
+     * 需在读取前调用.
+     * @param fromRowNum 起始行号（含）
+     * @param toRowNum 结束行号（不含）
+     */
+    void skipRows(int fromRowNum, int toRowNum);
+
+    /**
+     * 读取sheet.
+     * @param handler 行数据回调
+     * @throws Exception 读取异常或回调抛出的异常
+     */
+    void read(RowHandler handler) throws Exception;
+}
@@ -0,0 +1,522 @@
+package com.penghaohuan.excel.reader;
+
+import com.penghaohuan.excel.exception.ExcelLimitExceededException;
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.model.ImportCost;
+import com.penghaohuan.excel.model.ImportLimits;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Sheet读取器工厂.
+ * @author penghaohuan
+ */
+public final class SheetReaders {
+
+    /**
+     * 完整加载时每个单元格的估算字节数（XMLBeans对象树）.
+     */
+    private static final long DOM_BYTES_PER_CELL = 1000;
+
+    /**
+     * 完整加载时每字节XML的估算字节数，工作表没有dimension时使用.
+     */
+    private static final long DOM_BYTES_PER_XML_BYTE = 10;
+
+    /**
+     * 完整加载xls时每字节文件的估算字节数.
+     */
+    private static final long HSSF_BYTES_PER_FILE_BYTE = 6;
+
+    /**
+     * 流式读取的固定开销（解析器、缓冲区、样式表）.
+     */
+    private static final long STREAMING_BASE_BYTES = 16L << 20;
+
+    /**
+     * 查找dimension与共享字符串数时读取条目开头的字节数.
+     */
+    private static final int HEAD_SCAN_BYTES = 4096;
+
+    /**
+     * 查找单元格样式数时读取样式表的最大字节数，cellXfs位于字体、填充、边框之后.
+     */
+    private static final int STYLE_SCAN_BYTES = 1 << 20;
+
+    /**
+     * 计算压缩比的最小条目大小，过小的条目压缩比没有意义.
+     */
+    private static final long RATIO_MIN_ENTRY_BYTES = 64 * 1024;
+
+    /**
+     * 工作表的dimension元素.
+     */
+    private static final Pattern DIMENSION = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"([A-Z]+\\d+(?::[A-Z]+\\d+)?)\"");
+
+    /**
+     * 共享字符串表的字符串数.
+     */
+    private static final Pattern UNIQUE_COUNT = Pattern.compile("<(?:\\w+:)?sst\\b[^>]*\\buniqueCount=\"(\\d+)\"");
+
+    /**
+     * 样式表的单元格样式数.
+     */
+    private static final Pattern CELL_XFS_COUNT = Pattern.compile("<(?:\\w+:)?cellXfs\\b[^>]*\\bcount=\"(\\d+)\"");
+
+    /**
+     * POI检测到zip炸弹时异常信息中的解压前后大小.
+     */
+    private static final Pattern ZIP_BOMB_SIZES = Pattern.compile("Uncompressed size: (\\d+), Raw/compressed size: (\\d+)");
+
+    /**
+     * POI检测到zip炸弹时异常信息中的条目大小上限.
+     */
+    private static final Pattern ZIP_BOMB_MAX_ENTRY_SIZE = Pattern.compile("MAX_ENTRY_SIZE: (\\d+)");
+
+    /**
+     * POI检测到zip炸弹时异常信息中的最小压缩比，小数点可能按区域设置为逗号.
+     */
+    private static final Pattern ZIP_BOMB_MIN_INFLATE_RATIO = Pattern.compile("MIN_INFLATE_RATIO: (\\d+[.,]\\d+)");
+
+    private SheetReaders() {
+    }
+
+    /**
+     * 解析前估算导入开销.
+     * xlsx只读取zip目录中各条目的解压大小与最大工作表开头的dimension元素，不解析工作表内容；
+     * 无法确定第一个sheet时按最大的工作表估算.
+     * xls按文件大小估算.
+     * @param file 文件
+     * @return 开销估算
+     * @throws IOException 读取异常
+     * @throws ExcelTemplateException 文件格式错误
+     */
+    public static ImportCost estimate(final File file) throws IOException, ExcelTemplateException {
+        if (file.length() == 0) {
+            throw new ExcelTemplateException("文件格式错误，仅支持xls、xlsx文件");
+        }
+        final FileMagic fileMagic;
+        try (InputStream is = FileMagic.prepareToCheckMagic(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            fileMagic = FileMagic.valueOf(is);
+        }
+        final ImportCost cost = new ImportCost();
+        cost.setFileBytes(file.length());
+        if (fileMagic == FileMagic.OLE2) {
+            cost.setUncompressedBytes(file.length());
+            cost.setExpansionRatio(1);
+            cost.setDomBytes(file.length() * HSSF_BYTES_PER_FILE_BYTE);
+            cost.setStreamingBytes(STREAMING_BASE_BYTES + file.length() / 2); // 共享字符串表常驻内存
+            return cost;
+        }
+        if (fileMagic != FileMagic.OOXML) {
+            throw new ExcelTemplateException("文件格式错误，仅支持xls、xlsx文件");
+        }
+        cost.setOoxml(true);
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry sheet = null;
+            ZipEntry sharedStrings = null;
+            ZipEntry styles = null;
+            long uncompressed = 0;
+            double ratio = 1;
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final long size = Math.max(entry.getSize(), 0);
+                uncompressed += size;
+                if (size >= RATIO_MIN_ENTRY_BYTES && entry.getCompressedSize() > 0) {
+                    ratio = Math.max(ratio, (double) size / entry.getCompressedSize());
+                }
+                if (entry.getName().startsWith("xl/worksheets/") && entry.getName().endsWith(".xml")
+                        && (sheet == null || size > sheet.getSize())) {
+                    sheet = entry;
+                } else if ("xl/sharedStrings.xml".equals(entry.getName())) {
+                    sharedStrings = entry;
+                } else if ("xl/styles.xml".equals(entry.getName())) {
+                    styles = entry;
+                }
+            }
+            if (sheet == null) {
+                throw new ExcelTemplateException("文件格式错误，没有工作表");
+            }
+            cost.setUncompressedBytes(uncompressed);
+            cost.setExpansionRatio(ratio);
+            cost.setSheetBytes(Math.max(sheet.getSize(), 0));
+            final String dimension = scan(zip, sheet, DIMENSION, HEAD_SCAN_BYTES);
+            if (dimension != null) {
+                final CellRangeAddress range = CellRangeAddress.valueOf(dimension);
+                cost.setRows(range.getLastRow() + 1);
+                cost.setColumns(range.getLastColumn() + 1);
+            }
+            if (sharedStrings != null) {
+                cost.setSharedStringBytes(Math.max(sharedStrings.getSize(), 0));
+                cost.setSharedStrings(parseCount(scan(zip, sharedStrings, UNIQUE_COUNT, HEAD_SCAN_BYTES)));
+            }
+            if (styles != null) {
+                cost.setStyles(parseCount(scan(zip, styles, CELL_XFS_COUNT, STYLE_SCAN_BYTES)));
+            }
+        }
+        final long cells = (long) cost.getRows() * cost.getColumns();
+        final long sheetDom = cells > 0 ? cells * DOM_BYTES_PER_CELL : cost.getSheetBytes() * DOM_BYTES_PER_XML_BYTE;
+        cost.setDomBytes(sheetDom + cost.getSharedStringBytes() * DOM_BYTES_PER_XML_BYTE);
+        cost.setStreamingBytes(STREAMING_BASE_BYTES + cost.getSharedStringBytes()); // 最坏情况下解码整个共享字符串表
+        return cost;
+    }
+
+    /**
+     * 检查导入限制.
+     * 行数、列数、单元格数未知（xls或没有dimension）时不检查.
+     * @param cost 开销估算
+     * @param limits 导入限制
+     * @throws ExcelLimitExceededException 超出限制
+     */
+    public static void checkLimits(final ImportCost cost, final ImportLimits limits) throws ExcelLimitExceededException {
+        checkLimit("解压后大小", cost.getUncompressedBytes(), limits.getMaxUncompressedBytes());
+        checkLimit("压缩比", cost.getExpansionRatio(), limits.getMaxExpansionRatio());
+        checkLimit("行数", cost.getRows(), limits.getMaxRows());
+        checkLimit("列数", cost.getColumns(), limits.getMaxColumns());
+        checkLimit("单元格数", (double) cost.getRows() * cost.getColumns(), limits.getMaxCells());
+        checkLimit("共享字符串数", cost.getSharedStrings(), limits.getMaxSharedStrings());
+        checkLimit("样式数", cost.getStyles(), limits.getMaxStyles());
+    }
+
+    /**
+     * 检查一项限制.
+     * @param limit 限制项
+     * @param actual 实际值
+     * @param max 上限，0表示不限制
+     * @throws ExcelLimitExceededException 超出限制
+     */
+    private static void checkLimit(final String limit, final double actual, final double max) throws ExcelLimitExceededException {
+        if (max > 0 && actual > max) {
+            throw new ExcelLimitExceededException(limit, actual, max);
+        }
+    }
+
+    /**
+     * 在条目开头查找并返回第一个分组.
+     * 按块读取并保留块尾，跨块的匹配也能找到.
+     * @param zip 文件
+     * @param entry 条目
+     * @param pattern 查找的模式，匹配长度不超过256个字符
+     * @param maxBytes 最多读取的字节数
+     * @return 第一个分组，找不到时返回null
+     * @throws IOException 读取异常
+     */
+    private static String scan(final ZipFile zip, final ZipEntry entry, final Pattern pattern, final int maxBytes) throws IOException {
+        final byte[] buffer = new byte[Math.min(maxBytes, HEAD_SCAN_BYTES)];
+        final StringBuilder window = new StringBuilder();
+        int total = 0;
+        try (InputStream input = zip.getInputStream(entry)) {
+            int n;
+            while (total < maxBytes && (n = input.read(buffer, 0, Math.min(buffer.length, maxBytes - total))) != -1) {
+                total += n;
+                window.append(new String(buffer, 0, n, StandardCharsets.ISO_8859_1)); // 只匹配ASCII，按字节解码
+                final Matcher matcher = pattern.matcher(window);
+                if (matcher.find()) {
+                    return matcher.group(1);
+                }
+                if (window.length() > 256) {
+                    window.delete(0, window.length() - 256);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析声明的数量.
+     * @param count 数量文本，可为null
+     * @return 数量，未知或超出int范围时为0或int最大值
+     */
+    private static int parseCount(final String count) {
+        if (count == null) {
+            return 0;
+        }
+        return count.length() > 9 ? Integer.MAX_VALUE : Integer.parseInt(count);
+    }
+
+    /**
+     * 完整加载工作簿，读取第一个sheet.
+     * 支持xls与xlsx，支持合并单元格.
+     * xlsx解压时按{@link ZipSecureFile}的全局设置检查，检测到zip炸弹时抛出{@link ExcelLimitExceededException}.
+     * @param input 文件流
+     * @return Sheet读取器
+     * @throws Exception 超出限制、文件格式错误或读取异常
+     */
+    public static SheetReader open(final InputStream input) throws Exception {
+        try {
+            return new WorkbookSheetReader(WorkbookFactory.create(input));
+        } catch (final Exception e) {
+            throw translate(e);
+        }
+    }
+
+    /**
+     * 检查导入限制后打开第一个sheet.
+     * 文件流先写入临时文件，在完整解析前通过{@link #estimate(File)}检查文件结构，超出限制时删除临时文件并抛出异常.
+     * dimension可以缺失或与内容不符，读取时再按实际读到的行号与列数检查行数、列数与单元格数；
+     * zip目录中声明的大小同样可能不实，xlsx解压时按实际解压出的字节数再检查压缩比与解压后大小，
+     * 只作用于本次导入，不修改{@link ZipSecureFile}的全局设置.
+     * @param input 文件流
+     * @param streaming 是否流式读取
+     * @param limits 导入限制
+     * @return Sheet读取器
+     * @throws Exception 超出限制、文件格式错误或读取异常
+     */
+    public static SheetReader open(final InputStream input, final boolean streaming, final ImportLimits limits) throws Exception {
+        final File file = copyToTempFile(input);
+        try {
+            final ImportCost cost = estimate(file);
+            checkLimits(cost, limits);
+            final SheetReader reader;
+            if (cost.isOoxml()) {
+                final OPCPackage pkg = openPackage(file, limits);
+                try {
+                    reader = streaming ? new XlsxStreamingSheetReader(pkg) : new WorkbookSheetReader(new XSSFWorkbook(pkg));
+                } catch (final Exception e) {
+                    pkg.revert();
+                    throw e;
+                }
+            } else if (streaming) {
+                reader = new HssfEventSheetReader(file);
+            } else {
+                reader = new WorkbookSheetReader(WorkbookFactory.create(file, null, true));
+            }
+            return new TempFileSheetReader(new LimitedSheetReader(reader, limits), file);
+        } catch (final Exception e) {
+            Files.deleteIfExists(file.toPath());
+            throw translate(e);
+        }
+    }
+
+    /**
+     * 按导入限制只读打开xlsx包.
+     * @param file 文件
+     * @param limits 导入限制
+     * @return xlsx包
+     * @throws Exception 文件格式错误或读取异常
+     */
+    private static OPCPackage openPackage(final File file, final ImportLimits limits) throws Exception {
+        final LimitedZipEntrySource source = new LimitedZipEntrySource(file, limits);
+        try {
+            return OPCPackage.open(source);
+        } catch (final Exception e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 将解压超出限制的异常转换为{@link ExcelLimitExceededException}.
+     * 依次检查异常及其原因：{@link LimitedZipEntrySource}超出导入限制，或POI按{@link ZipSecureFile}的全局设置检测到zip炸弹，
+     * 后者可能被包装在POIXMLException等异常中，按异常信息中的实际值与上限转换.
+     * @param e 异常
+     * @return 转换后的异常，不是解压超出限制时返回原异常
+     */
+    static Exception translate(final Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ExcelLimitExceededException) {
+                return (ExcelLimitExceededException) cause;
+            }
+            final String message = cause.getMessage();
+            if (cause instanceof IOException && message != null && message.startsWith("Zip bomb detected!")) {
+                final Matcher sizes = ZIP_BOMB_SIZES.matcher(message);
+                if (!sizes.find()) {
+                    break;
+                }
+                final long uncompressed = Long.parseLong(sizes.group(1));
+                final long compressed = Long.parseLong(sizes.group(2));
+                final Matcher maxEntrySize = ZIP_BOMB_MAX_ENTRY_SIZE.matcher(message);
+                if (maxEntrySize.find()) {
+                    return new ExcelLimitExceededException("解压后大小", uncompressed, Long.parseLong(maxEntrySize.group(1)));
+                }
+                final Matcher minInflateRatio = ZIP_BOMB_MIN_INFLATE_RATIO.matcher(message);
+                if (minInflateRatio.find()) {
+                    final double ratio = Double.parseDouble(minInflateRatio.group(1).replace(',', '.'));
+                    return new ExcelLimitExceededException("压缩比", (double) uncompressed / Math.max(compressed, 1), 1 / ratio);
+                }
+                break;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * 流式读取第一个sheet.
+     * 文件流先写入临时文件，xlsx使用SAX事件解析，xls使用记录事件解析，内存占用与行数无关.
+     * 流式读取不解析数据区的合并单元格.
+     * @param input 文件流
+     * @return Sheet读取器
+     * @throws IOException 读取异常
+     * @throws ExcelTemplateException 文件格式错误，或检测到zip炸弹
+     */
+    public static SheetReader openStreaming(final InputStream input) throws IOException, ExcelTemplateException {
+        final File file = copyToTempFile(input);
+        try {
+            final SheetReader reader = file.getName().endsWith(".xlsx") ? new XlsxStreamingSheetReader(file) : new HssfEventSheetReader(file);
+            return new TempFileSheetReader(reader, file);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            final Exception translated = translate(e);
+            if (translated instanceof ExcelLimitExceededException) {
+                throw (ExcelLimitExceededException) translated;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 检查文件格式并写入临时文件.
+     * @param input 文件流
+     * @return 临时文件，xlsx以.xlsx结尾，xls以.xls结尾
+     * @throws IOException 读写异常
+     * @throws ExcelTemplateException 文件格式错误
+     */
+    private static File copyToTempFile(final InputStream input) throws IOException, ExcelTemplateException {
+        final InputStream is = FileMagic.prepareToCheckMagic(input);
+        final FileMagic fileMagic = FileMagic.valueOf(is);
+        if (fileMagic != FileMagic.OOXML && fileMagic != FileMagic.OLE2) {
+            throw new ExcelTemplateException("文件格式错误，仅支持xls、xlsx文件");
+        }
+        final File file = File.createTempFile("excel-import", fileMagic == FileMagic.OOXML ? ".xlsx" : ".xls");
+        try {
+            Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * 读取时检查行数、列数与单元格数限制的读取器.
+     */
+    private static final class LimitedSheetReader implements SheetReader {
+
+        /**
+         * 实际读取器.
+         */
+        private final SheetReader delegate;
+
+        /**
+         * 导入限制.
+         */
+        private final ImportLimits limits;
+
+        /**
+         * 已读到的最大列数.
+         */
+        private int columns;
+
+        LimitedSheetReader(final SheetReader delegate, final ImportLimits limits) {
+            this.delegate = delegate;
+            this.limits = limits;
+        }
+
+        @Override
+        public List<CellRangeAddress> getMergedRegions() {
+            return delegate.getMergedRegions();
+        }
+
+        @Override
+        public void setProjection(final BitSet columns) {
+            delegate.setProjection(columns);
+        }
+
+        @Override
+        public void skipRows(final int fromRowNum, final int toRowNum) {
+            delegate.skipRows(fromRowNum, toRowNum);
+        }
+
+        @Override
+        public void read(final RowHandler handler) throws Exception {
+            delegate.read(row -> {
+                final long rows = row.getRowNum() + 1L;
+                columns = Math.max(columns, row.getLastColumn());
+                checkLimit("行数", rows, limits.getMaxRows());
+                checkLimit("列数", columns, limits.getMaxColumns());
+                checkLimit("单元格数", (double) rows * columns, limits.getMaxCells());
+                return handler.handleRow(row);
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * 关闭时删除临时文件的读取器.
+     * 流式读取时解压随读取进行，读取中解压超出限制同样转换为{@link ExcelLimitExceededException}.
+     */
+    private static final class TempFileSheetReader implements SheetReader {
+
+        /**
+         * 实际读取器.
+         */
+        private final SheetReader delegate;
+
+        /**
+         * 临时文件.
+         */
+        private final File file;
+
+        TempFileSheetReader(final SheetReader delegate, final File file) {
+            this.delegate = delegate;
+            this.file = file;
+        }
+
+        @Override
+        public List<CellRangeAddress> getMergedRegions() {
+            return delegate.getMergedRegions();
+        }
+
+        @Override
+        public void setProjection(final BitSet columns) {
+            delegate.setProjection(columns);
+        }
+
+        @Override
+        public void skipRows(final int fromRowNum, final int toRowNum) {
+            delegate.skipRows(fromRowNum, toRowNum);
+        }
+
+        @Override
+        public void read(final RowHandler handler) throws Exception {
+            try {
+                delegate.read(handler);
+            } catch (final Exception e) {
+                throw translate(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                delegate.close();
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+}
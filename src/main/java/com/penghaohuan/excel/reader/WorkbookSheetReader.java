@@ -0,0 +1,181 @@
+package com.penghaohuan.excel.reader;
+
+import com.penghaohuan.excel.model.CellPosition;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于完整加载的工作簿的Sheet读取器.
+ * 纵向合并的单元格读取合并区域首行的值.
+ * @author penghaohuan
+ */
+final class WorkbookSheetReader implements SheetReader {
+
+    /**
+     * 工作簿.
+     */
+    private final Workbook workbook;
+
+    /**
+     * 第一个sheet.
+     */
+    private final Sheet sheet;
+
+    /**
+     * 单元格值位置映射.
+     */
+    private final Map<Integer, Map<Integer, CellPosition>> cellValuePositionMap = new HashMap<>();
+
+    /**
+     * 日期格式判断缓存.
+     */
+    private final DateFormatCache dateFormatCache = new DateFormatCache();
+
+    /**
+     * 列投影，null表示读取全部列.
+     */
+    private BitSet projection;
+
+    /**
+     * 跳过的起始行号（含）.
+     */
+    private int skipFrom;
+
+    /**
+     * 跳过的结束行号（不含）.
+     */
+    private int skipTo;
+
+    WorkbookSheetReader(final Workbook workbook) {
+        this.workbook = workbook;
+        this.sheet = workbook.getSheetAt(0);
+        initCellPosition();
+    }
+
+    @Override
+    public List<CellRangeAddress> getMergedRegions() {
+        return sheet.getMergedRegions();
+    }
+
+    @Override
+    public void setProjection(final BitSet columns) {
+        this.projection = columns;
+    }
+
+    @Override
+    public void skipRows(final int fromRowNum, final int toRowNum) {
+        this.skipFrom = fromRowNum;
+        this.skipTo = toRowNum;
+    }
+
+    @Override
+    public void read(final RowHandler handler) throws Exception {
+        final RowValues values = new RowValues();
+        final int rows = sheet.getLastRowNum();
+        for (int rowNum = 0; rowNum <= rows; rowNum++) {
+            if (rowNum >= skipFrom && rowNum < skipTo) {
+                rowNum = skipTo - 1;
+                continue;
+            }
+            values.reset(rowNum);
+            final BitSet columns = projection;
+            final Row row = sheet.getRow(rowNum);
+            if (row != null && columns != null) {
+                for (int col = columns.nextSetBit(0); col >= 0 && col < row.getLastCellNum(); col = columns.nextSetBit(col + 1)) {
+                    readCell(values, rowNum, col);
+                }
+            } else if (row != null) {
+                for (int col = 0; col < row.getLastCellNum(); col++) {
+                    readCell(values, rowNum, col);
+                }
+            }
+            final Map<Integer, CellPosition> rowCellPositions = cellValuePositionMap.get(rowNum);
+            if (rowCellPositions != null) {
+                for (Integer col : rowCellPositions.keySet()) {
+                    if ((columns == null || columns.get(col)) && (row == null || col >= row.getLastCellNum())) {
+                        readCell(values, rowNum, col);
+                    }
+                }
+            }
+            if (!handler.handleRow(values)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.close();
+    }
+
+    /**
+     * 对合并的单元格进行单元格值读取位置的初始化，根据该位置，可以读取到单元格的值.
+     */
+    private void initCellPosition() {
+        final int sheetMergeCount = sheet.getNumMergedRegions();
+        for (int i = 0; i < sheetMergeCount; i++) {
+            final CellRangeAddress ca = sheet.getMergedRegion(i);
+            final int firstRow = ca.getFirstRow();
+            final int firstCol = ca.getFirstColumn();
+            for (int rowPos = firstRow; rowPos <= ca.getLastRow(); ++rowPos) {
+                cellValuePositionMap.computeIfAbsent(rowPos, key -> new HashMap<>()).put(firstCol, new CellPosition(firstRow, firstCol));
+            }
+        }
+    }
+
+    /**
+     * 读取单元格到行数据.
+     * @param values 行数据
+     * @param row 行
+     * @param column 列
+     */
+    private void readCell(final RowValues values, int row, int column) {
+        final int targetCol = column;
+        final Map<Integer, CellPosition> rowCellPositions = cellValuePositionMap.get(row);
+        final CellPosition position = rowCellPositions == null ? null : rowCellPositions.get(column);
+        if (position != null) {
+            row = position.getRow();
+            column = position.getColumn();
+        }
+        final Row rowRecord = sheet.getRow(row);
+        final Cell cell = rowRecord == null ? null : rowRecord.getCell(column);
+        if (cell == null) {
+            return;
+        }
+        final CellStyle style = cell.getCellStyle();
+        final int styleIndex = style.getIndex() & 0xFFFF;
+        switch (cell.getCellType()) {
+            case STRING:
+                values.setString(targetCol, cell.getRichStringCellValue().getString(), styleIndex);
+                break;
+            case NUMERIC:
+                final double value = cell.getNumericCellValue();
+                final String format = style.getDataFormatString();
+                values.setNumber(targetCol, value, styleIndex, format,
+                        dateFormatCache.isDate(styleIndex, style.getDataFormat(), format, value));
+                break;
+            case FORMULA:
+                values.setFormula(targetCol, cell.getCellFormula(), styleIndex);
+                break;
+            case BOOLEAN:
+                values.setBoolean(targetCol, cell.getBooleanCellValue(), styleIndex);
+                break;
+            case ERROR:
+                values.setError(targetCol, styleIndex);
+                break;
+            default:
+                values.setBlank(targetCol, styleIndex);
+                break;
+        }
+    }
+}
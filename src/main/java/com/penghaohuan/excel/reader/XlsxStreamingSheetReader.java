@@ -0,0 +1,360 @@
+package com.penghaohuan.excel.reader;
+
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 基于SAX事件的xlsx流式Sheet读取器.
+ * 逐个解析第一个sheet的XML元素，内存占用与行数无关；不解析数据区的合并单元格.
+ * 公式单元格读取公式文本，共享公式的从属单元格没有公式文本时读取缓存的计算结果.
+ * 设置列投影后，投影外的单元格只解析列号，不收集文本、不解码共享字符串；跳过的行同样只解析行号与列号.
+ * @author penghaohuan
+ */
+final class XlsxStreamingSheetReader implements SheetReader {
+
+    /**
+     * xlsx包.
+     */
+    private final OPCPackage pkg;
+
+    /**
+     * 列投影，null表示读取全部列.
+     */
+    private BitSet projection;
+
+    /**
+     * 跳过的起始行号（含）.
+     */
+    private int skipFrom;
+
+    /**
+     * 跳过的结束行号（不含）.
+     */
+    private int skipTo;
+
+    XlsxStreamingSheetReader(final File file) throws IOException {
+        try {
+            this.pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (final InvalidFormatException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 读取已只读打开的xlsx包，关闭时一并关闭.
+     * @param pkg xlsx包
+     */
+    XlsxStreamingSheetReader(final OPCPackage pkg) {
+        this.pkg = pkg;
+    }
+
+    @Override
+    public List<CellRangeAddress> getMergedRegions() {
+        return null;
+    }
+
+    @Override
+    public void setProjection(final BitSet columns) {
+        this.projection = columns;
+    }
+
+    @Override
+    public void skipRows(final int fromRowNum, final int toRowNum) {
+        this.skipFrom = fromRowNum;
+        this.skipTo = toRowNum;
+    }
+
+    @Override
+    public void read(final RowHandler handler) throws Exception {
+        final XSSFReader xssfReader = new XSSFReader(pkg);
+        final StylesTable styles = xssfReader.getStylesTable();
+        final Iterator<InputStream> sheets = xssfReader.getSheetsData();
+        if (!sheets.hasNext()) {
+            return;
+        }
+        try (LazySharedStrings strings = new LazySharedStrings(pkg); InputStream sheet = sheets.next()) {
+            final SheetHandler sheetHandler = new SheetHandler(strings, styles, handler);
+            final XMLReader parser = SAXHelper.newXMLReader();
+            parser.setContentHandler(sheetHandler);
+            parser.parse(new InputSource(sheet));
+        } catch (final StopReadingException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        pkg.revert(); // 只读打开，不写回
+    }
+
+    /**
+     * 解析列号，如 AB12 -&gt; 27.
+     * @param ref 单元格地址
+     * @return 列号，从0开始
+     */
+    static int parseColumn(final String ref) {
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            final char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    /**
+     * 停止读取.
+     * 回调返回false或抛出异常时用于中断SAX解析.
+     */
+    static final class StopReadingException extends SAXException {
+
+        StopReadingException(final Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * sheet XML事件处理.
+     */
+    private final class SheetHandler extends DefaultHandler {
+
+        /**
+         * 共享字符串表.
+         */
+        private final LazySharedStrings strings;
+
+        /**
+         * 样式表.
+         */
+        private final StylesTable styles;
+
+        /**
+         * 行数据回调.
+         */
+        private final RowHandler handler;
+
+        /**
+         * 行数据.
+         */
+        private final RowValues values = new RowValues();
+
+        /**
+         * 日期格式判断缓存.
+         */
+        private final DateFormatCache dateFormatCache = new DateFormatCache();
+
+        /**
+         * 格式下标，下标为样式下标，{@link Integer#MIN_VALUE}为未解析.
+         */
+        private final int[] formatIndexes;
+
+        /**
+         * 格式字符串，下标为样式下标.
+         */
+        private final String[] formatStrings;
+
+        /**
+         * 元素文本.
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * 是否收集元素文本.
+         */
+        private boolean collecting;
+
+        /**
+         * 当前单元格是否在列投影之外.
+         */
+        private boolean skipping;
+
+        /**
+         * 当前行是否跳过.
+         */
+        private boolean skippingRow;
+
+        /**
+         * 当前行号.
+         */
+        private int rowNum = -1;
+
+        /**
+         * 当前列号.
+         */
+        private int col = -1;
+
+        /**
+         * 当前单元格类型属性.
+         */
+        private String cellType;
+
+        /**
+         * 当前单元格样式下标.
+         */
+        private int styleIndex;
+
+        /**
+         * 当前单元格的值.
+         */
+        private String value;
+
+        /**
+         * 当前单元格的公式.
+         */
+        private String formula;
+
+        SheetHandler(final LazySharedStrings strings, final StylesTable styles, final RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+            this.formatIndexes = new int[styles == null ? 0 : styles.getNumCellStyles()];
+            this.formatStrings = new String[formatIndexes.length];
+            Arrays.fill(formatIndexes, Integer.MIN_VALUE);
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    final String r = attributes.getValue("r");
+                    rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+                    col = -1;
+                    skipping = false;
+                    skippingRow = rowNum >= skipFrom && rowNum < skipTo;
+                    values.reset(rowNum);
+                    break;
+                case "c":
+                    final String ref = attributes.getValue("r");
+                    col = ref == null ? col + 1 : parseColumn(ref);
+                    skipping = skippingRow || projection != null && !projection.get(col);
+                    if (skipping) {
+                        break;
+                    }
+                    cellType = attributes.getValue("t");
+                    final String s = attributes.getValue("s");
+                    styleIndex = s == null ? 0 : Integer.parseInt(s);
+                    value = null;
+                    formula = null;
+                    break;
+                case "v":
+                case "t":
+                case "f":
+                    collecting = !skipping;
+                    text.setLength(0);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if (skipping && !"row".equals(localName)) {
+                return;
+            }
+            switch (localName) {
+                case "v":
+                case "t":
+                    value = value == null ? text.toString() : value + text; // 富文本内联字符串有多个t
+                    collecting = false;
+                    break;
+                case "f":
+                    formula = text.toString();
+                    collecting = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        /**
+         * 单元格结束，写入行数据.
+         * @throws SAXException 共享字符串解析异常
+         */
+        private void endCell() throws SAXException {
+            if (formula != null && !formula.isEmpty()) {
+                values.setFormula(col, formula, styleIndex);
+            } else if (value == null) {
+                values.setBlank(col, styleIndex);
+            } else if ("s".equals(cellType)) {
+                try {
+                    values.setString(col, strings.getEntryAt(Integer.parseInt(value)), styleIndex);
+                } catch (final IOException e) {
+                    throw new SAXException(e);
+                }
+            } else if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+                values.setString(col, value, styleIndex);
+            } else if ("b".equals(cellType)) {
+                values.setBoolean(col, "1".equals(value), styleIndex);
+            } else if ("e".equals(cellType)) {
+                values.setError(col, styleIndex);
+            } else {
+                final double number = Double.parseDouble(value);
+                final boolean styled = styleIndex < formatIndexes.length;
+                if (styled && formatIndexes[styleIndex] == Integer.MIN_VALUE) {
+                    final XSSFCellStyle style = styles.getStyleAt(styleIndex);
+                    formatIndexes[styleIndex] = style.getDataFormat();
+                    formatStrings[styleIndex] = style.getDataFormatString();
+                }
+                final String format = styled ? formatStrings[styleIndex] : null;
+                values.setNumber(col, number, styleIndex, format,
+                        styled && dateFormatCache.isDate(styleIndex, formatIndexes[styleIndex], format, number));
+            }
+        }
+
+        /**
+         * 行结束，交给回调.
+         * @throws SAXException 停止读取
+         */
+        private void endRow() throws SAXException {
+            if (skippingRow) {
+                return;
+            }
+            final boolean next;
+            try {
+                next = handler.handleRow(values);
+            } catch (final Exception e) {
+                throw new StopReadingException(e);
+            }
+            if (!next) {
+                throw new StopReadingException(null);
+            }
+        }
+    }
+}
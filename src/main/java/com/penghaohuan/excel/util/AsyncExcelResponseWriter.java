@@ -0,0 +1,344 @@
+package com.penghaohuan.excel.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 异步Excel响应输出.
+ *
+ * <p>
+ *     生成线程通过{@link #getOutputStream()}写入的字节按块放入有界队列，
+ *     容器通过{@link WriteListener}在响应流可写时取出写入，不占用容器线程等待.
+ *     队列满时生成线程阻塞，形成背压；超时、客户端断开或输出异常时取消生成.
+ *     SXSSF在写出工作簿时才产生字节，因此除放入数据块时外，生成线程每读取一行数据也检查一次是否已取消，
+ *     超时后不再继续生成而占用执行器.
+ * </p>
+ * @author penghaohuan
+ */
+final class AsyncExcelResponseWriter implements WriteListener, AsyncListener {
+
+    /**
+     * 日志.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncExcelResponseWriter.class);
+
+    /**
+     * 数据块大小.
+     */
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    /**
+     * 结束标志块.
+     */
+    private static final byte[] EOF = new byte[0];
+
+    /**
+     * 异步上下文.
+     */
+    private final AsyncContext asyncContext;
+
+    /**
+     * 响应输出流.
+     */
+    private final ServletOutputStream output;
+
+    /**
+     * 待输出数据块.
+     */
+    private final BlockingQueue<byte[]> chunks;
+
+    /**
+     * 是否正在向响应流写入.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 是否有待处理的写出请求.
+     * 每次触发写出都先置位，正在写入的线程释放写入权后发现置位则再写一轮，
+     * 避免生成线程写入期间到达的onWritePossible回调丢失.
+     */
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+
+    /**
+     * 是否已结束（完成、取消或失败）.
+     */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * 是否已取消.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * 生成线程使用的输出流.
+     */
+    private final OutputStream chunkOutput = new ChunkOutputStream();
+
+    AsyncExcelResponseWriter(final AsyncContext asyncContext, final ServletOutputStream output, final int queueCapacity) {
+        this.asyncContext = asyncContext;
+        this.output = output;
+        this.chunks = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * 生成线程写入Excel内容的输出流，关闭即表示内容生成完毕.
+     * @return 输出流
+     */
+    OutputStream getOutputStream() {
+        return chunkOutput;
+    }
+
+    /**
+     * 包装实体列表，生成线程每读取一行前检查是否已取消.
+     * @param list 实体列表
+     * @param <T> 类型
+     * @return 已取消时迭代抛出{@link CancellationException}的列表
+     */
+    <T> List<T> cancellable(final List<T> list) {
+        return new AbstractList<T>() {
+            @Override
+            public T get(final int index) {
+                checkCancelled();
+                return list.get(index);
+            }
+
+            @Override
+            public int size() {
+                return list.size();
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                final Iterator<T> iterator = list.iterator();
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        checkCancelled();
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return iterator.next();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * 已取消时停止生成.
+     */
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Excel async export cancelled.");
+        }
+    }
+
+    /**
+     * 生成失败.
+     * @param e 异常
+     */
+    void fail(final Throwable e) {
+        if (finished.get()) {
+            LOGGER.warn("Excel async export stopped: {}", e.getMessage()); // 已超时或客户端已断开
+            return;
+        }
+        LOGGER.error("Excel async export failed.", e);
+        cancelled = true;
+        chunks.clear();
+        final HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        if (!response.isCommitted()) {
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+        finish();
+    }
+
+    @Override
+    public void onWritePossible() {
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+        LOGGER.warn("Excel async export aborted: {}", t.getMessage());
+        cancelled = true;
+        chunks.clear();
+        finish();
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+        cancelled = true;
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+        LOGGER.warn("Excel async export timeout.");
+        cancelled = true;
+        chunks.clear();
+        finish();
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+        onError(event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+        // 不会重复开启异步
+    }
+
+    /**
+     * 在响应流可写时持续写出队列中的数据块.
+     * 容器回调线程与生成线程都可能触发，同一时刻只有一个线程写入；
+     * 其他线程触发时只置位待处理标志，由写入线程在释放写入权后再写一轮.
+     * 响应流不可写时由容器回调onWritePossible，队列为空时由生成线程放入新块后再次触发.
+     */
+    private void drain() {
+        wakeup.set(true);
+        while (wakeup.get() && draining.compareAndSet(false, true)) {
+            wakeup.set(false);
+            try {
+                while (!finished.get() && output.isReady()) {
+                    final byte[] chunk = chunks.poll();
+                    if (chunk == null) {
+                        break;
+                    }
+                    if (chunk == EOF) {
+                        finish();
+                        return;
+                    }
+                    output.write(chunk);
+                }
+            } catch (final IOException e) {
+                onError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * 结束异步请求.
+     */
+    private void finish() {
+        if (finished.compareAndSet(false, true)) {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 生成线程使用的分块输出流.
+     */
+    private final class ChunkOutputStream extends OutputStream {
+
+        /**
+         * 当前数据块.
+         */
+        private byte[] buffer = new byte[CHUNK_SIZE];
+
+        /**
+         * 当前数据块已写入长度.
+         */
+        private int count;
+
+        /**
+         * 是否已关闭.
+         */
+        private boolean closed;
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                final int size = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, size);
+                count += size;
+                off += size;
+                len -= size;
+            }
+        }
+
+        @Override
+        public void flush() {
+            // 只按整块输出，避免频繁flush产生碎片块
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (count > 0) {
+                flushChunk();
+            }
+            enqueue(EOF);
+        }
+
+        /**
+         * 将当前数据块放入队列.
+         * @throws IOException 导出已取消
+         */
+        private void flushChunk() throws IOException {
+            final byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+            enqueue(chunk);
+            buffer = new byte[CHUNK_SIZE];
+            count = 0;
+        }
+
+        /**
+         * 放入队列，队列满时阻塞等待.
+         * @param chunk 数据块
+         * @throws IOException 导出已取消
+         */
+        private void enqueue(final byte[] chunk) throws IOException {
+            try {
+                while (!chunks.offer(chunk, 1, TimeUnit.SECONDS)) {
+                    if (cancelled) {
+                        throw new IOException("Excel async export cancelled.");
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Excel async export interrupted.", e);
+            }
+            if (cancelled) {
+                throw new IOException("Excel async export cancelled.");
+            }
+            drain();
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package com.penghaohuan.excel.util;
 
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
 import com.penghaohuan.excel.handler.ExcelExporter;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * HTTP响应Excel文件工具.
@@ -15,9 +30,29 @@ import java.util.List;
 public class ExcelWebViewUtil {
 
     /**
-     * Sheet页大小.
+     * Sheet页大小，0表示按xlsx单个sheet的行数上限分sheet.
      */
-    private static final Integer SHEET_NUMBER = 60000;
+    private static final int SHEET_NUMBER = 0;
+
+    /**
+     * 异步导出默认超时时间（毫秒）.
+     */
+    private static final long ASYNC_TIMEOUT = 10 * 60 * 1000L;
+
+    /**
+     * 异步导出待输出数据块队列容量，每块32K.
+     */
+    private static final int ASYNC_QUEUE_CAPACITY = 16;
+
+    /**
+     * 异步导出默认执行器.
+     */
+    private static volatile Executor defaultAsyncExecutor;
+
+    /**
+     * 导出实体类型的结构摘要.
+     */
+    private static final Map<Class<?>, String> SCHEMA_HASHES = new ConcurrentHashMap<>();
 
     /**
      * web响应导出Excel.
@@ -43,13 +78,116 @@ public class ExcelWebViewUtil {
      * @param fileName 文件名称
      * @param sheetName sheet名称
      * @param clazz 导出实体类型
-     * @param sheetNumber sheet大小
+     * @param sheetNumber sheet大小，小于1时按xlsx单个sheet的行数上限
      * @param <T> 类型
      * @throws IOException e
      */
     public static <T> void exportExcel(final Class<T> clazz, final List<T> list, final HttpServletRequest request,
                                        final HttpServletResponse response, String fileName, final String sheetName,
                                        final int sheetNumber) throws IOException {
+        prepareResponse(request, response, fileName);
+        final ExcelExporter<T> util = new ExcelExporter<>(clazz);
+        util.exportExcel(list, sheetName, sheetNumber, response.getOutputStream());
+    }
+
+    /**
+     * web响应导出Excel，使用磁盘缓存.
+     * 缓存key由调用方key、sheet配置与导出实体的结构摘要组成，实体的导出属性变化后旧缓存自动失效.
+     * 命中时不查询数据，直接输出缓存文件；同一key并发未命中时只生成一次.
+     * @param clazz 导出实体类型
+     * @param loader 实体列表加载，只在未命中时调用
+     * @param cache 导出缓存
+     * @param cacheKey 缓存key，相同查询与参数应得到相同的key
+     * @param request http请求
+     * @param response http响应
+     * @param fileName 文件名称
+     * @param sheetName sheet名称
+     * @param <T> 类型
+     * @throws IOException e
+     */
+    public static <T> void exportExcel(final Class<T> clazz, final Supplier<List<T>> loader, final ExportCache cache,
+                                       final String cacheKey, final HttpServletRequest request,
+                                       final HttpServletResponse response, String fileName, final String sheetName) throws IOException {
+        final String key = cacheKey + '|' + sheetName + '|' + SHEET_NUMBER + '|' + clazz.getName() + '|' + schemaHash(clazz);
+        final ExportCache.Generator generator = output ->
+                new ExcelExporter<>(clazz).exportExcel(loader.get(), sheetName, SHEET_NUMBER, output);
+        prepareResponse(request, response, fileName);
+        cache.transferTo(key, generator, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * web异步响应导出Excel.
+     * 使用默认的有界执行器和超时时间，见{@link #exportExcelAsync(Class, List, HttpServletRequest, HttpServletResponse, String, String, int, Executor, long)}.
+     * @param list 实体列表
+     * @param request http请求
+     * @param response http响应
+     * @param fileName 文件名称
+     * @param sheetName sheet名称
+     * @param clazz 导出实体类型
+     * @param <T> 类型
+     * @throws IOException e
+     */
+    public static <T> void exportExcelAsync(final Class<T> clazz, final List<T> list, final HttpServletRequest request,
+                                            final HttpServletResponse response, String fileName, final String sheetName) throws IOException {
+        exportExcelAsync(clazz, list, request, response, fileName, sheetName, SHEET_NUMBER, getDefaultAsyncExecutor(), ASYNC_TIMEOUT);
+    }
+
+    /**
+     * web异步响应导出Excel.
+     *
+     * <p>
+     *     基于Servlet 3.1异步非阻塞IO：开启异步请求后立即归还容器线程，Excel在executor中生成，
+     *     生成的字节由{@link javax.servlet.WriteListener}在响应流可写时写出.
+     *     客户端读取慢时生成线程会被阻塞（背压），超时或客户端断开时生成被取消.
+     *     executor已满拒绝任务时响应503.
+     * </p>
+     * @param list 实体列表
+     * @param request http请求，需支持异步（asyncSupported）
+     * @param response http响应
+     * @param fileName 文件名称
+     * @param sheetName sheet名称
+     * @param clazz 导出实体类型
+     * @param sheetNumber sheet大小
+     * @param executor 生成Excel的执行器，应为有界线程池
+     * @param timeout 超时时间（毫秒）
+     * @param <T> 类型
+     * @throws IOException e
+     */
+    public static <T> void exportExcelAsync(final Class<T> clazz, final List<T> list, final HttpServletRequest request,
+                                            final HttpServletResponse response, String fileName, final String sheetName,
+                                            final int sheetNumber, final Executor executor, final long timeout) throws IOException {
+        prepareResponse(request, response, fileName);
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeout);
+        final ServletOutputStream output = response.getOutputStream();
+        final AsyncExcelResponseWriter writer = new AsyncExcelResponseWriter(asyncContext, output, ASYNC_QUEUE_CAPACITY);
+        asyncContext.addListener(writer);
+        output.setWriteListener(writer);
+        final ExcelExporter<T> util = new ExcelExporter<>(clazz);
+        try {
+            executor.execute(() -> {
+                try {
+                    util.exportExcel(writer.cancellable(list), sheetName, sheetNumber, writer.getOutputStream());
+                } catch (final Exception e) {
+                    writer.fail(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Content-Disposition", null);
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 设置Excel下载响应头.
+     * @param request http请求
+     * @param response http响应
+     * @param fileName 文件名称
+     * @throws IOException e
+     */
+    private static void prepareResponse(final HttpServletRequest request, final HttpServletResponse response,
+                                        String fileName) throws IOException {
         if (request.getHeader("User-Agent").toUpperCase().indexOf("MSIE") > 0) {
             fileName = URLEncoder.encode(fileName, "UTF-8");
         } else {
@@ -58,7 +196,58 @@ public class ExcelWebViewUtil {
         response.reset();
         response.setHeader("Content-Disposition", "attachment;fileName=\"" + fileName + "\"");
         response.setContentType("application/ms-excel");
-        final ExcelExporter<T> util = new ExcelExporter<>(clazz);
-        util.exportExcel(list, sheetName, sheetNumber, response.getOutputStream());
+    }
+
+    /**
+     * 计算导出实体的结构摘要.
+     * 按属性声明顺序（即导出列顺序）逐项列出导出属性的名称、类型及注解各配置项，
+     * 不依赖注解toString等与JVM实现相关的格式，取SHA-256.
+     * @param clazz 导出实体类型
+     * @return 摘要
+     */
+    private static String schemaHash(final Class<?> clazz) {
+        return SCHEMA_HASHES.computeIfAbsent(clazz, type -> {
+            final StringBuilder schema = new StringBuilder();
+            for (Field field : type.getDeclaredFields()) {
+                final ExportExcelDesc desc = field.getAnnotation(ExportExcelDesc.class);
+                if (desc != null) {
+                    schema.append(field.getName()).append(':').append(field.getType().getName())
+                            .append("|name=").append(desc.name())
+                            .append("|color=").append(desc.color())
+                            .append("|bold=").append(desc.bold())
+                            .append("|fontName=").append(desc.fontName())
+                            .append("|fontHeightInPoints=").append(desc.fontHeightInPoints())
+                            .append("|columnWidth=").append(desc.columnWidth())
+                            .append("|dictionary=").append(desc.dictionary())
+                            .append("|mergeSame=").append(desc.mergeSame())
+                            .append('\n');
+                }
+            }
+            return ExportCache.digest(schema.toString());
+        });
+    }
+
+    /**
+     * 获取异步导出默认执行器.
+     * 线程数为CPU核数，等待队列有界，队列满时拒绝.
+     * @return 执行器
+     */
+    private static Executor getDefaultAsyncExecutor() {
+        if (defaultAsyncExecutor == null) {
+            synchronized (ExcelWebViewUtil.class) {
+                if (defaultAsyncExecutor == null) {
+                    final int threads = Runtime.getRuntime().availableProcessors();
+                    final AtomicInteger counter = new AtomicInteger();
+                    final ThreadFactory threadFactory = runnable -> {
+                        final Thread thread = new Thread(runnable, "excel-export-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    };
+                    defaultAsyncExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(threads * 4), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+                }
+            }
+        }
+        return defaultAsyncExecutor;
     }
 }
@@ -0,0 +1,356 @@
+package com.penghaohuan.excel.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 导出结果磁盘缓存.
+ *
+ * <p>
+ *     生成的文件以缓存key的SHA-256命名保存在缓存目录中，按总字节数与存活时间做LRU淘汰，重启后目录中已有的文件继续有效.
+ *     命中时通过{@link FileChannel#transferTo}复制到输出通道：目标为文件或套接字通道时可由操作系统直接传输，
+ *     Servlet输出流经{@link java.nio.channels.Channels#newChannel}包装后只是普通的缓冲复制.
+ *     同一key并发未命中时只生成一次，其余请求等待生成完成后共享结果.
+ *     淘汰只删除文件，已打开的文件在POSIX系统上仍可读完.
+ * </p>
+ * @author penghaohuan
+ */
+public final class ExportCache {
+
+    /**
+     * 日志.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportCache.class);
+
+    /**
+     * 缓存文件后缀.
+     */
+    private static final String SUFFIX = ".xlsx";
+
+    /**
+     * 缓存目录.
+     */
+    private final File directory;
+
+    /**
+     * 缓存总字节数上限.
+     */
+    private final long maxBytes;
+
+    /**
+     * 存活时间，毫秒.
+     */
+    private final long ttlMillis;
+
+    /**
+     * 缓存条目，key为缓存key的摘要，按访问顺序排列.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 缓存文件总字节数.
+     */
+    private long totalBytes;
+
+    /**
+     * 生成中的条目.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> generating = new ConcurrentHashMap<>();
+
+    /**
+     * 构造，并加载目录中已有的缓存文件.
+     * @param directory 缓存目录，不存在时创建
+     * @param maxBytes 缓存总字节数上限
+     * @param ttlMillis 存活时间（毫秒）
+     * @throws IOException 创建目录异常
+     */
+    public ExportCache(final File directory, final long maxBytes, final long ttlMillis) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        Files.createDirectories(directory.toPath());
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                final String digest = file.getName().substring(0, file.getName().length() - SUFFIX.length());
+                final Entry entry = new Entry(file, file.length(), file.lastModified());
+                entries.put(digest, entry);
+                totalBytes += entry.size;
+            }
+        }
+        synchronized (entries) {
+            evict(null);
+        }
+    }
+
+    /**
+     * 生成器.
+     */
+    @FunctionalInterface
+    public interface Generator {
+
+        /**
+         * 生成文件内容.
+         * @param output 输出流，由缓存关闭
+         * @throws IOException 生成异常
+         */
+        void write(OutputStream output) throws IOException;
+    }
+
+    /**
+     * 输出缓存的文件，未命中时先生成.
+     * @param key 缓存key
+     * @param generator 生成器，只在未命中时调用
+     * @param target 输出目标，不关闭
+     * @return 输出的字节数
+     * @throws IOException 生成或输出异常
+     */
+    public long transferTo(final String key, final Generator generator, final WritableByteChannel target) throws IOException {
+        try (FileChannel channel = open(digest(key), generator)) {
+            final long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 使缓存失效.
+     * @param key 缓存key
+     */
+    public void invalidate(final String key) {
+        synchronized (entries) {
+            remove(digest(key));
+        }
+    }
+
+    /**
+     * 使所有缓存失效.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+                delete(it.next().getValue());
+                it.remove();
+            }
+            totalBytes = 0;
+        }
+    }
+
+    /**
+     * 打开缓存文件，未命中时生成.
+     * @param digest 缓存key的摘要
+     * @param generator 生成器
+     * @return 文件通道
+     * @throws IOException 生成或打开异常
+     */
+    private FileChannel open(final String digest, final Generator generator) throws IOException {
+        while (true) {
+            final FileChannel cached = openCached(digest);
+            if (cached != null) {
+                return cached;
+            }
+            final CompletableFuture<Void> own = new CompletableFuture<>();
+            final CompletableFuture<Void> running = generating.putIfAbsent(digest, own);
+            if (running == null) {
+                try {
+                    // 未命中到占位之间其他请求可能已生成完成并移除了占位，占位后再检查一次，避免重复生成
+                    final FileChannel recheck = openCached(digest);
+                    final FileChannel channel = recheck != null ? recheck : generate(digest, generator);
+                    own.complete(null);
+                    return channel;
+                } catch (final IOException | RuntimeException | Error e) {
+                    own.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    generating.remove(digest, own);
+                }
+            }
+            await(running);
+        }
+    }
+
+    /**
+     * 打开未过期的缓存文件，过期或文件已丢失的条目被移除.
+     * @param digest 缓存key的摘要
+     * @return 文件通道，未命中时返回null
+     * @throws IOException 打开异常
+     */
+    private FileChannel openCached(final String digest) throws IOException {
+        synchronized (entries) {
+            final Entry entry = entries.get(digest);
+            if (entry != null && entry.createdAt + ttlMillis > System.currentTimeMillis()) {
+                try {
+                    return FileChannel.open(entry.file.toPath(), StandardOpenOption.READ);
+                } catch (final NoSuchFileException e) {
+                    LOGGER.warn("Cached export file is missing: {}", entry.file);
+                }
+            }
+            if (entry != null) {
+                remove(digest);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 生成文件并加入缓存.
+     * 先写入临时文件，完成后原子改名，生成失败不会留下不完整的缓存文件.
+     * @param digest 缓存key的摘要
+     * @param generator 生成器
+     * @return 文件通道
+     * @throws IOException 生成异常
+     */
+    private FileChannel generate(final String digest, final Generator generator) throws IOException {
+        final File temp = File.createTempFile(digest, ".tmp", directory);
+        try {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temp.toPath()), 1 << 16)) {
+                generator.write(output);
+            }
+            final File file = new File(directory, digest + SUFFIX);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (entries) {
+                final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                final Entry entry = new Entry(file, channel.size(), System.currentTimeMillis());
+                remove(digest);
+                entries.put(digest, entry);
+                totalBytes += entry.size;
+                evict(digest);
+                return channel;
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * 等待其他请求生成完成.
+     * @param running 生成中的条目
+     * @throws IOException 生成异常或等待被中断
+     */
+    private static void await(final CompletableFuture<Void> running) throws IOException {
+        try {
+            running.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for export generation.");
+        } catch (final ExecutionException e) {
+            throw new IOException("Export generation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 淘汰过期条目，再按LRU淘汰直到总字节数不超过上限.
+     * 刚生成的条目单独超过上限时也会被删除，本次请求仍可通过已打开的通道读完.
+     * @param current 刚生成的条目，最后淘汰
+     */
+    private void evict(final String current) {
+        final long expiredBefore = System.currentTimeMillis() - ttlMillis;
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<String, Entry> next = it.next();
+            final Entry entry = next.getValue();
+            if (entry.createdAt <= expiredBefore || totalBytes > maxBytes && !next.getKey().equals(current)) {
+                it.remove();
+                totalBytes -= entry.size;
+                delete(entry);
+            }
+        }
+        if (totalBytes > maxBytes && current != null) {
+            remove(current);
+        }
+    }
+
+    /**
+     * 移除条目并删除文件.
+     * @param digest 缓存key的摘要
+     */
+    private void remove(final String digest) {
+        final Entry entry = entries.remove(digest);
+        if (entry != null) {
+            totalBytes -= entry.size;
+            delete(entry);
+        }
+    }
+
+    /**
+     * 删除缓存文件.
+     * @param entry 缓存条目
+     */
+    private static void delete(final Entry entry) {
+        try {
+            Files.deleteIfExists(entry.file.toPath());
+        } catch (final IOException e) {
+            LOGGER.warn("Delete cached export file failed: " + entry.file, e);
+        }
+    }
+
+    /**
+     * 计算缓存key的摘要.
+     * @param key 缓存key
+     * @return SHA-256摘要，十六进制小写
+     */
+    static String digest(final String key) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest(key.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 缓存条目.
+     */
+    private static final class Entry {
+
+        /**
+         * 缓存文件.
+         */
+        private final File file;
+
+        /**
+         * 文件字节数.
+         */
+        private final long size;
+
+        /**
+         * 生成时间.
+         */
+        private final long createdAt;
+
+        Entry(final File file, final long size, final long createdAt) {
+            this.file = file;
+            this.size = size;
+            this.createdAt = createdAt;
+        }
+    }
+}
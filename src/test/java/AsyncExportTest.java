@@ -0,0 +1,259 @@
+import com.penghaohuan.excel.util.ExcelWebViewUtil;
+import example.ExampleVO;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步导出：用桩模拟容器的异步上下文与非阻塞响应流.
+ */
+public class AsyncExportTest {
+
+    private static final int ROWS = 30000;
+
+    @Test(timeout = 120000)
+    public void testBackpressure() throws Exception {
+        final StubContainer container = new StubContainer();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ExcelWebViewUtil.exportExcelAsync(ExampleVO.class, list(), container.request, container.response,
+                    "demo.xlsx", "sheet", 0, executor, 60000);
+            Thread.sleep(1000);
+            Assert.assertEquals(0, container.output.size()); // 响应流不可写，生成线程在队列满时阻塞
+            Assert.assertEquals(1, container.completed.getCount());
+
+            container.output.setReady(true); // 之后每次不可写后容器都立即在另一个线程回调onWritePossible
+            Assert.assertTrue(container.completed.await(60, TimeUnit.SECONDS));
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(container.output.toByteArray()))) {
+                Assert.assertEquals(ROWS, workbook.getSheetAt(0).getLastRowNum());
+            }
+            Assert.assertTrue(container.output.notReadyCount > 0);
+        } finally {
+            executor.shutdownNow();
+            container.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testTimeout() throws Exception {
+        final StubContainer container = new StubContainer();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ExcelWebViewUtil.exportExcelAsync(ExampleVO.class, list(), container.request, container.response,
+                    "demo.xlsx", "sheet", 0, executor, 1000);
+            Thread.sleep(1000);
+            container.timeout();
+            Assert.assertEquals(0, container.completed.getCount());
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS)); // 生成被取消，不再占用执行器
+            Assert.assertEquals(0, container.output.size());
+        } finally {
+            executor.shutdownNow();
+            container.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        final StubContainer container = new StubContainer();
+        ExcelWebViewUtil.exportExcelAsync(ExampleVO.class, list(), container.request, container.response,
+                "demo.xlsx", "sheet", 0, command -> {
+                    throw new RejectedExecutionException();
+                }, 60000);
+        Assert.assertEquals(0, container.completed.getCount());
+        Assert.assertEquals(Integer.valueOf(HttpServletResponse.SC_SERVICE_UNAVAILABLE), container.status);
+        Assert.assertNull(container.headers.get("Content-Disposition"));
+        Assert.assertEquals(0, container.output.size());
+        container.shutdown();
+    }
+
+    private List<ExampleVO> list() {
+        final List<ExampleVO> list = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            final ExampleVO vo = new ExampleVO();
+            vo.setNo("D" + i);
+            vo.setAge(i % 100);
+            list.add(vo);
+        }
+        return list;
+    }
+
+    /**
+     * 容器桩：请求、响应与异步上下文，异步上下文结束时计数.
+     */
+    private static final class StubContainer {
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private final List<AsyncListener> listeners = new ArrayList<>();
+
+        private final Map<String, String> headers = new HashMap<>();
+
+        private final ExecutorService callbacks = Executors.newSingleThreadExecutor();
+
+        private final StubOutputStream output = new StubOutputStream(callbacks);
+
+        private volatile Integer status;
+
+        private final HttpServletResponse response = proxy(HttpServletResponse.class, (method, args) -> {
+            switch (method) {
+                case "getOutputStream":
+                    return output;
+                case "setStatus":
+                    status = (Integer) args[0];
+                    return null;
+                case "setHeader":
+                    headers.put((String) args[0], (String) args[1]);
+                    return null;
+                case "isCommitted":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+
+        private final AsyncContext asyncContext = proxy(AsyncContext.class, (method, args) -> {
+            switch (method) {
+                case "addListener":
+                    listeners.add((AsyncListener) args[0]);
+                    return null;
+                case "getResponse":
+                    return response;
+                case "complete":
+                    completed.countDown();
+                    return null;
+                default:
+                    return null;
+            }
+        });
+
+        private final HttpServletRequest request = proxy(HttpServletRequest.class, (method, args) -> {
+            switch (method) {
+                case "getHeader":
+                    return "JUnit";
+                case "startAsync":
+                    return asyncContext;
+                default:
+                    return null;
+            }
+        });
+
+        private void timeout() throws IOException {
+            for (AsyncListener listener : listeners) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+        }
+
+        private void shutdown() {
+            callbacks.shutdownNow();
+        }
+    }
+
+    /**
+     * 非阻塞响应流桩：不可写期间isReady返回false，可写后每隔一次返回false，并由容器线程回调onWritePossible.
+     */
+    private static final class StubOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        private final ExecutorService callbacks;
+
+        private volatile WriteListener listener;
+
+        private volatile boolean ready;
+
+        private volatile boolean pending;
+
+        private int calls;
+
+        private volatile int notReadyCount;
+
+        private StubOutputStream(final ExecutorService callbacks) {
+            this.callbacks = callbacks;
+        }
+
+        private synchronized void setReady(final boolean ready) {
+            this.ready = ready;
+            if (ready && pending) {
+                pending = false;
+                callbacks.execute(this::writePossible);
+            }
+        }
+
+        @Override
+        public synchronized boolean isReady() {
+            if (ready && calls++ % 2 == 0) {
+                return true;
+            }
+            notReadyCount++;
+            if (ready) {
+                callbacks.execute(this::writePossible);
+            } else {
+                pending = true;
+            }
+            return false;
+        }
+
+        private void writePossible() {
+            try {
+                listener.onWritePossible();
+            } catch (final IOException e) {
+                listener.onError(e);
+            }
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+
+        @Override
+        public synchronized void write(final int b) {
+            data.write(b);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) {
+            data.write(b, off, len);
+        }
+
+        private synchronized int size() {
+            return data.size();
+        }
+
+        private synchronized byte[] toByteArray() {
+            return data.toByteArray();
+        }
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args));
+    }
+}
@@ -0,0 +1,85 @@
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.BatchValidator;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportRow;
+import example.AccountVO;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class BatchValidatorTest {
+
+    @Test
+    public void testBatchValidate() throws IOException, ExcelTemplateException {
+        final ExistenceValidator validator = new ExistenceValidator(new HashSet<>(Arrays.asList("A", "B", "D", "E")));
+        final ImportOptions options = new ImportOptions();
+        options.setBatchValidator(validator);
+        options.setValidateChunkSize(2);
+        final List<String> delivered = new ArrayList<>();
+        try {
+            new ExcelImporter<>(AccountVO.class).importExcel(new ByteArrayInputStream(write()), 1, options,
+                    (entity, rowNumber) -> delivered.add(entity.getCode()));
+            Assert.fail();
+        } catch (final ExcelValidateException e) {
+            Assert.assertTrue(e.getMessage().contains("第4行账号C不存在"));
+        }
+        Assert.assertEquals(3, validator.calls); // 5行，每批2行
+        Assert.assertEquals(Arrays.asList("A", "B", "D", "E"), delivered);
+    }
+
+    private byte[] write() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            final Sheet sheet = workbook.createSheet();
+            final Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("账号");
+            header.createCell(1).setCellValue("名称");
+            for (String code : new String[]{"A", "B", "C", "D", "E"}) {
+                final Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+                row.createCell(0).setCellValue(code);
+                row.createCell(1).setCellValue(code.toLowerCase());
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 按内存中的账号集合校验存在性，代替数据库查询.
+     */
+    private static final class ExistenceValidator implements BatchValidator<AccountVO> {
+
+        private final Set<String> codes;
+
+        private int calls;
+
+        ExistenceValidator(final Set<String> codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        public List<String> validate(final List<ImportRow<AccountVO>> rows) {
+            calls++;
+            final List<String> results = new ArrayList<>(rows.size());
+            for (ImportRow<AccountVO> row : rows) {
+                final String code = row.getEntity().getCode();
+                results.add(codes.contains(code) ? null : "账号" + code + "不存在");
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelExporter;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import example.ExampleVO;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 同一个导入器、导出器实例在多线程间共享.
+ * ExampleVO的单元格校验器与行校验器都标注了@StatelessValidator，所有导入共用同一个校验器实例.
+ */
+public class ConcurrentImportTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ROWS = 200;
+
+    @Test
+    public void testSharedImporter() throws Exception {
+        final ExcelImporter<ExampleVO> importer = new ExcelImporter<>(ExampleVO.class);
+        final List<byte[]> files = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            files.add(write(t));
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int round = 0; round < 3; round++) {
+                        assertImported(importer, files.get(thread), thread);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSharedExporter() throws Exception {
+        final ExcelExporter<ExampleVO> exporter = new ExcelExporter<>(ExampleVO.class);
+        final ExcelImporter<ExampleVO> importer = new ExcelImporter<>(ExampleVO.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<List<ExampleVO>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final List<ExampleVO> list = new ArrayList<>();
+                for (int i = 0; i < ROWS; i++) {
+                    final ExampleVO vo = new ExampleVO();
+                    vo.setNo("D" + t + "-" + i);
+                    vo.setAge(t);
+                    list.add(vo);
+                }
+                futures.add(executor.submit(() -> {
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    exporter.exportExcel(list, "sheet", ROWS, out);
+                    return readBack(out.toByteArray());
+                }));
+            }
+            for (int t = 0; t < THREADS; t++) {
+                final List<ExampleVO> exported = futures.get(t).get();
+                Assert.assertEquals(ROWS, exported.size());
+                Assert.assertEquals("D" + t + "-" + (ROWS - 1), exported.get(ROWS - 1).getNo());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 偶数线程的文件全部合法；奇数线程的文件中第线程号+2行编号不以D开头，只能报告本文件的这一行.
+     */
+    private void assertImported(final ExcelImporter<ExampleVO> importer, final byte[] file, final int thread) throws Exception {
+        try {
+            final List<ExampleVO> list = importer.importExcel(new ByteArrayInputStream(file), 1);
+            Assert.assertEquals(0, thread % 2);
+            Assert.assertEquals(ROWS, list.size());
+            for (int i = 0; i < ROWS; i++) {
+                Assert.assertEquals(no(thread, i), list.get(i).getNo());
+                Assert.assertEquals(Integer.valueOf(thread), list.get(i).getAge());
+            }
+        } catch (final ExcelValidateException e) {
+            Assert.assertEquals(1, thread % 2);
+            Assert.assertEquals("第" + (thread + 2) + "行【编号】列格式错误，未以字母D开头", e.getMessage().trim());
+        }
+    }
+
+    private List<ExampleVO> readBack(final byte[] file) throws Exception {
+        final Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(file));
+        final List<ExampleVO> list = new ArrayList<>();
+        final Sheet sheet = workbook.getSheetAt(0);
+        for (int rowNum = 1; rowNum <= sheet.getLastRowNum(); rowNum++) {
+            final ExampleVO vo = new ExampleVO();
+            vo.setNo(sheet.getRow(rowNum).getCell(0).getStringCellValue());
+            list.add(vo);
+        }
+        workbook.close();
+        return list;
+    }
+
+    private static String no(final int thread, final int i) {
+        return "D1990" + thread + "-" + i;
+    }
+
+    private byte[] write(final int thread) throws IOException {
+        final Workbook workbook = new XSSFWorkbook();
+        final CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/m/d"));
+        final Sheet sheet = workbook.createSheet();
+        final Row head = sheet.createRow(0);
+        head.createCell(0).setCellValue("编号");
+        head.createCell(1).setCellValue("年龄");
+        head.createCell(2).setCellValue("出生年月日");
+        head.createCell(3).setCellValue("手机号码");
+        final Calendar birth = Calendar.getInstance();
+        birth.clear();
+        birth.set(1990, Calendar.MAY, 1);
+        for (int i = 0; i < ROWS; i++) {
+            final Row row = sheet.createRow(i + 1);
+            row.createCell(0).setCellValue(thread % 2 == 1 && i == thread ? "X" + thread : no(thread, i));
+            row.createCell(1).setCellValue(thread);
+            row.createCell(2).setCellValue(birth.getTime());
+            row.getCell(2).setCellStyle(dateStyle);
+            row.createCell(3).setCellValue("13700000000");
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+        workbook.close();
+        return out.toByteArray();
+    }
+}
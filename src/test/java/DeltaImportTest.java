@@ -0,0 +1,70 @@
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.handler.ImportSnapshot;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import example.AccountVO;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+public class DeltaImportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDeltaImport() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportResult<AccountVO> first = importAccounts(new ImportSnapshot(), new String[][] {{"A", "a1"}, {"B", "b1"}, {"C", "c1"}});
+        Assert.assertEquals(3, first.getData().size());
+        Assert.assertEquals(3, first.getInsertedRowCount());
+
+        final File file = new File(folder.getRoot(), "accounts.snapshot");
+        first.getSnapshot().save(file);
+        final ImportResult<AccountVO> second = importAccounts(ImportSnapshot.load(file),
+                new String[][] {{"A", "a1"}, {"C", "c2"}, {"D", "d1"}});
+        Assert.assertEquals("c2,d1", second.getData().stream().map(AccountVO::getName).collect(Collectors.joining(",")));
+        Assert.assertEquals(1, second.getInsertedRowCount());
+        Assert.assertEquals(1, second.getUpdatedRowCount());
+        Assert.assertEquals(1, second.getUnchangedRowCount());
+        Assert.assertEquals(Collections.singletonList("B"), second.getDeletedKeys());
+        Assert.assertEquals(3, second.getSnapshot().size());
+    }
+
+    private ImportResult<AccountVO> importAccounts(final ImportSnapshot previous, final String[][] rows)
+            throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setPreviousSnapshot(previous);
+        return new ExcelImporter<>(AccountVO.class).importExcelWithResult(new ByteArrayInputStream(write(rows)), 1, options);
+    }
+
+    private byte[] write(final String[][] rows) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            final Sheet sheet = workbook.createSheet();
+            final Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("账号");
+            header.createCell(1).setCellValue("名称");
+            for (int i = 0; i < rows.length; i++) {
+                final Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(rows[i][0]);
+                row.createCell(1).setCellValue(rows[i][1]);
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
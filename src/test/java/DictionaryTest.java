@@ -0,0 +1,93 @@
+import com.penghaohuan.excel.dictionary.Dictionaries;
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelExporter;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.model.ValidationError;
+import example.MemberVO;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DictionaryTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        Dictionaries.setProvider(name -> {
+            loads.incrementAndGet();
+            final Map<String, String> entries = new HashMap<>();
+            entries.put("1", "男");
+            entries.put("2", "女");
+            return "gender".equals(name) ? entries : null;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        Dictionaries.setProvider(null);
+    }
+
+    @Test
+    public void testExportAndImport() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final MemberVO tom = new MemberVO();
+        tom.setName("Tom");
+        tom.setGender(1);
+        final MemberVO amy = new MemberVO();
+        amy.setName("Amy");
+        amy.setGender(2);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(MemberVO.class).exportExcel(Arrays.asList(tom, amy), "sheet", 100, out);
+
+        final List<MemberVO> list = new ExcelImporter<>(MemberVO.class).importExcel(new ByteArrayInputStream(out.toByteArray()), 1);
+        Assert.assertEquals(Integer.valueOf(1), list.get(0).getGender());
+        Assert.assertEquals(Integer.valueOf(2), list.get(1).getGender());
+        Assert.assertEquals(1, loads.get()); // 导出与导入共享缓存
+    }
+
+    @Test
+    public void testUnknownLabel() throws IOException, ExcelTemplateException {
+        try {
+            new ExcelImporter<>(MemberVO.class).importExcel(new ByteArrayInputStream(write("女", "未知", "1")), 1);
+            Assert.fail();
+        } catch (final ExcelValidateException e) {
+            Assert.assertEquals(1, e.getErrors().size());
+            final ValidationError error = e.getErrors().get(0);
+            Assert.assertEquals(3, error.getRow());
+            Assert.assertEquals("性别", error.getColumn());
+            Assert.assertEquals("未知", error.getValue());
+        }
+    }
+
+    private byte[] write(final String... genders) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            final Sheet sheet = workbook.createSheet();
+            final Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("姓名");
+            header.createCell(1).setCellValue("性别");
+            for (String gender : genders) {
+                final Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+                row.createCell(0).setCellValue("N" + row.getRowNum());
+                row.createCell(1).setCellValue(gender);
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.model.DuplicateKey;
+import com.penghaohuan.excel.model.DuplicatePolicy;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import example.AccountVO;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class DuplicateKeyTest {
+
+    private static final String[][] ROWS = {{"A", "a1"}, {"B", "b1"}, {"A", "a2"}, {"C", "c1"}, {"B", "b2"}};
+
+    @Test
+    public void testKeepFirst() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportResult<AccountVO> result = importAccounts(DuplicatePolicy.KEEP_FIRST);
+        Assert.assertEquals("a1,b1,c1", names(result.getData()));
+        Assert.assertEquals(2, result.getDuplicates().size());
+        final DuplicateKey duplicate = result.getDuplicates().get(1);
+        Assert.assertEquals("B", duplicate.getKey());
+        Assert.assertEquals(3, duplicate.getFirstRow());
+        Assert.assertEquals(6, duplicate.getDuplicateRow());
+    }
+
+    @Test
+    public void testKeepLast() throws IOException, ExcelValidateException, ExcelTemplateException {
+        Assert.assertEquals("a2,c1,b2", names(importAccounts(DuplicatePolicy.KEEP_LAST).getData()));
+    }
+
+    @Test
+    public void testReject() throws IOException, ExcelTemplateException {
+        try {
+            importAccounts(DuplicatePolicy.REJECT);
+            Assert.fail();
+        } catch (final ExcelValidateException e) {
+            Assert.assertTrue(e.getMessage().contains("第4行关键字段【A】与第2行重复"));
+        }
+    }
+
+    private ImportResult<AccountVO> importAccounts(final DuplicatePolicy policy)
+            throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setDuplicatePolicy(policy);
+        options.setMaxKeysInMemory(2); // 超过2个指纹即写入临时文件
+        return new ExcelImporter<>(AccountVO.class).importExcelWithResult(new ByteArrayInputStream(write()), 1, options);
+    }
+
+    private byte[] write() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            final Sheet sheet = workbook.createSheet();
+            final Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("账号");
+            header.createCell(1).setCellValue("名称");
+            for (int i = 0; i < ROWS.length; i++) {
+                final Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(ROWS[i][0]);
+                row.createCell(1).setCellValue(ROWS[i][1]);
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private String names(final List<AccountVO> list) {
+        return list.stream().map(AccountVO::getName).collect(Collectors.joining(","));
+    }
+}
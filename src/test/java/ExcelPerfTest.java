@@ -0,0 +1,354 @@
+import com.penghaohuan.excel.handler.ExcelExporter;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import example.PerfRowVO;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationConstraint;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellRangeAddressList;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 性能回归测试，只在perf profile中运行：mvn test -Pperf.
+ * 在本地生成大工作簿后端到端导入、导出，按perf.rows中的每个行数各运行一次，记录每秒行数、峰值堆内存与每单元格分配字节数.
+ * 完整加载（DOM）导入的内存与单元格数成正比，只在不超过perf.domMaxRows行时运行，使用较窄的表，名称列按组纵向合并以覆盖合并单元格的解析.
+ * 每单元格分配字节数与硬件无关，按pom中提交的预算检查；每秒行数与峰值堆内存与机器相关，
+ * 与本机基线（默认在用户目录下，不提交）比较，基线按运行环境区分，某环境首次运行时记录，确认性能变化后使用-Dperf.updateBaseline=true重新记录.
+ */
+@RunWith(Parameterized.class)
+public class ExcelPerfTest {
+
+    private static final int COLUMNS = Integer.getInteger("perf.columns", 60);
+
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("perf.tolerance", "20")) / 100;
+
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("perf.updateBaseline");
+
+    private static final File BASELINE = new File(System.getProperty("perf.baseline",
+            System.getProperty("user.home") + "/.poi-excel-annotation/perf-baseline.properties"));
+
+    /**
+     * 运行环境，基线按环境区分.
+     */
+    private static final String ENVIRONMENT = System.getProperty("os.arch") + "-" + Runtime.getRuntime().availableProcessors()
+            + "cpu-java" + System.getProperty("java.specification.version") + "-" + (Runtime.getRuntime().maxMemory() >> 20) + "m";
+
+    /**
+     * 导出实体的列数.
+     */
+    private static final int EXPORT_COLUMNS = 6;
+
+    /**
+     * 完整加载导入的表的列数.
+     */
+    private static final int DOM_COLUMNS = 8;
+
+    /**
+     * 完整加载导入的最大行数.
+     */
+    private static final int DOM_MAX_ROWS = Integer.getInteger("perf.domMaxRows", 100000);
+
+    /**
+     * 完整加载导入的表中名称列每组合并的行数.
+     */
+    private static final int MERGE_GROUP = 10;
+
+    private static final File WORK_DIR = new File(System.getProperty("perf.workDir", "target/perf"));
+
+    private static final Properties RESULTS = new Properties();
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final int rows;
+
+    public ExcelPerfTest(final int rows) {
+        this.rows = rows;
+    }
+
+    @Parameterized.Parameters(name = "rows={0}")
+    public static List<Object[]> parameters() {
+        final List<Object[]> parameters = new ArrayList<>();
+        for (String rows : System.getProperty("perf.rows", "100000").split(",")) {
+            parameters.add(new Object[] {Integer.parseInt(rows.trim())});
+        }
+        return parameters;
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        final List<PerfRowVO> list = new AbstractList<PerfRowVO>() { // 按需生成，不在内存中保留
+            @Override
+            public PerfRowVO get(final int index) {
+                return new PerfRowVO("NO" + index, "名称" + index / 3, index % 100, index % 997 / 10.0,
+                        new Date(index % 3650 * DAY), index % 100 * (index % 997 / 10.0));
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        };
+        final File file = new File(WORK_DIR, "export-" + rows + ".xlsx");
+        final Measurement measurement = measure((long) rows * EXPORT_COLUMNS, () -> {
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                new ExcelExporter<>(PerfRowVO.class).exportExcel(list, "Perf", 0, out);
+            }
+        });
+        check("export", measurement);
+    }
+
+    @Test
+    public void testStreamingImport() throws Exception {
+        final File file = generate(COLUMNS, false);
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(true);
+        final AtomicLong imported = new AtomicLong();
+        final Measurement measurement = measure((long) rows * COLUMNS, () -> {
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                final ImportResult<PerfRowVO> result = new ExcelImporter<>(PerfRowVO.class)
+                        .importExcel(input, 1, options, (entity, rowNumber) -> imported.incrementAndGet());
+                Assert.assertEquals(rows, result.getDataRowCount());
+            }
+        });
+        Assert.assertEquals(rows, imported.get());
+        check("import.streaming", measurement);
+    }
+
+    @Test
+    public void testDomImport() throws Exception {
+        Assume.assumeTrue("DOM import is only measured up to perf.domMaxRows rows", rows <= DOM_MAX_ROWS);
+        final File file = generate(DOM_COLUMNS, true);
+        final AtomicLong imported = new AtomicLong();
+        final Measurement measurement = measure((long) rows * DOM_COLUMNS, () -> {
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                final ImportResult<PerfRowVO> result = new ExcelImporter<>(PerfRowVO.class)
+                        .importExcel(input, 1, new ImportOptions(), (entity, rowNumber) -> {
+                            if (entity.getName() != null) { // 合并区域内的行取合并区域左上角的值
+                                imported.incrementAndGet();
+                            }
+                        });
+                Assert.assertEquals(rows, result.getDataRowCount());
+            }
+        });
+        Assert.assertEquals(rows, imported.get());
+        check("import.dom", measurement);
+    }
+
+    @AfterClass
+    public static void saveResults() throws IOException {
+        try (Writer writer = Files.newBufferedWriter(new File(WORK_DIR, "perf-result.properties").toPath(), StandardCharsets.UTF_8)) {
+            RESULTS.store(writer, "environment=" + ENVIRONMENT + ", columns=" + COLUMNS);
+        }
+        final Properties baseline = loadBaseline();
+        boolean changed = false;
+        for (String key : RESULTS.stringPropertyNames()) {
+            if (!key.endsWith(".bytesPerCell") && (UPDATE_BASELINE || !baseline.containsKey(key))) {
+                baseline.setProperty(key, RESULTS.getProperty(key));
+                changed = true;
+            }
+        }
+        if (changed) {
+            Files.createDirectories(BASELINE.getAbsoluteFile().getParentFile().toPath());
+            try (Writer writer = Files.newBufferedWriter(BASELINE.toPath(), StandardCharsets.UTF_8)) {
+                baseline.store(writer, "Local performance baseline, regenerate with: mvn test -Pperf -Dperf.updateBaseline=true");
+            }
+        }
+    }
+
+    /**
+     * 生成导入用的表：映射列之外还有合并单元格、公式与数据有效性，已生成时直接使用.
+     * @param columns 列数
+     * @param mergeNames 名称列是否每{@link #MERGE_GROUP}行纵向合并，只在每组第一行写入名称
+     */
+    private File generate(final int columns, final boolean mergeNames) throws IOException {
+        final File file = new File(WORK_DIR, "import-" + rows + "x" + columns + (mergeNames ? "-merged" : "") + ".xlsx");
+        if (file.isFile()) {
+            return file;
+        }
+        Files.createDirectories(WORK_DIR.toPath());
+        final SXSSFWorkbook workbook = new SXSSFWorkbook(200);
+        try {
+            final CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            final SXSSFSheet sheet = workbook.createSheet("Perf");
+            final String[] names = {"编号", "名称", "数量", "单价", "日期", "金额"};
+            final Row head = sheet.createRow(0);
+            for (int col = 0; col < columns; col++) {
+                head.createCell(col).setCellValue(col < names.length ? names[col] : "备注" + col);
+            }
+            for (int i = 1; i <= rows; i++) {
+                final Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("NO" + i);
+                if (!mergeNames) {
+                    row.createCell(1).setCellValue("名称" + i / 3);
+                } else if ((i - 1) % MERGE_GROUP == 0) {
+                    row.createCell(1).setCellValue("名称" + (i - 1) / MERGE_GROUP);
+                    if (i < rows) {
+                        sheet.addMergedRegionUnsafe(new CellRangeAddress(i, Math.min(i + MERGE_GROUP - 1, rows), 1, 1));
+                    }
+                }
+                row.createCell(2).setCellValue(i % 100);
+                row.createCell(3).setCellValue(i % 997 / 10.0);
+                row.createCell(4).setCellValue(new Date(i % 3650 * DAY));
+                row.getCell(4).setCellStyle(dateStyle);
+                row.createCell(5).setCellValue(i % 100 * (i % 997 / 10.0));
+                row.createCell(names.length).setCellFormula("C" + (i + 1) + "*D" + (i + 1)); // 未映射的公式列
+                for (int col = names.length + 1; col < columns; col++) {
+                    if (col % 2 == 0) {
+                        row.createCell(col).setCellValue("备注" + (i + col) % 5000);
+                    } else {
+                        row.createCell(col).setCellValue(i * col);
+                    }
+                }
+                if (i % 50 == 0 && columns > names.length + 2) {
+                    sheet.addMergedRegionUnsafe(new CellRangeAddress(i, i, names.length + 1, names.length + 2));
+                }
+            }
+            final DataValidationHelper helper = sheet.getDataValidationHelper();
+            final DataValidationConstraint constraint = helper.createIntegerConstraint(
+                    DataValidationConstraint.OperatorType.BETWEEN, "0", "99");
+            final DataValidation validation = helper.createValidation(constraint, new CellRangeAddressList(1, rows, 2, 2));
+            sheet.addValidationData(validation);
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                workbook.write(out);
+            }
+        } finally {
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    private Measurement measure(final long cells, final Task task) throws IOException {
+        Files.createDirectories(WORK_DIR.toPath());
+        final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (final IOException | RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+        final long nanos = System.nanoTime() - start;
+        final long allocatedAfter = allocatedBytes();
+        final Measurement measurement = new Measurement();
+        measurement.rowsPerSecond = rows * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+        for (MemoryPoolMXBean pool : heapPools) {
+            measurement.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        measurement.bytesPerCell = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / cells;
+        return measurement;
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM不支持时返回-1.
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * 记录结果并检查预算：每单元格分配字节数不超过pom中的预算，
+     * 每秒行数不低于本机基线的(1-容差)，峰值堆不高于本机基线的(1+容差).
+     */
+    private void check(final String name, final Measurement measurement) throws IOException {
+        final String prefix = ENVIRONMENT + "." + name + ".rows" + rows + ".";
+        System.out.println(name + " (" + rows + " rows): " + measurement.rowsPerSecond + " rows/s, peak heap "
+                + measurement.peakHeapBytes + " bytes, " + measurement.bytesPerCell + " bytes/cell");
+        RESULTS.setProperty(prefix + "rowsPerSecond", String.valueOf(measurement.rowsPerSecond));
+        RESULTS.setProperty(prefix + "peakHeapBytes", String.valueOf(measurement.peakHeapBytes));
+        final List<String> violations = new ArrayList<>();
+        if (measurement.bytesPerCell >= 0) {
+            RESULTS.setProperty(prefix + "bytesPerCell", String.valueOf(measurement.bytesPerCell));
+            final String budget = System.getProperty("perf.maxBytesPerCell." + name);
+            if (budget != null && measurement.bytesPerCell > Long.parseLong(budget)) {
+                violations.add("bytesPerCell " + measurement.bytesPerCell + " > " + budget);
+            }
+        }
+        final Properties baseline = loadBaseline();
+        if (UPDATE_BASELINE || !baseline.containsKey(prefix + "rowsPerSecond")) {
+            System.out.println("Recording local baseline for " + prefix + "* in " + BASELINE);
+        } else {
+            final long minRowsPerSecond = (long) (Long.parseLong(baseline.getProperty(prefix + "rowsPerSecond")) * (1 - TOLERANCE));
+            if (measurement.rowsPerSecond < minRowsPerSecond) {
+                violations.add("rowsPerSecond " + measurement.rowsPerSecond + " < " + minRowsPerSecond);
+            }
+            final String peakHeap = baseline.getProperty(prefix + "peakHeapBytes");
+            final long maxPeakHeap = peakHeap == null ? Long.MAX_VALUE : (long) (Long.parseLong(peakHeap) * (1 + TOLERANCE));
+            if (measurement.peakHeapBytes > maxPeakHeap) {
+                violations.add("peakHeapBytes " + measurement.peakHeapBytes + " > " + maxPeakHeap);
+            }
+        }
+        if (!violations.isEmpty()) {
+            Assert.fail(name + " (" + rows + " rows) exceeded its performance budget: " + violations);
+        }
+    }
+
+    private static Properties loadBaseline() throws IOException {
+        final Properties baseline = new Properties();
+        if (BASELINE.isFile()) {
+            try (Reader reader = Files.newBufferedReader(BASELINE.toPath(), StandardCharsets.UTF_8)) {
+                baseline.load(reader);
+            }
+        }
+        return baseline;
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static final class Measurement {
+
+        private long rowsPerSecond;
+
+        private long peakHeapBytes;
+
+        private long bytesPerCell;
+    }
+}
@@ -0,0 +1,67 @@
+import com.penghaohuan.excel.util.ExportCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExportCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSingleFlightAndHit() throws Exception {
+        final ExportCache cache = new ExportCache(folder.getRoot(), 1 << 20, 60000);
+        final AtomicInteger generations = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final ExportCache.Generator generator = output -> {
+            generations.incrementAndGet();
+            started.countDown();
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (final InterruptedException e) {
+                throw new IOException(e);
+            }
+            output.write("report".getBytes("UTF-8"));
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> first = executor.submit(() -> read(cache, "a", generator));
+            started.await();
+            final Future<String> second = executor.submit(() -> read(cache, "a", generator));
+            Assert.assertEquals("report", first.get());
+            Assert.assertEquals("report", second.get());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("report", read(cache, "a", output -> Assert.fail()));
+        Assert.assertEquals(1, generations.get());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final ExportCache cache = new ExportCache(folder.getRoot(), 10, 60000);
+        read(cache, "a", output -> output.write(new byte[6]));
+        read(cache, "b", output -> output.write(new byte[6]));
+        final AtomicInteger generations = new AtomicInteger();
+        read(cache, "b", output -> generations.incrementAndGet());
+        read(cache, "a", output -> generations.incrementAndGet());
+        Assert.assertEquals(1, generations.get());
+    }
+
+    private String read(final ExportCache cache, final String key, final ExportCache.Generator generator) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.transferTo(key, generator, Channels.newChannel(out));
+        return out.toString("UTF-8");
+    }
+}
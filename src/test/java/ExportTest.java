@@ -1,13 +1,28 @@
 import com.penghaohuan.excel.handler.ExcelExporter;
+import com.penghaohuan.excel.handler.PageSupplier;
+import com.penghaohuan.excel.model.ExportSort;
 import example.ExampleVO;
+import example.RegionSalesVO;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ExportTest {
 
@@ -32,6 +47,211 @@ public class ExportTest {
         }
     }
 
+    @Test
+    public void testPipelineExport() throws IOException {
+        final List<ExampleVO> list = initExportList();
+        final int[] page = {0};
+        final PageSupplier<ExampleVO> supplier = () -> {
+            final int from = page[0]++ * 3;
+            return from >= list.size() ? null : list.subList(from, Math.min(from + 3, list.size()));
+        };
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(ExampleVO.class).exportExcel(supplier, "Pipeline", 6, out, 1);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertEquals(2, workbook.getNumberOfSheets());
+            Assert.assertEquals(6, workbook.getSheetAt(0).getLastRowNum());
+            Assert.assertEquals("9", workbook.getSheetAt(1).getRow(4).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void testDefaultSheetSize() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(ExampleVO.class).exportExcel(initExportList(), "Default", 0, out);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertEquals(1, workbook.getNumberOfSheets());
+            Assert.assertEquals(EXPORT_SIZE, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    public void testSheetSizeAboveXlsLimit() throws IOException {
+        final int rows = 70000; // 超过xls单个sheet的上限65536行
+        final List<ExampleVO> list = new AbstractList<ExampleVO>() {
+            @Override
+            public ExampleVO get(final int index) {
+                final ExampleVO row = new ExampleVO();
+                row.setNo(String.valueOf(index));
+                return row;
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        };
+        for (int sheetSize : new int[] {0, rows}) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new ExcelExporter<>(ExampleVO.class).exportExcel(list, "Large", sheetSize, out);
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                Assert.assertEquals(1, workbook.getNumberOfSheets());
+                Assert.assertEquals(rows, workbook.getSheetAt(0).getLastRowNum());
+            }
+        }
+    }
+
+    @Test
+    public void testRolloverAtSheetBoundary() throws IOException {
+        final List<ExampleVO> list = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            final ExampleVO row = new ExampleVO();
+            row.setNo(String.valueOf(i));
+            row.setAge(i);
+            list.add(row);
+        }
+        final int[] page = {0};
+        final PageSupplier<ExampleVO> supplier = () -> { // 数据行数恰好是sheet大小的整数倍，最后一页不满
+            final int from = page[0]++ * 5;
+            return from >= list.size() ? null : list.subList(from, Math.min(from + 5, list.size()));
+        };
+        final ByteArrayOutputStream pipelineOut = new ByteArrayOutputStream();
+        new ExcelExporter<>(ExampleVO.class).exportExcel(supplier, "Pipeline", 6, pipelineOut, 1);
+        final ByteArrayOutputStream sortedOut = new ByteArrayOutputStream();
+        new ExcelExporter<>(ExampleVO.class).exportExcel(list.iterator(), "Sorted", 6, sortedOut, new ExportSort().asc("age"));
+        for (ByteArrayOutputStream out : Arrays.asList(pipelineOut, sortedOut)) {
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                Assert.assertEquals(2, workbook.getNumberOfSheets()); // 写满最后一个sheet后不再创建空sheet
+                Assert.assertEquals(6, workbook.getSheetAt(0).getLastRowNum());
+                Assert.assertEquals(6, workbook.getSheetAt(1).getLastRowNum());
+                Assert.assertEquals("11", workbook.getSheetAt(1).getRow(6).getCell(0).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void testPipelineExportFailure() {
+        final PageSupplier<ExampleVO> supplier = () -> {
+            throw new IllegalStateException("db timeout");
+        };
+        try {
+            new ExcelExporter<>(ExampleVO.class).exportExcel(supplier, "Pipeline", 6, new ByteArrayOutputStream(), 1);
+            Assert.fail();
+        } catch (final IOException e) {
+            Assert.assertEquals("db timeout", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testPipelineExportExecutors() {
+        final PageSupplier<ExampleVO> supplier = () -> null;
+        final ExcelExporter<ExampleVO> exporter = new ExcelExporter<>(ExampleVO.class);
+        try {
+            exporter.exportExcel(supplier, "Pipeline", 6, new ByteArrayOutputStream(), 1, command -> {
+                throw new RejectedExecutionException("full");
+            });
+            Assert.fail();
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        try {
+            exporter.exportExcel(supplier, "Pipeline", 6, new ByteArrayOutputStream(), 1, Runnable::run); // 在当前线程运行
+            Assert.fail();
+        } catch (final IOException e) {
+            Assert.assertEquals("Export producer must not run on the exporting thread", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSortedExport() throws IOException {
+        final List<ExampleVO> list = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final ExampleVO row = new ExampleVO();
+            row.setNo(i + "");
+            row.setAge(i % 3);
+            list.add(row);
+        }
+        final ExportSort sort = new ExportSort().desc("age").asc("phone");
+        sort.setMaxBytesInMemory(1024); // 每几行写入一个有序段
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(ExampleVO.class).exportExcel(list.iterator(), "Sorted", 100, out, sort);
+        final List<String> expected = new ArrayList<>();
+        for (int age = 2; age >= 0; age--) {
+            for (int i = age; i < 20; i += 3) {
+                expected.add(i + "");
+            }
+        }
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            final List<String> actual = new ArrayList<>();
+            for (int rowNum = 1; rowNum <= 20; rowNum++) {
+                actual.add(workbook.getSheetAt(0).getRow(rowNum).getCell(0).getStringCellValue());
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSortedExportManyRuns() throws IOException {
+        final int rows = 1000;
+        final List<ExampleVO> list = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            final ExampleVO row = new ExampleVO();
+            row.setNo(i + "");
+            row.setAge(i % 7);
+            list.add(row);
+        }
+        final ExportSort sort = new ExportSort().asc("age");
+        sort.setMaxBytesInMemory(1024); // 数百个有序段，超过一次归并的上限，先逐批归并
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        final int runFiles = countRunFiles(tmpDir);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(ExampleVO.class).exportExcel(list.iterator(), "Sorted", 0, out, sort);
+        Assert.assertEquals(runFiles, countRunFiles(tmpDir));
+        final List<String> expected = new ArrayList<>();
+        for (int age = 0; age < 7; age++) {
+            for (int i = age; i < rows; i += 7) {
+                expected.add(i + "");
+            }
+        }
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            final List<String> actual = new ArrayList<>();
+            for (int rowNum = 1; rowNum <= rows; rowNum++) {
+                actual.add(workbook.getSheetAt(0).getRow(rowNum).getCell(0).getStringCellValue());
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    private int countRunFiles(final File dir) {
+        final File[] files = dir.listFiles((parent, name) -> name.startsWith("excel-sort") && name.endsWith(".run"));
+        return files == null ? 0 : files.length;
+    }
+
+    @Test
+    public void testMergeSame() throws IOException {
+        final List<RegionSalesVO> list = Arrays.asList(
+                new RegionSalesVO("华东", "上海", 1),
+                new RegionSalesVO("华东", "上海", 2),
+                new RegionSalesVO("华东", "杭州", 3),
+                new RegionSalesVO("华南", "杭州", 4),
+                new RegionSalesVO("华南", "杭州", 5),
+                new RegionSalesVO("华南", "广州", 6));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(RegionSalesVO.class).exportExcel(list, "Merge", 5, out);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            final Set<String> first = regions(workbook.getSheetAt(0));
+            Assert.assertEquals(new HashSet<>(Arrays.asList("A2:A4", "B2:B3", "A5:A6", "B5:B6")), first);
+            Assert.assertTrue(regions(workbook.getSheetAt(1)).isEmpty());
+        }
+    }
+
+    private Set<String> regions(final Sheet sheet) {
+        final Set<String> regions = new HashSet<>();
+        for (CellRangeAddress region : sheet.getMergedRegions()) {
+            regions.add(region.formatAsString());
+        }
+        return regions;
+    }
+
     private List<ExampleVO> initExportList() {
         final List<ExampleVO> list = new ArrayList<>(EXPORT_SIZE);
         for (int i = 0; i < EXPORT_SIZE; i++) {
@@ -0,0 +1,107 @@
+import com.penghaohuan.excel.annotation.ExcelCreator;
+import com.penghaohuan.excel.handler.ExcelExporter;
+import com.penghaohuan.excel.mapper.GeneratedMappers;
+import com.penghaohuan.excel.mapper.InstantiationStrategies;
+import com.penghaohuan.excel.mapper.InstantiationStrategy;
+import com.penghaohuan.excel.mapper.RowMapper;
+import com.penghaohuan.excel.mapper.RowWriter;
+import example.ContactVO;
+import example.ExampleValidator;
+import example.ExampleVO;
+import example.StaleVO;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class GeneratedMapperTest {
+
+    @Test
+    public void testGeneratedRowMapper() {
+        final RowMapper<ExampleVO> mapper = GeneratedMappers.findRowMapper(ExampleVO.class);
+        Assert.assertNotNull(mapper);
+        Assert.assertEquals(Arrays.asList("no", "age", "birth", "phone"), Arrays.asList(mapper.fieldNames()));
+
+        final ExampleVO vo = mapper.map(new Object[]{"D1", 18, null, "18700000000"});
+        Assert.assertEquals("D1", vo.getNo());
+        Assert.assertEquals(Integer.valueOf(18), vo.getAge());
+
+        final Object validator = mapper.newValidator(ExampleValidator.class);
+        Assert.assertTrue(validator instanceof ExampleValidator);
+        Assert.assertEquals("E1", mapper.validate(0, validator, "X", "E1").substring(0, 2));
+        Assert.assertNull(mapper.validate(1, validator, "X", "E1"));
+    }
+
+    @Test
+    public void testGeneratedRowWriter() {
+        final RowWriter<ExampleVO> writer = GeneratedMappers.findRowWriter(ExampleVO.class);
+        Assert.assertNotNull(writer);
+        final ExampleVO vo = new ExampleVO();
+        vo.setPhone("18700000000");
+        Assert.assertEquals("18700000000", writer.get(vo, 3));
+
+        Assert.assertNull(GeneratedMappers.findRowWriter(ContactVO.class)); // 没有导出属性
+    }
+
+    @Test
+    public void testStaleGeneratedClass() throws IOException {
+        Assert.assertNull(GeneratedMappers.findRowWriter(StaleVO.class)); // 指纹与实体不一致，回退到反射
+
+        final StaleVO vo = new StaleVO();
+        vo.setAmount(1.5);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelExporter<>(StaleVO.class).exportExcel(Collections.singletonList(vo), "sheet", 10, out);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertEquals("1.5", new DataFormatter().formatCellValue(workbook.getSheetAt(0).getRow(1).getCell(1)));
+        }
+    }
+
+    @Test
+    public void testInstantiationStrategies() throws Exception {
+        final List<Field> fields = Arrays.asList(Point.class.getDeclaredField("name"), Point.class.getDeclaredField("x"));
+        final Point point = InstantiationStrategies.forClass(Point.class, fields).newInstance(new Object[]{"P", null});
+        Assert.assertEquals("P", point.name);
+        Assert.assertEquals(0, point.x); // 基本类型参数为null时取默认值
+
+        final InstantiationStrategy<Factory> factory = InstantiationStrategies.forClass(Factory.class,
+                Arrays.asList(Factory.class.getDeclaredField("name")));
+        Assert.assertEquals("F!", factory.newInstance(new Object[]{"F"}).name);
+    }
+
+    /**
+     * 全参构造器创建的不可变实体.
+     */
+    static final class Point {
+        private final String name;
+        private final int x;
+
+        Point(final String name, final int x) {
+            this.name = name;
+            this.x = x;
+        }
+    }
+
+    /**
+     * 静态工厂方法创建的不可变实体.
+     */
+    static final class Factory {
+        private final String name;
+
+        private Factory(final String name) {
+            this.name = name;
+        }
+
+        @ExcelCreator
+        static Factory of(final String name) {
+            return new Factory(name + "!");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.model.ImportOptions;
+import example.ContactVO;
+import example.ExampleVO;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+public class ImportHeaderTest {
+
+    @Test
+    public void testImportMultiRowHeader() throws IOException, ExcelValidateException, ExcelTemplateException {
+        // | ＮＡＭＥ | Contact         | 2020 | Emergency |
+        // |          | Mobile | Phone  |      | Phone     |
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final Sheet sheet = workbook.createSheet();
+        final Row parent = sheet.createRow(0);
+        parent.createCell(0).setCellValue("ＮＡＭＥ ");
+        parent.createCell(1).setCellValue("Contact");
+        parent.createCell(3).setCellValue(2020);
+        parent.createCell(4).setCellValue("Emergency");
+        final Row child = sheet.createRow(1);
+        child.createCell(1).setCellValue("Mobile");
+        child.createCell(2).setCellValue("Phone");
+        child.createCell(4).setCellValue("Phone");
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 0));
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 1, 2));
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 3, 3));
+        final Row data = sheet.createRow(2);
+        data.createCell(0).setCellValue("Tom");
+        data.createCell(1).setCellValue("13700000000");
+        data.createCell(2).setCellValue("0755-1234");
+        data.createCell(3).setCellValue(98);
+        data.createCell(4).setCellValue("110");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+
+        final List<ContactVO> list = new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(out.toByteArray()), 2);
+        Assert.assertEquals(1, list.size());
+        Assert.assertEquals("Tom", list.get(0).getName());
+        Assert.assertEquals("0755-1234", list.get(0).getPhone());
+        Assert.assertEquals("110", list.get(0).getEmergencyPhone());
+        Assert.assertEquals(Integer.valueOf(98), list.get(0).getScore());
+    }
+
+    @Test
+    public void testWrongHeaderWithoutData() throws IOException, ExcelValidateException {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final Row head = workbook.createSheet().createRow(0);
+        head.createCell(0).setCellValue("编号");
+        head.createCell(1).setCellValue("年纪");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+
+        for (boolean streaming : new boolean[] {false, true}) {
+            final ImportOptions options = new ImportOptions();
+            options.setStreaming(streaming);
+            try {
+                new ExcelImporter<>(ExampleVO.class).importExcel(new ByteArrayInputStream(out.toByteArray()), 1, options);
+                Assert.fail("Header without data rows should still be validated, streaming: " + streaming);
+            } catch (final ExcelTemplateException e) {
+                Assert.assertEquals("文件模板错误，缺少列：年龄", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.handler.ImportScheduler;
+import com.penghaohuan.excel.model.ImportCost;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import com.penghaohuan.excel.reader.SheetReaders;
+import example.ExampleVO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ImportSchedulerTest {
+
+    private static final File FILE = new File("example.xlsx");
+
+    @Test
+    public void testEstimate() throws Exception {
+        final ImportCost cost = SheetReaders.estimate(FILE);
+        Assert.assertTrue(cost.isOoxml());
+        Assert.assertTrue(cost.getRows() > 0 && cost.getColumns() > 0);
+        Assert.assertTrue(cost.getDomBytes() > 0 && cost.getStreamingBytes() > 0);
+    }
+
+    @Test
+    public void testScheduledImport() throws Exception {
+        final int expected = new ExcelImporter<>(ExampleVO.class).importExcel(new FileInputStream(FILE), 1).size();
+        final ImportScheduler scheduler = new ImportScheduler(64L << 20, 2, 1);
+        scheduler.setDomLimit(1);
+        try {
+            final List<ImportOptions> options = new ArrayList<>();
+            final List<CompletableFuture<ImportResult<ExampleVO>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                options.add(new ImportOptions());
+                futures.add(scheduler.submit("tenant" + i % 2, new ExcelImporter<>(ExampleVO.class), FILE, 1, options.get(i)));
+            }
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals(expected, futures.get(i).get().getData().size());
+                Assert.assertTrue(futures.get(i).get().isStreaming());
+                Assert.assertFalse(options.get(i).isStreaming()); // 传入的选项不被修改
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        final ImportScheduler scheduler = new ImportScheduler(64L << 20, 1, 1);
+        final List<CompletableFuture<ImportResult<ExampleVO>>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit("tenant", new ExcelImporter<>(ExampleVO.class), FILE, 1, new ImportOptions()));
+        }
+        scheduler.shutdown();
+        Assert.assertTrue(scheduler.awaitTermination(60, TimeUnit.SECONDS));
+        Assert.assertFalse(futures.get(0).get().getData().isEmpty()); // 运行中的任务继续完成
+        for (int i = 1; i < 3; i++) {
+            try {
+                futures.get(i).get();
+                Assert.fail();
+            } catch (final ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException); // 等待中的任务被拒绝
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownFormat() throws Exception {
+        final File file = File.createTempFile("scheduler", ".txt");
+        try {
+            final ImportScheduler scheduler = new ImportScheduler(64L << 20, 1, 1);
+            final CompletableFuture<ImportResult<ExampleVO>> future =
+                    scheduler.submit("tenant", new ExcelImporter<>(ExampleVO.class), file, 1, new ImportOptions());
+            Assert.assertTrue(future.isCompletedExceptionally());
+            scheduler.shutdown();
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+}
@@ -2,11 +2,22 @@ import com.penghaohuan.excel.exception.ExcelTemplateException;
 import com.penghaohuan.excel.exception.ExcelValidateException;
 import com.penghaohuan.excel.handler.ExcelImporter;
 import example.ExampleVO;
+import example.ScheduleVO;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Calendar;
 import java.util.List;
 
 public class ImportTest {
@@ -19,4 +30,37 @@ public class ImportTest {
         final List<ExampleVO> exampleList = importer.importExcel(new FileInputStream(new File(FILE_NAME)), 1);
         assert exampleList != null;
     }
+
+    @Test
+    public void testDateFormats() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final Workbook workbook = new XSSFWorkbook();
+        final CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+        final CellStyle timeStyle = workbook.createCellStyle();
+        timeStyle.setDataFormat(workbook.createDataFormat().getFormat("hh:mm"));
+        final Sheet sheet = workbook.createSheet();
+        final Row head = sheet.createRow(0);
+        head.createCell(0).setCellValue("日期");
+        head.createCell(1).setCellValue("时间");
+        final Row row = sheet.createRow(1);
+        final Calendar day = Calendar.getInstance();
+        day.clear();
+        day.set(2020, Calendar.JANUARY, 5);
+        row.createCell(0).setCellValue(day.getTime());
+        row.getCell(0).setCellStyle(dateStyle);
+        row.createCell(1).setCellValue(10.5 / 24); // 10:30
+        row.getCell(1).setCellStyle(timeStyle);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+        workbook.close();
+
+        // 校验器将日期改写为2020-1-5，按yyyy-MM-dd仍可解析；只有时间的格式解析为1970-01-01的该时刻
+        final List<ScheduleVO> list = new ExcelImporter<>(ScheduleVO.class).importExcel(new ByteArrayInputStream(out.toByteArray()), 1);
+        Assert.assertEquals(day.getTime(), list.get(0).getDay());
+        final Calendar time = Calendar.getInstance();
+        time.setTime(list.get(0).getTime());
+        Assert.assertEquals(1970, time.get(Calendar.YEAR));
+        Assert.assertEquals(10, time.get(Calendar.HOUR_OF_DAY));
+        Assert.assertEquals(30, time.get(Calendar.MINUTE));
+    }
 }
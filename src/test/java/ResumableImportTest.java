@@ -0,0 +1,114 @@
+import com.penghaohuan.excel.exception.ExcelListenerException;
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.handler.ImportListener;
+import com.penghaohuan.excel.model.ImportCheckpoint;
+import com.penghaohuan.excel.model.ImportOptions;
+import example.AccountVO;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ResumableImportTest {
+
+    @Test
+    public void testResumeXlsx() throws IOException, ExcelValidateException, ExcelTemplateException {
+        assertResumed(write(new XSSFWorkbook()), true);
+    }
+
+    @Test
+    public void testResumeXls() throws IOException, ExcelValidateException, ExcelTemplateException {
+        assertResumed(write(new HSSFWorkbook()), false);
+    }
+
+    @Test(expected = ExcelTemplateException.class)
+    public void testResumeOtherFile() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setResumeFrom(3);
+        options.setResumeDigest("0000");
+        new ExcelImporter<>(AccountVO.class).importExcel(new ByteArrayInputStream(write(new XSSFWorkbook())), 1, options,
+                (entity, rowNumber) -> { });
+    }
+
+    private void assertResumed(final byte[] file, final boolean streaming) throws ExcelValidateException, ExcelTemplateException {
+        final ExcelImporter<AccountVO> importer = new ExcelImporter<>(AccountVO.class);
+        final RecordingListener first = new RecordingListener(5);
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(streaming);
+        options.setCheckpointInterval(2);
+        try {
+            importer.importExcel(new ByteArrayInputStream(file), 1, options, first);
+            Assert.fail();
+        } catch (final ExcelListenerException e) {
+            Assert.assertEquals(Arrays.asList("A", "B", "C", "D"), first.codes);
+        }
+        final ImportCheckpoint checkpoint = first.checkpoint;
+        Assert.assertEquals(3, checkpoint.getLastRow());
+        Assert.assertEquals(64, checkpoint.getFileDigest().length());
+
+        final RecordingListener resumed = new RecordingListener(0);
+        options.setResumeFrom(checkpoint.getLastRow());
+        options.setResumeDigest(checkpoint.getFileDigest());
+        importer.importExcel(new ByteArrayInputStream(file), 1, options, resumed);
+        Assert.assertEquals(Arrays.asList("C", "D", "E"), resumed.codes);
+        Assert.assertEquals(6, resumed.checkpoint.getLastRow());
+        Assert.assertEquals(3, resumed.checkpoint.getRowCount());
+    }
+
+    private byte[] write(final Workbook workbook) throws IOException {
+        final Sheet sheet = workbook.createSheet();
+        final Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("账号");
+        header.createCell(1).setCellValue("名称");
+        for (String code : new String[]{"A", "B", "C", "D", "E"}) {
+            final Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+            row.createCell(0).setCellValue(code);
+            row.createCell(1).setCellValue(code.toLowerCase());
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+        workbook.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * 记录提交的行，在指定行号失败.
+     */
+    private static final class RecordingListener implements ImportListener<AccountVO> {
+
+        private final int failAt;
+
+        private final List<String> codes = new ArrayList<>();
+
+        private ImportCheckpoint checkpoint;
+
+        RecordingListener(final int failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void onRow(final AccountVO entity, final int rowNumber) throws Exception {
+            codes.add(entity.getCode());
+            if (rowNumber == failAt) {
+                throw new IOException("timeout");
+            }
+        }
+
+        @Override
+        public void onCheckpoint(final ImportCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+import com.penghaohuan.excel.exception.ExcelLimitExceededException;
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.exception.ExcelValidateException;
+import com.penghaohuan.excel.handler.ExcelImporter;
+import com.penghaohuan.excel.model.ColumnProfile;
+import com.penghaohuan.excel.model.ImportLimits;
+import com.penghaohuan.excel.model.ImportOptions;
+import com.penghaohuan.excel.model.ImportResult;
+import example.AccountVO;
+import example.ContactVO;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+public class StreamingImportTest {
+
+    @Test
+    public void testStreamingImportXls() throws IOException, ExcelValidateException, ExcelTemplateException {
+        assertImported(importStreaming(new HSSFWorkbook()));
+    }
+
+    @Test
+    public void testStreamingImportXlsx() throws IOException, ExcelValidateException, ExcelTemplateException {
+        assertImported(importStreaming(new XSSFWorkbook()));
+    }
+
+    @Test(expected = ExcelTemplateException.class)
+    public void testStreamingImportUnknownFormat() throws ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(true);
+        new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream("a,b,c".getBytes()), 2, options);
+    }
+
+    @Test
+    public void testPreview() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final List<ContactVO> list = new ExcelImporter<>(ContactVO.class).preview(new ByteArrayInputStream(write(new XSSFWorkbook())), 2, 2);
+        Assert.assertEquals(1, list.size());
+        Assert.assertEquals("Tom", list.get(0).getName());
+    }
+
+    @Test
+    public void testProbeHeader() throws IOException, ExcelTemplateException {
+        final Map<String, Integer> columns = new ExcelImporter<>(ContactVO.class).probeHeader(new ByteArrayInputStream(write(new HSSFWorkbook())), 2);
+        Assert.assertEquals(Arrays.asList("name", "phone", "emergencyPhone", "score"), new ArrayList<>(columns.keySet()));
+        Assert.assertEquals(Integer.valueOf(2), columns.get("phone"));
+        Assert.assertEquals(Integer.valueOf(4), columns.get("emergencyPhone"));
+    }
+
+    @Test
+    public void testStopOnBlankRows() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final CellStyle style = workbook.createCellStyle();
+        style.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        final Sheet sheet = createContactSheet(workbook);
+        for (int rowNum = 5; rowNum < 100; rowNum++) { // 只带格式的空行
+            sheet.createRow(rowNum).createCell(0).setCellStyle(style);
+        }
+        sheet.createRow(100).createCell(0).setCellValue("Late");
+
+        final ImportOptions options = new ImportOptions();
+        options.setMaxConsecutiveBlankRows(10);
+        final ImportResult<ContactVO> result = new ExcelImporter<>(ContactVO.class)
+                .importExcelWithResult(new ByteArrayInputStream(toBytes(workbook)), 2, options);
+        Assert.assertEquals(2, result.getData().size());
+        Assert.assertEquals(5, result.getLastDataRow());
+        Assert.assertEquals(2, result.getDataRowCount());
+        Assert.assertTrue(result.isStoppedOnBlankRows());
+    }
+
+    @Test
+    public void testImportLimits() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final byte[] file = write(new XSSFWorkbook());
+        final ImportLimits limits = new ImportLimits();
+        limits.setMaxRows(5);
+        limits.setMaxColumns(6);
+        final ImportOptions options = new ImportOptions();
+        options.setLimits(limits);
+        assertImported(new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(file), 2, options));
+        limits.setMaxCells(20);
+        for (boolean streaming : new boolean[] {false, true}) {
+            options.setStreaming(streaming);
+            try {
+                new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(file), 2, options);
+                Assert.fail();
+            } catch (final ExcelLimitExceededException e) {
+                Assert.assertEquals("单元格数", e.getLimit());
+                Assert.assertEquals(30, e.getActual(), 0);
+            }
+        }
+    }
+
+    @Test(expected = ExcelLimitExceededException.class)
+    public void testExpansionRatioLimit() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final Sheet sheet = createContactSheet(workbook);
+        for (int rowNum = 5; rowNum < 5000; rowNum++) { // 高度重复的内容压缩比很高
+            sheet.createRow(rowNum).createCell(5).setCellValue("Tom");
+        }
+        final ImportLimits limits = new ImportLimits();
+        limits.setMaxExpansionRatio(5);
+        final ImportOptions options = new ImportOptions();
+        options.setLimits(limits);
+        new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(toBytes(workbook)), 2, options);
+    }
+
+    @Test
+    public void testReadTimeLimits() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final byte[] file = write(new HSSFWorkbook()); // xls解析前只知道文件大小，行列数在读取时检查
+        final ImportLimits limits = new ImportLimits();
+        limits.setMaxRows(4);
+        limits.setMaxExpansionRatio(5);
+        final ImportOptions options = new ImportOptions();
+        options.setLimits(limits);
+        for (boolean streaming : new boolean[] {false, true}) {
+            options.setStreaming(streaming);
+            try {
+                new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(file), 2, options);
+                Assert.fail();
+            } catch (final ExcelLimitExceededException e) {
+                Assert.assertEquals("行数", e.getLimit());
+                Assert.assertEquals(5, e.getActual(), 0);
+            }
+        }
+
+        final double minInflateRatio = ZipSecureFile.getMinInflateRatio();
+        options.setStreaming(true);
+        limits.setMaxRows(0);
+        assertImported(new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(write(new XSSFWorkbook())), 2, options));
+        Assert.assertEquals(minInflateRatio, ZipSecureFile.getMinInflateRatio(), 0); // 读取结束后恢复POI的全局设置
+    }
+
+    @Test
+    public void testFalseDeclaredSizes() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final byte[] file = falsifyDeclaredSizes(write(new XSSFWorkbook()), 4 << 20); // 解析前按声明的大小估算，压缩比为1
+        final ImportLimits limits = new ImportLimits();
+        limits.setMaxExpansionRatio(5);
+        final ImportOptions options = new ImportOptions();
+        options.setLimits(limits);
+        final double minInflateRatio = ZipSecureFile.getMinInflateRatio();
+        for (boolean streaming : new boolean[] {false, true}) {
+            options.setStreaming(streaming);
+            try {
+                new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(file), 2, options);
+                Assert.fail();
+            } catch (final ExcelLimitExceededException e) {
+                Assert.assertEquals("压缩比", e.getLimit());
+                Assert.assertTrue(e.getActual() > 5);
+            }
+            Assert.assertEquals(minInflateRatio, ZipSecureFile.getMinInflateRatio(), 0); // 不修改POI的全局设置
+        }
+
+        options.setLimits(null); // 没有导入限制时按POI的全局设置检查
+        options.setStreaming(false);
+        try {
+            new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(file), 2, options);
+            Assert.fail();
+        } catch (final ExcelLimitExceededException e) {
+            Assert.assertEquals("压缩比", e.getLimit());
+            Assert.assertEquals(1 / minInflateRatio, e.getMax(), 0.01);
+        }
+    }
+
+    @Test
+    public void testColumnProfiles() throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(true);
+        options.setProfileColumns(true);
+        final List<ColumnProfile> profiles = new ExcelImporter<>(ContactVO.class)
+                .importExcelWithResult(new ByteArrayInputStream(write(new XSSFWorkbook())), 2, options).getColumnProfiles();
+        Assert.assertEquals(4, profiles.size());
+        final ColumnProfile name = profiles.get(0);
+        Assert.assertEquals(2, name.getValueCount());
+        Assert.assertEquals(2, name.getDistinctEstimate());
+        Assert.assertEquals(5, name.getMaxLength());
+        Assert.assertEquals("Jerry", name.getMin());
+        Assert.assertEquals(1, profiles.get(1).getNullCount());
+        Assert.assertEquals(60.0, profiles.get(3).getMin());
+        Assert.assertEquals(98.0, profiles.get(3).getMax());
+
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final Sheet sheet = workbook.createSheet();
+        sheet.createRow(0).createCell(0).setCellValue("账号");
+        sheet.getRow(0).createCell(1).setCellValue("名称");
+        for (int i = 1; i <= 5000; i++) {
+            final Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue("A" + i);
+            row.createCell(1).setCellValue("N" + i % 10);
+        }
+        final List<ColumnProfile> accounts = new ExcelImporter<>(AccountVO.class)
+                .importExcelWithResult(new ByteArrayInputStream(toBytes(workbook)), 1, options).getColumnProfiles();
+        Assert.assertEquals(5000, accounts.get(0).getDistinctEstimate(), 250);
+        Assert.assertEquals(10, accounts.get(1).getDistinctEstimate());
+    }
+
+    private List<ContactVO> importStreaming(final Workbook workbook) throws IOException, ExcelValidateException, ExcelTemplateException {
+        final ImportOptions options = new ImportOptions();
+        options.setStreaming(true);
+        return new ExcelImporter<>(ContactVO.class).importExcel(new ByteArrayInputStream(write(workbook)), 2, options);
+    }
+
+    private byte[] write(final Workbook workbook) throws IOException {
+        createContactSheet(workbook);
+        return toBytes(workbook);
+    }
+
+    private Sheet createContactSheet(final Workbook workbook) {
+        // | ＮＡＭＥ | Contact         | 2020 | Emergency | Remark |
+        // |          | Mobile | Phone  |      | Phone     |        |
+        final Sheet sheet = workbook.createSheet();
+        final Row parent = sheet.createRow(0);
+        parent.createCell(0).setCellValue("ＮＡＭＥ ");
+        parent.createCell(1).setCellValue("Contact");
+        parent.createCell(3).setCellValue(2020);
+        parent.createCell(4).setCellValue("Emergency");
+        parent.createCell(5).setCellValue("Remark"); // 未映射的列
+        final Row child = sheet.createRow(1);
+        child.createCell(1).setCellValue("Mobile");
+        child.createCell(2).setCellValue("Phone");
+        child.createCell(4).setCellValue("Phone");
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 0));
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 1, 2));
+        sheet.addMergedRegion(new CellRangeAddress(0, 1, 3, 3));
+        final Row data = sheet.createRow(2);
+        data.createCell(0).setCellValue("Tom");
+        data.createCell(1).setCellValue("13700000000");
+        data.createCell(2).setCellValue("0755-1234");
+        data.createCell(3).setCellValue(98);
+        data.createCell(4).setCellValue("110");
+        data.createCell(5).setCellValue("Tom");
+        final Row next = sheet.createRow(4); // 第4行为空行
+        next.createCell(0).setCellValue("Jerry");
+        next.createCell(3).setCellValue(60);
+        return sheet;
+    }
+
+    /**
+     * 在工作表末尾填充空白后重新压缩，并将zip目录与数据描述符中声明的解压后大小改为压缩后大小.
+     */
+    private byte[] falsifyDeclaredSizes(final byte[] xlsx, final int padding) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(xlsx));
+             ZipOutputStream zout = new ZipOutputStream(out)) {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int n;
+                while ((n = zin.read(buffer)) != -1) {
+                    content.write(buffer, 0, n);
+                }
+                zout.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().startsWith("xl/worksheets/")) {
+                    final String xml = new String(content.toByteArray(), StandardCharsets.UTF_8);
+                    final int end = xml.lastIndexOf("</worksheet>");
+                    final char[] spaces = new char[padding];
+                    Arrays.fill(spaces, ' ');
+                    zout.write((xml.substring(0, end) + new String(spaces) + xml.substring(end)).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    content.writeTo(zout);
+                }
+                zout.closeEntry();
+            }
+        }
+        final ByteBuffer zip = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        final int eocd = zip.limit() - 22; // 没有注释
+        int pos = zip.getInt(eocd + 16);
+        for (int i = 0; i < zip.getShort(eocd + 10); i++) {
+            final int compressed = zip.getInt(pos + 20);
+            zip.putInt(pos + 24, compressed);
+            final int local = zip.getInt(pos + 42);
+            final int descriptor = local + 30 + zip.getShort(local + 26) + zip.getShort(local + 28) + compressed;
+            if (zip.getInt(descriptor) == 0x08074b50) {
+                zip.putInt(descriptor + 12, compressed);
+            }
+            pos += 46 + zip.getShort(pos + 28) + zip.getShort(pos + 30) + zip.getShort(pos + 32);
+        }
+        return zip.array();
+    }
+
+    private byte[] toBytes(final Workbook workbook) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+        workbook.close();
+        return out.toByteArray();
+    }
+
+    private void assertImported(final List<ContactVO> list) {
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals("Tom", list.get(0).getName());
+        Assert.assertEquals("0755-1234", list.get(0).getPhone());
+        Assert.assertEquals("110", list.get(0).getEmergencyPhone());
+        Assert.assertEquals(Integer.valueOf(98), list.get(0).getScore());
+        Assert.assertEquals("Jerry", list.get(1).getName());
+        Assert.assertNull(list.get(1).getPhone());
+        Assert.assertEquals(Integer.valueOf(60), list.get(1).getScore());
+    }
+}
@@ -0,0 +1,119 @@
+import com.penghaohuan.excel.ExcelConst;
+import com.penghaohuan.excel.exception.ExcelTemplateException;
+import com.penghaohuan.excel.handler.ExcelTemplate;
+import com.penghaohuan.excel.handler.ExcelTemplateExporter;
+import example.ExampleVO;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TemplateExportTest {
+
+    private static final int EXPORT_SIZE = 1000;
+
+    @Test
+    public void testExportByTemplate() throws IOException, ExcelTemplateException {
+        final ExcelTemplate template = ExcelTemplate.compile(new ByteArrayInputStream(buildTemplate()));
+        Assert.assertEquals(2, template.getFirstRow());
+
+        final Map<String, Object> model = new HashMap<>();
+        model.put(ExcelConst.TITLE_MODEL_KEY, "人员信息表");
+        model.put(ExcelConst.SHEET_NAME_MODEL_KEY, "人员");
+        model.put("total", EXPORT_SIZE);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelTemplateExporter<>(ExampleVO.class).exportExcel(template, model, initExportList().iterator(), out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            final Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals("人员", sheet.getSheetName());
+            Assert.assertEquals("人员信息表", sheet.getRow(0).getCell(0).getStringCellValue());
+            Assert.assertEquals("编号", sheet.getRow(1).getCell(0).getStringCellValue());
+            Assert.assertEquals("0", sheet.getRow(2).getCell(0).getStringCellValue());
+            Assert.assertEquals(BorderStyle.THIN, sheet.getRow(2).getCell(0).getCellStyle().getBorderBottom());
+            final Row footer = sheet.getRow(2 + EXPORT_SIZE);
+            Assert.assertEquals("合计", footer.getCell(0).getStringCellValue());
+            Assert.assertEquals(EXPORT_SIZE, (int) footer.getCell(2).getNumericCellValue());
+            Assert.assertEquals("SUM(B3:B" + (2 + EXPORT_SIZE) + ")", footer.getCell(3).getCellFormula());
+            Assert.assertEquals("D" + (3 + EXPORT_SIZE) + "/$A$2+SUM(B2:B" + (3 + EXPORT_SIZE) + ")",
+                    sheet.getRow(3 + EXPORT_SIZE).getCell(3).getCellFormula());
+            boolean footerMerged = false;
+            for (CellRangeAddress region : sheet.getMergedRegions()) {
+                footerMerged |= region.getFirstRow() == 2 + EXPORT_SIZE && region.getLastColumn() == 1;
+            }
+            Assert.assertTrue(footerMerged);
+        }
+    }
+
+    @Test
+    public void testExportEmptyByTemplate() throws IOException, ExcelTemplateException {
+        final ExcelTemplate template = ExcelTemplate.compile(new ByteArrayInputStream(buildTemplate()));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelTemplateExporter<>(ExampleVO.class).exportExcel(template, new HashMap<>(),
+                Collections.<ExampleVO>emptyIterator(), out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            final Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals("合计", sheet.getRow(3).getCell(0).getStringCellValue());
+            Assert.assertEquals("SUM(B3:B3)", sheet.getRow(3).getCell(3).getCellFormula());
+            Assert.assertEquals("D4/$A$2+SUM(B2:B4)", sheet.getRow(4).getCell(3).getCellFormula());
+        }
+    }
+
+    private byte[] buildTemplate() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            final Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("${title}");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 3));
+            final Row head = sheet.createRow(1);
+            final String[] names = {"编号", "年龄", "出生年月日", "手机号码"};
+            for (int i = 0; i < names.length; i++) {
+                head.createCell(i).setCellValue(names[i]);
+            }
+            final CellStyle dataStyle = workbook.createCellStyle();
+            dataStyle.setBorderBottom(BorderStyle.THIN);
+            final Row data = sheet.createRow(2);
+            for (int i = 0; i < names.length; i++) {
+                data.createCell(i).setCellStyle(dataStyle);
+            }
+            data.getCell(0).setCellValue("${data}");
+            final Row footer = sheet.createRow(3);
+            footer.createCell(0).setCellValue("合计");
+            footer.createCell(1);
+            footer.createCell(2).setCellValue("${total}");
+            footer.createCell(3).setCellFormula("SUM(B3:B3)");
+            sheet.createRow(4).createCell(3).setCellFormula("D4/$A$2+SUM(B2:B4)");
+            sheet.addMergedRegion(new CellRangeAddress(3, 3, 0, 1));
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private List<ExampleVO> initExportList() {
+        final List<ExampleVO> list = new ArrayList<>(EXPORT_SIZE);
+        for (int i = 0; i < EXPORT_SIZE; i++) {
+            final ExampleVO row = new ExampleVO();
+            row.setNo(i + "");
+            row.setAge(10);
+            row.setBirth(new Date());
+            row.setPhone("13711111111");
+            list.add(row);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,31 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+
+/**
+ * A Simple Example For Key Field Usage.
+ */
+public class AccountVO {
+
+    @ImportExcelDesc(name = "账号", keyAttr = true)
+    private String code;
+
+    @ImportExcelDesc(name = "名称")
+    private String name;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,53 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+
+/**
+ * A Simple Example For Multi-Row Header Usage.
+ */
+public class ContactVO {
+
+    @ImportExcelDesc(name = "姓名", aliases = "Name")
+    private String name;
+
+    @ImportExcelDesc(name = "Contact > Phone")
+    private String phone;
+
+    @ImportExcelDesc(name = "Emergency > Phone")
+    private String emergencyPhone;
+
+    @ImportExcelDesc(name = "2020")
+    private Integer score;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public String getEmergencyPhone() {
+        return emergencyPhone;
+    }
+
+    public void setEmergencyPhone(String emergencyPhone) {
+        this.emergencyPhone = emergencyPhone;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+}
@@ -1,5 +1,6 @@
 package example;
 
+import com.penghaohuan.excel.annotation.StatelessValidator;
 import com.penghaohuan.excel.handler.ExcelImporter;
 import org.apache.commons.lang3.StringUtils;
 
@@ -9,6 +10,7 @@ import org.apache.commons.lang3.StringUtils;
  *
  * @author penghaohuan
  */
+@StatelessValidator
 public class ExampleRowValidator {
 
     /**
@@ -0,0 +1,34 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+
+/**
+ * A Simple Example For Dictionary Usage.
+ */
+public class MemberVO {
+
+    @ImportExcelDesc(name = "姓名")
+    @ExportExcelDesc(name = "姓名")
+    private String name;
+
+    @ImportExcelDesc(name = "性别", dictionary = "gender")
+    @ExportExcelDesc(name = "性别", dictionary = "gender")
+    private Integer gender;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getGender() {
+        return gender;
+    }
+
+    public void setGender(Integer gender) {
+        this.gender = gender;
+    }
+}
@@ -0,0 +1,96 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+
+import java.util.Date;
+
+/**
+ * A Simple Example For Performance Test Usage.
+ */
+public class PerfRowVO {
+
+    @ExportExcelDesc(name = "编号")
+    @ImportExcelDesc(name = "编号", keyAttr = true, regularExpression = "^NO[0-9]+$", regularExpressionTip = "编号格式不正确")
+    private String no;
+
+    @ExportExcelDesc(name = "名称", mergeSame = true)
+    @ImportExcelDesc(name = "名称", isCheckNull = true)
+    private String name;
+
+    @ExportExcelDesc(name = "数量")
+    @ImportExcelDesc(name = "数量")
+    private Integer quantity;
+
+    @ExportExcelDesc(name = "单价")
+    @ImportExcelDesc(name = "单价")
+    private Double price;
+
+    @ExportExcelDesc(name = "日期")
+    @ImportExcelDesc(name = "日期", dateFormat = "yyyy-MM-dd")
+    private Date date;
+
+    @ExportExcelDesc(name = "金额")
+    @ImportExcelDesc(name = "金额")
+    private Double amount;
+
+    public PerfRowVO() {
+    }
+
+    public PerfRowVO(String no, String name, Integer quantity, Double price, Date date, Double amount) {
+        this.no = no;
+        this.name = name;
+        this.quantity = quantity;
+        this.price = price;
+        this.date = date;
+        this.amount = amount;
+    }
+
+    public String getNo() {
+        return no;
+    }
+
+    public void setNo(String no) {
+        this.no = no;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+}
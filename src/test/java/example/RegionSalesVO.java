@@ -0,0 +1,51 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+
+/**
+ * A Simple Example For Vertical Merge Usage.
+ */
+public class RegionSalesVO {
+
+    @ExportExcelDesc(name = "大区", mergeSame = true)
+    private String region;
+
+    @ExportExcelDesc(name = "城市", mergeSame = true)
+    private String city;
+
+    @ExportExcelDesc(name = "销售额")
+    private Integer amount;
+
+    public RegionSalesVO() {
+    }
+
+    public RegionSalesVO(String region, String city, Integer amount) {
+        this.region = region;
+        this.city = city;
+        this.amount = amount;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,33 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ImportExcelDesc;
+
+import java.util.Date;
+
+/**
+ * A Simple Example For Date Parsing Usage.
+ */
+public class ScheduleVO {
+
+    @ImportExcelDesc(name = "日期", dateFormat = "yyyy-MM-dd", function = "validate", clazz = ShortDateValidator.class)
+    private Date day;
+
+    @ImportExcelDesc(name = "时间", dateFormat = "HH:mm")
+    private Date time;
+
+    public Date getDay() {
+        return day;
+    }
+
+    public void setDay(Date day) {
+        this.day = day;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public void setTime(Date time) {
+        this.time = time;
+    }
+}
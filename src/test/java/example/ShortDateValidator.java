@@ -0,0 +1,23 @@
+package example;
+
+import com.penghaohuan.excel.annotation.StatelessValidator;
+import com.penghaohuan.excel.handler.ExcelImporter;
+
+/**
+ * A validator which rewrites dates without leading zeros, e.g. 2020-01-05 to 2020-1-5.
+ *
+ * @author penghaohuan
+ */
+@StatelessValidator
+public class ShortDateValidator {
+
+    /**
+     *
+     * @param value 单元格值
+     * @param exceptionMsg 异常信息，包含校验值所在的行、列信息
+     * @return 返回原始值+ %c后缀为校验通过，否则为返回的校验异常信息
+     */
+    public String validate(String value, String exceptionMsg) {
+        return value == null ? ExcelImporter.CORRECT_SYMBOL : value.replace("-0", "-") + ExcelImporter.CORRECT_SYMBOL;
+    }
+}
@@ -0,0 +1,31 @@
+package example;
+
+import com.penghaohuan.excel.annotation.ExportExcelDesc;
+
+/**
+ * A Simple Example For Out Of Date Generated Class Usage.
+ */
+public class StaleVO {
+
+    @ExportExcelDesc(name = "名称")
+    private String name;
+
+    @ExportExcelDesc(name = "金额")
+    private Double amount;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+}
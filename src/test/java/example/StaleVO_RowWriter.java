@@ -0,0 +1,28 @@
+package example;
+
+/**
+ * 模拟增量编译保留的过期生成类：生成时StaleVO的amount为Integer.
+ */
+public final class StaleVO_RowWriter implements com.penghaohuan.excel.mapper.RowWriter<example.StaleVO> {
+
+    public static final String SCHEMA = "ddc8480a69306aa9d30d330e5df51bcc1827ae111f390bfc97fb5a329bd7cc51";
+
+    private static final String[] FIELD_NAMES = {"name", "amount"};
+
+    @Override
+    public String[] fieldNames() {
+        return FIELD_NAMES.clone();
+    }
+
+    @Override
+    public Object get(final example.StaleVO entity, final int index) {
+        switch (index) {
+            case 0:
+                return entity.getName();
+            case 1:
+                return entity.getAmount() == null ? null : entity.getAmount().intValue();
+            default:
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+}